@@ -0,0 +1,67 @@
+package com.example.stock.benchmark;
+
+import com.example.stock.config.WebConfig;
+import com.example.stock.dto.StockResponse;
+import com.example.stock.service.Screen;
+import com.example.stock.service.impl.BarSampler;
+import com.example.stock.service.impl.GridAssembler;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 年线窗口（前后各750个交易日）一页数据降采样后再序列化为 JSON，与直接输出日线对比
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DownsampleBenchmark {
+
+  @Param({"day", "week", "month"})
+  private String resolution;
+
+  // 0 表示不限点数
+  @Param({"0", "120"})
+  private int maxPoints;
+
+  private StockResponse response;
+  private ObjectMapper objectMapper;
+  private final ByteArrayOutputStream sink = new ByteArrayOutputStream(1 << 20);
+
+  @Setup
+  public void setUp() {
+    int windowDays = Screen.YEAR_LINE.getWindowDays();
+    int days = 2 * windowDays + 1;
+    LocalDate baseDate = Fixtures.tradeDays(days).get(windowDays);
+    response = GridAssembler.assemble(Screen.YEAR_LINE, Fixtures.bars(0, 9, days, 42), baseDate,
+        5000, 1, baseDate.toString());
+    objectMapper = Jackson2ObjectMapperBuilder.json().modulesToInstall(WebConfig.stockBarModule()).build();
+  }
+
+  @Benchmark
+  public int sampleAndWrite() throws IOException {
+    StockResponse sampled = BarSampler.apply(response, BarSampler.Resolution.parse(resolution),
+        maxPoints > 0 ? maxPoints : null);
+    sink.reset();
+    objectMapper.writeValue(sink, sampled);
+    return sink.size();
+  }
+}
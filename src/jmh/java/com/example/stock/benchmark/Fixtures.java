@@ -0,0 +1,56 @@
+package com.example.stock.benchmark;
+
+import com.example.stock.bench.SyntheticMarket;
+import com.example.stock.entity.StockBar;
+import com.example.stock.entity.StockData;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 基准测试用的合成行情，由 {@link SyntheticMarket} 生成
+ *
+ * 同一 seed 生成的数据完全相同，便于对比不同版本的结果。
+ * 不模拟停牌和中途上市，每只股票在每个交易日都有数据，窗口行数固定。
+ */
+final class Fixtures {
+
+  // 第一个交易日
+  static final LocalDate FIRST_DAY = LocalDate.of(2020, 1, 2);
+
+  private Fixtures() {
+  }
+
+  /**
+   * 从 FIRST_DAY 起的连续工作日
+   */
+  static List<LocalDate> tradeDays(int days) {
+    return SyntheticMarket.tradeDays(FIRST_DAY, days);
+  }
+
+  /**
+   * 生成[fromStock, toStock)号股票各 days 个交易日的日线，每只股票的行连续且按交易日升序
+   */
+  static List<StockData> rows(int fromStock, int toStock, int days, long seed) {
+    List<LocalDate> dates = tradeDays(days);
+    SyntheticMarket market = new SyntheticMarket(seed);
+    List<StockData> rows = new ArrayList<>((toStock - fromStock) * days);
+    for (int s = fromStock; s < toStock; s++) {
+      rows.addAll(market.series(s, dates, false));
+    }
+    return rows;
+  }
+
+  /**
+   * 与 rows 相同的数据，转换为查询路径使用的 StockBar
+   */
+  static List<StockBar> bars(int fromStock, int toStock, int days, long seed) {
+    List<StockData> rows = rows(fromStock, toStock, days, seed);
+    List<StockBar> bars = new ArrayList<>(rows.size());
+    for (StockData row : rows) {
+      bars.add(StockBar.of(row));
+    }
+    return bars;
+  }
+}
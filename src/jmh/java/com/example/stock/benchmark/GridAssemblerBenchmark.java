@@ -0,0 +1,57 @@
+package com.example.stock.benchmark;
+
+import com.example.stock.dto.StockResponse;
+import com.example.stock.entity.StockBar;
+import com.example.stock.service.Screen;
+import com.example.stock.service.impl.GridAssembler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * grid_data 组装：一页股票 × 目标日前后 windowDays 个交易日
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GridAssemblerBenchmark {
+
+  @Param({"ALL", "LIMIT_UP", "YEAR_LINE"})
+  private Screen screen;
+
+  @Param({"9", "50"})
+  private int pageSize;
+
+  @Param({"20", "250", "750"})
+  private int windowDays;
+
+  private List<StockBar> rows;
+  private LocalDate baseDate;
+
+  @Setup
+  public void setUp() {
+    int days = 2 * windowDays + 1;
+    rows = Fixtures.bars(0, pageSize, days, 42);
+    baseDate = Fixtures.tradeDays(days).get(windowDays);
+  }
+
+  @Benchmark
+  public StockResponse assemble() {
+    return GridAssembler.assemble(screen, rows, baseDate, 5000, 1, baseDate.toString());
+  }
+}
@@ -0,0 +1,60 @@
+package com.example.stock.benchmark;
+
+import com.example.stock.entity.StockData;
+import com.example.stock.indicator.IndicatorSpec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单只股票完整序列上的指标计算，不含序列加载和按交易日对齐
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IndicatorBenchmark {
+
+  @Param({"250", "2500"})
+  private int days;
+
+  @Param({"macd", "rsi", "boll", "kdj", "atr"})
+  private String indicator;
+
+  private double[] high;
+  private double[] low;
+  private double[] close;
+  private IndicatorSpec spec;
+
+  @Setup
+  public void setUp() {
+    List<StockData> rows = Fixtures.rows(0, 1, days, 42);
+    high = new double[rows.size()];
+    low = new double[rows.size()];
+    close = new double[rows.size()];
+    for (int i = 0; i < rows.size(); i++) {
+      high[i] = rows.get(i).getHigh().doubleValue();
+      low[i] = rows.get(i).getLow().doubleValue();
+      close[i] = rows.get(i).getClose().doubleValue();
+    }
+    spec = IndicatorSpec.parseList(indicator, 1).get(0);
+  }
+
+  @Benchmark
+  public double[][] compute() {
+    return spec.compute(high, low, close);
+  }
+}
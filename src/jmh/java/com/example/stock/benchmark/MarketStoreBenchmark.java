@@ -0,0 +1,67 @@
+package com.example.stock.benchmark;
+
+import com.example.stock.engine.MarketStore;
+import com.example.stock.service.Screen;
+import com.example.stock.service.ScreenPage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 内存行情引擎的一次筛选：扫描当日全部股票、排序并取一页的窗口数据
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class MarketStoreBenchmark {
+
+  // 每只股票的交易日数，足够覆盖年线
+  private static final int DAYS = 300;
+
+  @Param({"1000", "5000"})
+  private int stocks;
+
+  @Param({"ALL", "LIMIT_UP", "HALF_YEAR_LINE"})
+  private Screen screen;
+
+  @Param({"9", "50"})
+  private int pageSize;
+
+  private MarketStore store;
+  private LocalDate tradeDate;
+  private LocalDate windowStart;
+  private LocalDate windowEnd;
+
+  @Setup
+  public void setUp() {
+    store = new MarketStore();
+    // 分批合并，避免一次生成全部实体对象
+    for (int from = 0; from < stocks; from += 500) {
+      store.merge(Fixtures.rows(from, Math.min(stocks, from + 500), DAYS, 42));
+    }
+    List<LocalDate> days = Fixtures.tradeDays(DAYS);
+    tradeDate = days.get(DAYS - 21);
+    windowStart = days.get(DAYS - 41);
+    windowEnd = days.get(DAYS - 1);
+  }
+
+  @Benchmark
+  public ScreenPage query() {
+    return store.query(screen, null, tradeDate, windowStart, windowEnd, pageSize, 0, null);
+  }
+}
@@ -0,0 +1,72 @@
+package com.example.stock.benchmark;
+
+import com.example.stock.entity.StockData;
+import com.example.stock.screener.CrossSection;
+import com.example.stock.screener.ScreenExpression;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 自定义筛选在一个交易日截面上的过滤、计数和排序取页，不含窗口数据的读取
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ScreenerBenchmark {
+
+  // 每只股票的交易日数，足够算出年线
+  private static final int DAYS = 300;
+
+  @Param({"1000", "5000"})
+  private int stocks;
+
+  @Param({
+      "close > ma250",
+      "pct_chg >= 6 order by pct_chg desc",
+      "pct_chg >= 2 and turnover_rate > 1 and close > ma250 order by amount desc",
+      "order by amount desc"})
+  private String expr;
+
+  private CrossSection section;
+  private ScreenExpression expression;
+
+  @Setup
+  public void setUp() {
+    LocalDate tradeDate = Fixtures.tradeDays(DAYS).get(DAYS - 1);
+    List<StockData> rows = new ArrayList<>(stocks);
+    // 分批生成，只保留最后一个交易日的行
+    for (int from = 0; from < stocks; from += 500) {
+      for (StockData row : Fixtures.rows(from, Math.min(stocks, from + 500), DAYS, 42)) {
+        if (row.getTradeDate().equals(tradeDate)) {
+          rows.add(row);
+        }
+      }
+    }
+    rows.sort(Comparator.comparing(StockData::getTsCode));
+    section = CrossSection.of(tradeDate, rows);
+    expression = ScreenExpression.parse(expr);
+  }
+
+  @Benchmark
+  public ScreenExpression.Selection select() {
+    return expression.select(section, expression.evaluate(section), 0, 9);
+  }
+}
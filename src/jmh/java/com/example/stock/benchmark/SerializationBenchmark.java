@@ -0,0 +1,113 @@
+package com.example.stock.benchmark;
+
+import com.example.stock.config.WebConfig;
+import com.example.stock.dto.StockResponse;
+import com.example.stock.service.Screen;
+import com.example.stock.service.impl.GridAssembler;
+import com.example.stock.web.BinaryGridHttpMessageConverter;
+import com.example.stock.web.ColumnarJsonHttpMessageConverter;
+import com.example.stock.web.GridFormats;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * StockResponse 三种输出格式的序列化
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+  @Param({"9", "50"})
+  private int pageSize;
+
+  @Param({"20", "250", "750"})
+  private int windowDays;
+
+  private StockResponse response;
+  private ObjectMapper objectMapper;
+  private ColumnarJsonHttpMessageConverter columnar;
+  private BinaryGridHttpMessageConverter binary;
+  private final ByteSink sink = new ByteSink();
+
+  @Setup
+  public void setUp() {
+    int days = 2 * windowDays + 1;
+    LocalDate baseDate = Fixtures.tradeDays(days).get(windowDays);
+    response = GridAssembler.assemble(Screen.ALL, Fixtures.bars(0, pageSize, days, 42), baseDate,
+        5000, 1, baseDate.toString());
+    objectMapper = Jackson2ObjectMapperBuilder.json().modulesToInstall(WebConfig.stockBarModule()).build();
+    columnar = new ColumnarJsonHttpMessageConverter(objectMapper.getFactory());
+    binary = new BinaryGridHttpMessageConverter();
+  }
+
+  @Benchmark
+  public int json() throws IOException {
+    sink.reset();
+    objectMapper.writeValue(sink.getBody(), response);
+    return sink.size();
+  }
+
+  @Benchmark
+  public int columnarJson() throws IOException {
+    sink.reset();
+    columnar.write(response, GridFormats.COLUMNAR_JSON, sink);
+    return sink.size();
+  }
+
+  @Benchmark
+  public int binaryF32() throws IOException {
+    sink.reset();
+    binary.write(response, GridFormats.BINARY_F32, sink);
+    return sink.size();
+  }
+
+  /**
+   * 可重复使用的内存响应体
+   */
+  private static final class ByteSink implements HttpOutputMessage {
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream(1 << 20);
+    private HttpHeaders headers = new HttpHeaders();
+
+    void reset() {
+      body.reset();
+      headers = new HttpHeaders();
+    }
+
+    int size() {
+      return body.size();
+    }
+
+    @Override
+    public OutputStream getBody() {
+      return body;
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+      return headers;
+    }
+  }
+}
@@ -0,0 +1,106 @@
+package com.example.stock.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个接口在一个压测阶段内的延迟直方图和计数
+ *
+ * 延迟以微秒记录，从计划发出时刻开始计时而非实际发出时刻，
+ * 服务端变慢导致的排队时间也计入延迟（避免 coordinated omission）。
+ */
+public final class EndpointStats {
+
+  // 可记录的最大延迟（微秒）
+  private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(2);
+
+  private final Histogram histogram = new ConcurrentHistogram(MAX_LATENCY_MICROS, 3);
+  private final LongAdder success = new LongAdder();
+  // 非2xx响应
+  private final LongAdder errors = new LongAdder();
+  // 超时或连接失败
+  private final LongAdder failures = new LongAdder();
+  // 在途请求达到上限而未发出的请求
+  private final LongAdder dropped = new LongAdder();
+  private final LongAdder bytes = new LongAdder();
+
+  void recordResponse(long latencyNanos, int status, long bodyBytes) {
+    histogram.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), MAX_LATENCY_MICROS));
+    bytes.add(bodyBytes);
+    if (status >= 200 && status < 300) {
+      success.increment();
+    } else {
+      errors.increment();
+    }
+  }
+
+  void recordFailure(long latencyNanos) {
+    histogram.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), MAX_LATENCY_MICROS));
+    failures.increment();
+  }
+
+  void recordDropped() {
+    dropped.increment();
+  }
+
+  public Histogram getHistogram() {
+    return histogram;
+  }
+
+  public long getSuccess() {
+    return success.sum();
+  }
+
+  public long getErrors() {
+    return errors.sum();
+  }
+
+  public long getFailures() {
+    return failures.sum();
+  }
+
+  public long getDropped() {
+    return dropped.sum();
+  }
+
+  public long getBytes() {
+    return bytes.sum();
+  }
+
+  /**
+   * 计划发出的请求总数
+   */
+  public long getTotal() {
+    return getSuccess() + getErrors() + getFailures() + getDropped();
+  }
+
+  /**
+   * 错误率，未成功的请求（含丢弃）占计划请求的比例
+   */
+  public double getErrorRate() {
+    long total = getTotal();
+    return total == 0 ? 0 : (double) (total - getSuccess()) / total;
+  }
+
+  /**
+   * 指定百分位的延迟（毫秒）
+   */
+  public double percentileMillis(double percentile) {
+    return histogram.getTotalCount() == 0 ? 0 : histogram.getValueAtPercentile(percentile) / 1000.0;
+  }
+
+  /**
+   * 合并另一个接口的统计，用于汇总全部接口
+   */
+  void add(EndpointStats other) {
+    histogram.add(other.histogram);
+    success.add(other.getSuccess());
+    errors.add(other.getErrors());
+    failures.add(other.getFailures());
+    dropped.add(other.getDropped());
+    bytes.add(other.getBytes());
+  }
+}
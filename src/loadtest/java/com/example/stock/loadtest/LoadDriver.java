@@ -0,0 +1,257 @@
+package com.example.stock.loadtest;
+
+import com.example.stock.web.GridFormats;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * StockController 压测驱动
+ *
+ * 开环压测：按固定到达率在计划时刻发出请求，不等待前一个请求返回，
+ * 服务端变慢时请求在客户端排队、延迟如实上涨，而不是像闭环压测那样自动降速。
+ * 依次执行 rates 中的每个到达率，每个阶段先预热再计量，输出各接口的延迟分布、
+ * 错误率和饱和点。
+ *
+ * 参数均为 key=value 形式，例如：
+ * <pre>
+ * mvn -Ploadtest compile exec:java -Dloadtest.args="url=http://localhost:8080 rates=50,100,200,400 duration=60"
+ * </pre>
+ * <ul>
+ *   <li>url：服务地址，默认 http://localhost:8080</li>
+ *   <li>rates：逗号分隔的到达率（req/s），默认 25,50,100,200</li>
+ *   <li>duration / warmup：每个阶段的计量和预热秒数，默认 30 / 5</li>
+ *   <li>mix：接口权重，默认 data:30,limit-up:20,limit-down:15,half-year-line:20,year-line:15</li>
+ *   <li>format：json、columnar 或 f32，默认 json</li>
+ *   <li>latest / history：最新交易日（默认从服务端探测）和回看的自然日数（默认 1095）</li>
+ *   <li>page-size：每页股票数，与 stock.page.size 一致，默认 9</li>
+ *   <li>seed：随机种子，默认 42</li>
+ *   <li>max-in-flight：在途请求上限，超出的请求计为丢弃，默认 1000</li>
+ *   <li>timeout：单个请求超时秒数，默认 10</li>
+ *   <li>slo：判定饱和的 p99 上限（毫秒），默认 500</li>
+ *   <li>out：报告目录，默认 target/loadtest/时间戳</li>
+ *   <li>compare：上一次的 report.json，与本次逐项对比</li>
+ * </ul>
+ */
+public final class LoadDriver {
+
+  private static final String API = "/api/stock";
+
+  private final Map<String, String> options;
+  private final HttpClient client;
+  private final ExecutorService callbacks;
+  private final URI base;
+  private final String accept;
+  private final Duration timeout;
+  private final int maxInFlight;
+
+  private LoadDriver(Map<String, String> options) {
+    this.options = options;
+    this.base = URI.create(option("url", "http://localhost:8080") + API);
+    this.accept = accept(option("format", "json"));
+    this.timeout = Duration.ofSeconds(Long.parseLong(option("timeout", "10")));
+    this.maxInFlight = Integer.parseInt(option("max-in-flight", "1000"));
+    this.callbacks = Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors()), r -> {
+      Thread t = new Thread(r, "loadtest-http");
+      t.setDaemon(true);
+      return t;
+    });
+    this.client = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_1_1)
+        .connectTimeout(timeout)
+        .executor(callbacks)
+        .build();
+  }
+
+  public static void main(String[] args) throws Exception {
+    Map<String, String> options = new LinkedHashMap<>();
+    for (String arg : args) {
+      int eq = arg.indexOf('=');
+      if (eq <= 0) {
+        throw new IllegalArgumentException("参数格式应为 key=value: " + arg);
+      }
+      options.put(arg.substring(0, eq), arg.substring(eq + 1));
+    }
+    new LoadDriver(options).run();
+  }
+
+  private void run() throws IOException, InterruptedException {
+    Map<String, Integer> weights = parseMix(option("mix",
+        "data:30,limit-up:20,limit-down:15,half-year-line:20,year-line:15"));
+    LocalDate latest = options.containsKey("latest") ? LocalDate.parse(options.get("latest")) : probeLatest();
+    long seed = Long.parseLong(option("seed", "42"));
+    RequestMix mix = new RequestMix(weights, latest, Integer.parseInt(option("history", "1095")), seed);
+    int pageSize = Integer.parseInt(option("page-size", "9"));
+    for (String endpoint : mix.endpoints()) {
+      long count = probeCount(endpoint);
+      mix.setMaxPages(endpoint, (int) ((count + pageSize - 1) / pageSize));
+      System.out.printf("%s: 最新交易日 %d 只股票%n", endpoint, count);
+    }
+
+    int duration = Integer.parseInt(option("duration", "30"));
+    int warmup = Integer.parseInt(option("warmup", "5"));
+    List<StepResult> steps = new ArrayList<>();
+    for (String rate : option("rates", "25,50,100,200").split(",")) {
+      int r = Integer.parseInt(rate.trim());
+      System.out.printf("到达率 %d req/s: 预热 %d s, 计量 %d s%n", r, warmup, duration);
+      if (warmup > 0) {
+        runStep(mix, r, warmup);
+      }
+      steps.add(runStep(mix, r, duration));
+    }
+
+    Map<String, Object> settings = new LinkedHashMap<>(options);
+    settings.put("latest", latest.toString());
+    Report report = new Report(settings, steps, Double.parseDouble(option("slo", "500")));
+    report.print(System.out);
+    Path dir = Paths.get(option("out",
+        "target/loadtest/" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"))));
+    System.out.println("报告已写入 " + report.write(dir));
+    if (options.containsKey("compare")) {
+      report.compare(Paths.get(options.get("compare")), System.out);
+    }
+    callbacks.shutdownNow();
+  }
+
+  /**
+   * 以固定到达率执行一个阶段，等待在途请求结束后返回
+   */
+  private StepResult runStep(RequestMix mix, int rate, int seconds) throws InterruptedException {
+    StepResult result = new StepResult(rate, mix.endpoints());
+    Semaphore inFlight = new Semaphore(maxInFlight);
+    long interval = TimeUnit.SECONDS.toNanos(1) / rate;
+    long total = (long) rate * seconds;
+    long start = System.nanoTime();
+
+    for (long i = 0; i < total; i++) {
+      long intended = start + i * interval;
+      long wait;
+      while ((wait = intended - System.nanoTime()) > 0) {
+        LockSupport.parkNanos(wait);
+      }
+      RequestMix.Request request = mix.next();
+      EndpointStats stats = result.stats(request.getEndpoint());
+      if (!inFlight.tryAcquire()) {
+        stats.recordDropped();
+        continue;
+      }
+      HttpRequest httpRequest = HttpRequest.newBuilder(URI.create(base + request.path()))
+          .timeout(timeout)
+          .header("Accept", accept)
+          .GET()
+          .build();
+      client.sendAsync(httpRequest, HttpResponse.BodyHandlers.ofByteArray())
+          .whenComplete((response, error) -> {
+            // 从计划时刻起计时，调度落后的时间也计入延迟
+            long latency = System.nanoTime() - intended;
+            if (error != null) {
+              stats.recordFailure(latency);
+            } else {
+              stats.recordResponse(latency, response.statusCode(), response.body().length);
+            }
+            inFlight.release();
+          });
+    }
+
+    // 等待在途请求完成，最多等一个超时时长
+    if (inFlight.tryAcquire(maxInFlight, timeout.toMillis() + 1000, TimeUnit.MILLISECONDS)) {
+      inFlight.release(maxInFlight);
+    }
+    result.setElapsedNanos(Math.max(System.nanoTime() - start, TimeUnit.SECONDS.toNanos(seconds)));
+    return result;
+  }
+
+  /**
+   * 从全部数据接口的首页探测最新交易日，失败时使用今天
+   */
+  private LocalDate probeLatest() {
+    JsonNode root = probe("data");
+    String latest = null;
+    for (JsonNode stock : root.path("grid_data")) {
+      for (JsonNode row : stock) {
+        String date = row.path(1).asText();
+        if (latest == null || date.compareTo(latest) > 0) {
+          latest = date;
+        }
+      }
+    }
+    return latest != null ? LocalDate.parse(latest) : LocalDate.now();
+  }
+
+  private long probeCount(String endpoint) {
+    return probe(endpoint).path("stock_count").asLong();
+  }
+
+  private JsonNode probe(String endpoint) {
+    HttpRequest request = HttpRequest.newBuilder(URI.create(base + "/" + endpoint))
+        .timeout(timeout)
+        .header("Accept", MediaType.APPLICATION_JSON_VALUE)
+        .GET()
+        .build();
+    try {
+      HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+      if (response.statusCode() != 200) {
+        throw new IllegalStateException(endpoint + " 返回 " + response.statusCode());
+      }
+      return new ObjectMapper().readTree(response.body());
+    } catch (IOException e) {
+      throw new IllegalStateException("无法连接 " + base + "，请先启动应用", e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private String option(String key, String defaultValue) {
+    return options.getOrDefault(key, defaultValue);
+  }
+
+  private static Map<String, Integer> parseMix(String mix) {
+    Map<String, Integer> weights = new LinkedHashMap<>();
+    for (String part : mix.split(",")) {
+      String[] kv = part.split(":");
+      int weight = kv.length > 1 ? Integer.parseInt(kv[1].trim()) : 1;
+      if (weight > 0) {
+        weights.put(kv[0].trim(), weight);
+      }
+    }
+    if (weights.isEmpty()) {
+      throw new IllegalArgumentException("mix 中至少需要一个接口");
+    }
+    return weights;
+  }
+
+  private static String accept(String format) {
+    switch (format) {
+      case "json":
+        return MediaType.APPLICATION_JSON_VALUE;
+      case "columnar":
+        return GridFormats.COLUMNAR_JSON_VALUE;
+      case "f32":
+        return GridFormats.BINARY_F32_VALUE;
+      default:
+        throw new IllegalArgumentException("未知的 format: " + format);
+    }
+  }
+}
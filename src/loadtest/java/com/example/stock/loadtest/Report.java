@@ -0,0 +1,172 @@
+package com.example.stock.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 压测报告
+ *
+ * 控制台输出每个阶段、每个接口的吞吐、错误率和延迟百分位；
+ * 同时写出 JSON 汇总和每个阶段每个接口的 .hgrm 百分位分布文件，
+ * 指定上一次的 JSON 时逐项对比 p99 和吞吐。
+ */
+public final class Report {
+
+  private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+  private static final String TOTAL = "total";
+
+  private final ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+  private final Map<String, Object> settings;
+  private final List<StepResult> steps;
+  private final double sloMillis;
+
+  Report(Map<String, Object> settings, List<StepResult> steps, double sloMillis) {
+    this.settings = settings;
+    this.steps = steps;
+    this.sloMillis = sloMillis;
+  }
+
+  /**
+   * 输出各阶段的结果表格和饱和点
+   */
+  public void print(PrintStream out) {
+    for (StepResult step : steps) {
+      out.printf("%n== 目标 %d req/s, 实际 %.1f req/s%s ==%n", step.getTargetRate(), step.achievedRate(),
+          step.isSaturated(sloMillis) ? "  [饱和]" : "");
+      out.printf("%-16s %8s %8s %7s %7s %9s %9s %9s %9s %9s%n",
+          "endpoint", "count", "req/s", "err%", "drop", "p50", "p90", "p99", "p99.9", "max");
+      step.getEndpoints().forEach((name, stats) -> printRow(out, name, stats, step));
+      printRow(out, TOTAL, step.total(), step);
+    }
+    out.println();
+    out.println(saturationSummary());
+  }
+
+  private void printRow(PrintStream out, String name, EndpointStats stats, StepResult step) {
+    double seconds = step.getElapsedNanos() / 1e9;
+    out.printf("%-16s %8d %8.1f %7.2f %7d %9.1f %9.1f %9.1f %9.1f %9.1f%n",
+        name, stats.getTotal(), seconds == 0 ? 0 : stats.getSuccess() / seconds, stats.getErrorRate() * 100,
+        stats.getDropped(), stats.percentileMillis(50), stats.percentileMillis(90), stats.percentileMillis(99),
+        stats.percentileMillis(99.9), stats.getHistogram().getMaxValue() / 1000.0);
+  }
+
+  /**
+   * 最后一个未饱和的到达率即为饱和点
+   */
+  String saturationSummary() {
+    Integer lastHealthy = null;
+    for (StepResult step : steps) {
+      if (step.isSaturated(sloMillis)) {
+        return lastHealthy == null
+            ? String.format("在最低的 %d req/s 已饱和（p99 SLO %.0f ms）", step.getTargetRate(), sloMillis)
+            : String.format("饱和点: %d req/s，%d req/s 开始饱和（p99 SLO %.0f ms）",
+                lastHealthy, step.getTargetRate(), sloMillis);
+      }
+      lastHealthy = step.getTargetRate();
+    }
+    return String.format("最高的 %d req/s 仍未饱和（p99 SLO %.0f ms），可继续提高到达率",
+        lastHealthy, sloMillis);
+  }
+
+  /**
+   * 写出 JSON 汇总和 .hgrm 文件，返回 JSON 文件路径
+   */
+  public Path write(Path dir) throws IOException {
+    Files.createDirectories(dir);
+    Map<String, Object> root = new LinkedHashMap<>();
+    root.put("settings", settings);
+    root.put("slo_p99_ms", sloMillis);
+    root.put("saturation", saturationSummary());
+    Map<String, Object> stepNodes = new LinkedHashMap<>();
+    for (StepResult step : steps) {
+      Map<String, Object> node = new LinkedHashMap<>();
+      node.put("achieved_rate", round(step.achievedRate()));
+      node.put("saturated", step.isSaturated(sloMillis));
+      Map<String, Object> endpoints = new LinkedHashMap<>();
+      step.getEndpoints().forEach((name, stats) -> endpoints.put(name, toNode(stats, step)));
+      endpoints.put(TOTAL, toNode(step.total(), step));
+      node.put("endpoints", endpoints);
+      stepNodes.put(String.valueOf(step.getTargetRate()), node);
+
+      for (Map.Entry<String, EndpointStats> e : step.getEndpoints().entrySet()) {
+        Path hgrm = dir.resolve(step.getTargetRate() + "rps-" + e.getKey() + ".hgrm");
+        try (PrintStream ps = new PrintStream(Files.newOutputStream(hgrm), false, "UTF-8")) {
+          // 直方图以微秒记录，按毫秒输出
+          e.getValue().getHistogram().outputPercentileDistribution(ps, 1000.0);
+        }
+      }
+    }
+    root.put("steps", stepNodes);
+    Path json = dir.resolve("report.json");
+    mapper.writeValue(json.toFile(), root);
+    return json;
+  }
+
+  private static Map<String, Object> toNode(EndpointStats stats, StepResult step) {
+    double seconds = step.getElapsedNanos() / 1e9;
+    Map<String, Object> node = new LinkedHashMap<>();
+    node.put("count", stats.getTotal());
+    node.put("success", stats.getSuccess());
+    node.put("errors", stats.getErrors());
+    node.put("failures", stats.getFailures());
+    node.put("dropped", stats.getDropped());
+    node.put("rate", round(seconds == 0 ? 0 : stats.getSuccess() / seconds));
+    node.put("error_rate", round(stats.getErrorRate()));
+    node.put("avg_bytes", stats.getSuccess() == 0 ? 0 : stats.getBytes() / stats.getSuccess());
+    Map<String, Object> latency = new LinkedHashMap<>();
+    for (double p : PERCENTILES) {
+      latency.put("p" + (p == Math.rint(p) ? String.valueOf((int) p) : String.valueOf(p)),
+          round(stats.percentileMillis(p)));
+    }
+    latency.put("max", round(stats.getHistogram().getMaxValue() / 1000.0));
+    node.put("latency_ms", latency);
+    return node;
+  }
+
+  /**
+   * 与上一次的 JSON 报告对比相同到达率、相同接口的 p99 和吞吐
+   */
+  public void compare(Path previous, PrintStream out) throws IOException {
+    JsonNode before = mapper.readTree(previous.toFile()).path("steps");
+    out.printf("%n== 与 %s 对比（p99 ms / req/s）==%n", previous);
+    out.printf("%-8s %-16s %19s %19s%n", "rate", "endpoint", "p99", "req/s");
+    for (StepResult step : steps) {
+      JsonNode old = before.path(String.valueOf(step.getTargetRate())).path("endpoints");
+      if (old.isMissingNode()) {
+        continue;
+      }
+      Map<String, EndpointStats> current = new LinkedHashMap<>(step.getEndpoints());
+      current.put(TOTAL, step.total());
+      double seconds = step.getElapsedNanos() / 1e9;
+      current.forEach((name, stats) -> {
+        JsonNode o = old.path(name);
+        if (o.isMissingNode()) {
+          return;
+        }
+        double p99 = stats.percentileMillis(99);
+        double rate = seconds == 0 ? 0 : stats.getSuccess() / seconds;
+        out.printf("%-8d %-16s %19s %19s%n", step.getTargetRate(), name,
+            delta(o.path("latency_ms").path("p99").asDouble(), p99),
+            delta(o.path("rate").asDouble(), rate));
+      });
+    }
+  }
+
+  private static String delta(double before, double after) {
+    String change = before == 0 ? "n/a" : String.format("%+.1f%%", (after - before) * 100 / before);
+    return String.format("%.1f→%.1f %s", before, after, change);
+  }
+
+  private static double round(double value) {
+    return Math.round(value * 1000) / 1000.0;
+  }
+}
@@ -0,0 +1,125 @@
+package com.example.stock.loadtest;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * 请求组合
+ *
+ * 按权重抽取接口，日期和页码按前端的实际使用习惯分布：
+ * 大部分请求不带日期（查看最新交易日），其次是最近一个月，少量回看历史；
+ * 页码服从几何分布，越往后翻的请求越少，且不超过该接口的总页数。
+ * 同一个种子生成的请求序列完全相同，便于不同版本之间对比。
+ */
+public final class RequestMix {
+
+  // 不带日期的比例
+  private static final double LATEST_RATIO = 0.7;
+  // 最近 RECENT_DAYS 个工作日的比例，其余为历史日期
+  private static final double RECENT_RATIO = 0.2;
+  private static final int RECENT_DAYS = 20;
+  // 每次继续翻页的概率
+  private static final double NEXT_PAGE_PROBABILITY = 0.45;
+
+  private final String[] endpoints;
+  private final double[] cumulative;
+  private final List<LocalDate> weekdays;
+  private final Map<String, Integer> maxPages = new LinkedHashMap<>();
+  private final SplittableRandom random;
+
+  /**
+   * @param weights 接口名（如 limit-up）到权重
+   * @param latest  最新交易日
+   * @param history 回看的自然日数
+   * @param seed    随机种子
+   */
+  public RequestMix(Map<String, Integer> weights, LocalDate latest, int history, long seed) {
+    this.endpoints = weights.keySet().toArray(new String[0]);
+    this.cumulative = new double[endpoints.length];
+    double total = weights.values().stream().mapToInt(Integer::intValue).sum();
+    double sum = 0;
+    for (int i = 0; i < endpoints.length; i++) {
+      sum += weights.get(endpoints[i]) / total;
+      cumulative[i] = sum;
+    }
+    this.weekdays = new ArrayList<>();
+    for (LocalDate d = latest; !d.isBefore(latest.minusDays(history)); d = d.minusDays(1)) {
+      if (d.getDayOfWeek() != DayOfWeek.SATURDAY && d.getDayOfWeek() != DayOfWeek.SUNDAY) {
+        weekdays.add(d);
+      }
+    }
+    this.random = new SplittableRandom(seed);
+  }
+
+  public String[] endpoints() {
+    return endpoints.clone();
+  }
+
+  /**
+   * 设置接口的总页数，页码不会超过该值
+   */
+  public void setMaxPages(String endpoint, int pages) {
+    maxPages.put(endpoint, Math.max(pages, 1));
+  }
+
+  /**
+   * 抽取下一个请求，只由调度线程调用
+   */
+  public Request next() {
+    double u = random.nextDouble();
+    int e = 0;
+    while (e < endpoints.length - 1 && u >= cumulative[e]) {
+      e++;
+    }
+    String endpoint = endpoints[e];
+
+    LocalDate date = null;
+    double d = random.nextDouble();
+    if (d >= LATEST_RATIO && !weekdays.isEmpty()) {
+      int bound = d < LATEST_RATIO + RECENT_RATIO ? Math.min(RECENT_DAYS, weekdays.size()) : weekdays.size();
+      date = weekdays.get(random.nextInt(bound));
+    }
+
+    int page = 1;
+    int limit = maxPages.getOrDefault(endpoint, Integer.MAX_VALUE);
+    while (page < limit && random.nextDouble() < NEXT_PAGE_PROBABILITY) {
+      page++;
+    }
+    return new Request(endpoint, date, page);
+  }
+
+  /**
+   * 一次请求的参数
+   */
+  public static final class Request {
+    private final String endpoint;
+    private final LocalDate tradeDate;
+    private final int pageNum;
+
+    Request(String endpoint, LocalDate tradeDate, int pageNum) {
+      this.endpoint = endpoint;
+      this.tradeDate = tradeDate;
+      this.pageNum = pageNum;
+    }
+
+    public String getEndpoint() {
+      return endpoint;
+    }
+
+    /**
+     * 相对于 /api/stock 的路径和查询串
+     */
+    public String path() {
+      StringBuilder sb = new StringBuilder("/").append(endpoint).append("?pageNum=").append(pageNum);
+      if (tradeDate != null) {
+        sb.append("&tradeDate=").append(tradeDate);
+      }
+      return sb.toString();
+    }
+  }
+}
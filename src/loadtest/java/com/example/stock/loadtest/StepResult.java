@@ -0,0 +1,67 @@
+package com.example.stock.loadtest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 一个到达率阶段的压测结果
+ */
+public final class StepResult {
+
+  private final int targetRate;
+  private final Map<String, EndpointStats> endpoints = new LinkedHashMap<>();
+  private long elapsedNanos;
+
+  StepResult(int targetRate, String[] endpointNames) {
+    this.targetRate = targetRate;
+    for (String name : endpointNames) {
+      endpoints.put(name, new EndpointStats());
+    }
+  }
+
+  public int getTargetRate() {
+    return targetRate;
+  }
+
+  public Map<String, EndpointStats> getEndpoints() {
+    return endpoints;
+  }
+
+  EndpointStats stats(String endpoint) {
+    return endpoints.get(endpoint);
+  }
+
+  public long getElapsedNanos() {
+    return elapsedNanos;
+  }
+
+  void setElapsedNanos(long elapsedNanos) {
+    this.elapsedNanos = elapsedNanos;
+  }
+
+  /**
+   * 全部接口的汇总
+   */
+  public EndpointStats total() {
+    EndpointStats total = new EndpointStats();
+    endpoints.values().forEach(total::add);
+    return total;
+  }
+
+  /**
+   * 实际完成的成功请求速率（每秒）
+   */
+  public double achievedRate() {
+    return elapsedNanos == 0 ? 0 : total().getSuccess() * 1e9 / elapsedNanos;
+  }
+
+  /**
+   * 是否已饱和：成功吞吐低于目标的95%、错误率超过1%或 p99 超过 SLO
+   */
+  public boolean isSaturated(double sloMillis) {
+    EndpointStats total = total();
+    return achievedRate() < targetRate * 0.95
+        || total.getErrorRate() > 0.01
+        || total.percentileMillis(99) > sloMillis;
+  }
+}
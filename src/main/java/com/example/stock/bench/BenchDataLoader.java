@@ -0,0 +1,116 @@
+package com.example.stock.bench;
+
+import com.example.stock.entity.StockData;
+import com.example.stock.mapper.StockDataMapper;
+import com.example.stock.service.TradingCalendar;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * bench profile 下启动时生成合成日线
+ *
+ * 表为空或 stock.bench.regenerate=true 时写入 stocks × scale 只股票、years 年的数据，
+ * 在内存行情和位图索引加载（ApplicationReadyEvent）之前完成。
+ */
+@Component
+@Profile("bench")
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class BenchDataLoader implements ApplicationRunner {
+
+  private static final Logger log = LoggerFactory.getLogger(BenchDataLoader.class);
+
+  // 合成数据的第一个交易日，固定以保证结果可复现
+  private static final LocalDate FIRST_DAY = LocalDate.of(2019, 1, 2);
+  private static final int TRADE_DAYS_PER_YEAR = 245;
+  // 每个事务写入的行数
+  private static final int CHUNK_ROWS = 50_000;
+
+  @Autowired
+  private StockDataMapper stockDataMapper;
+
+  @Autowired
+  @Qualifier("batchSqlSessionTemplate")
+  private SqlSessionTemplate batchSqlSessionTemplate;
+
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+
+  @Autowired
+  private TradingCalendar tradingCalendar;
+
+  @Value("${stock.bench.seed:42}")
+  private long seed;
+
+  @Value("${stock.bench.stocks:500}")
+  private int stocks;
+
+  @Value("${stock.bench.years:3}")
+  private int years;
+
+  @Value("${stock.bench.scale:1}")
+  private int scale;
+
+  @Value("${stock.bench.batch-rows:1000}")
+  private int batchRows;
+
+  @Value("${stock.bench.regenerate:false}")
+  private boolean regenerate;
+
+  @Override
+  public void run(ApplicationArguments args) {
+    Long existing = stockDataMapper.countDailyBars();
+    if (existing != null && existing > 0 && !regenerate) {
+      log.info("合成数据已存在: {} 行，跳过生成", existing);
+      return;
+    }
+    if (existing != null && existing > 0) {
+      stockDataMapper.truncateDailyBars();
+    }
+
+    long start = System.currentTimeMillis();
+    int stockCount = stocks * scale;
+    List<LocalDate> days = SyntheticMarket.tradeDays(FIRST_DAY, years * TRADE_DAYS_PER_YEAR);
+    SyntheticMarket market = new SyntheticMarket(seed);
+    List<StockData> pending = new ArrayList<>(CHUNK_ROWS + days.size());
+    long written = 0;
+    for (int i = 0; i < stockCount; i++) {
+      pending.addAll(market.series(i, days, true));
+      if (pending.size() >= CHUNK_ROWS || i == stockCount - 1) {
+        write(pending);
+        written += pending.size();
+        pending.clear();
+        log.info("合成数据写入进度: {}/{} 只股票, {} 行", i + 1, stockCount, written);
+      }
+    }
+    tradingCalendar.refresh();
+    log.info("合成数据生成完成: {} 只股票 × {} 个交易日, 共 {} 行, 耗时 {} ms",
+        stockCount, days.size(), written, System.currentTimeMillis() - start);
+  }
+
+  /**
+   * 一个事务内以多行 INSERT 的 JDBC batch 写入
+   */
+  private void write(List<StockData> rows) {
+    StockDataMapper batchMapper = batchSqlSessionTemplate.getMapper(StockDataMapper.class);
+    transactionTemplate.executeWithoutResult(status -> {
+      for (int from = 0; from < rows.size(); from += batchRows) {
+        batchMapper.insertDailyBars(rows.subList(from, Math.min(rows.size(), from + batchRows)));
+      }
+    });
+  }
+}
@@ -0,0 +1,143 @@
+package com.example.stock.bench;
+
+import com.example.stock.entity.StockData;
+import com.example.stock.indicator.MovingAverageEngine;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * 合成日线行情
+ *
+ * 每只股票的收盘价为对数随机游走，按主板 ±10% 涨跌停截断，并带有随机的涨跌停、停牌和上市时间；
+ * ma5/ma10/ma120/ma250 由 {@link MovingAverageEngine#compute} 在实际有数据的交易日上计算，
+ * 与线上的均线口径一致。同一 seed 和股票序号总是生成相同的数据。
+ */
+public final class SyntheticMarket {
+
+  // 涨跌停幅度
+  private static final double LIMIT = 0.10;
+  // 单日出现涨跌停的概率
+  private static final double LIMIT_MOVE_PROBABILITY = 0.02;
+  // 单日开始停牌的概率
+  private static final double SUSPEND_PROBABILITY = 0.002;
+  // 在区间中途上市的股票比例
+  private static final double LATE_LISTING_RATIO = 0.2;
+
+  private final long seed;
+
+  public SyntheticMarket(long seed) {
+    this.seed = seed;
+  }
+
+  /**
+   * 从 first 起（含）的 count 个工作日
+   */
+  public static List<LocalDate> tradeDays(LocalDate first, int count) {
+    List<LocalDate> days = new ArrayList<>(count);
+    LocalDate date = first;
+    while (days.size() < count) {
+      if (date.getDayOfWeek() != DayOfWeek.SATURDAY && date.getDayOfWeek() != DayOfWeek.SUNDAY) {
+        days.add(date);
+      }
+      date = date.plusDays(1);
+    }
+    return days;
+  }
+
+  /**
+   * 第 index 只股票的代码，沪市与深市交替
+   */
+  public static String tsCode(int index) {
+    int n = index / 2;
+    return index % 2 == 0
+        ? String.format("%06d.SH", 600000 + n)
+        : String.format("%06d.SZ", 1 + n);
+  }
+
+  /**
+   * 生成第 index 只股票的日线，按交易日升序
+   *
+   * @param index 股票序号
+   * @param days  交易日历
+   * @param full  为false时不经过上市时间和停牌的随机过程，每个交易日都有数据
+   */
+  public List<StockData> series(int index, List<LocalDate> days, boolean full) {
+    SplittableRandom random = new SplittableRandom(seed * 1_000_003L + index);
+    String tsCode = tsCode(index);
+    double volatility = 0.015 + random.nextDouble() * 0.02;
+    double price = Math.exp(Math.log(3) + random.nextDouble() * Math.log(80 / 3.0));
+    double baseVolume = 1e4 * Math.exp(random.nextDouble() * 5);
+    int first = full && random.nextDouble() < LATE_LISTING_RATIO ? random.nextInt(days.size()) : 0;
+
+    List<StockData> rows = new ArrayList<>(days.size() - first);
+    List<Double> closes = new ArrayList<>(days.size() - first);
+    double preClose = round2(price);
+    int suspended = 0;
+    for (int d = first; d < days.size(); d++) {
+      if (suspended > 0) {
+        suspended--;
+        continue;
+      }
+      if (full && d > first && random.nextDouble() < SUSPEND_PROBABILITY) {
+        suspended = 1 + random.nextInt(10);
+        continue;
+      }
+      double change;
+      if (random.nextDouble() < LIMIT_MOVE_PROBABILITY) {
+        change = random.nextBoolean() ? LIMIT : -LIMIT;
+      } else {
+        change = Math.max(-LIMIT, Math.min(LIMIT, random.nextGaussian() * volatility));
+      }
+      double close = Math.max(0.01, round2(preClose * (1 + change)));
+      double open = round2(preClose * (1 + (random.nextDouble() - 0.5) * volatility));
+      double high = Math.max(Math.max(open, close), round2(Math.max(open, close) * (1 + random.nextDouble() * volatility / 2)));
+      double low = Math.min(Math.min(open, close), round2(Math.min(open, close) * (1 - random.nextDouble() * volatility / 2)));
+      double volume = baseVolume * (0.5 + random.nextDouble()) * (1 + Math.abs(change) * 20);
+
+      StockData row = new StockData();
+      row.setTsCode(tsCode);
+      row.setTradeDate(days.get(d));
+      row.setOpen(decimal(open, 2));
+      row.setHigh(decimal(Math.min(high, round2(preClose * (1 + LIMIT))), 2));
+      row.setLow(decimal(Math.max(low, round2(preClose * (1 - LIMIT))), 2));
+      row.setClose(decimal(close, 2));
+      row.setPreClose(decimal(preClose, 2));
+      row.setPctChg(decimal((close / preClose - 1) * 100, 4));
+      // vol 单位为手，amount 单位为千元
+      row.setVol(decimal(volume, 2));
+      row.setAmount(decimal(volume * close / 10, 3));
+      row.setTurnoverRate(decimal(volume / (baseVolume * 50) * 100, 4));
+      rows.add(row);
+      closes.add(close);
+      preClose = close;
+    }
+
+    double[] closeArray = new double[closes.size()];
+    for (int i = 0; i < closeArray.length; i++) {
+      closeArray[i] = closes.get(i);
+    }
+    double[][] ma = MovingAverageEngine.compute(closeArray);
+    for (int i = 0; i < rows.size(); i++) {
+      StockData row = rows.get(i);
+      row.setMa5(decimal(ma[0][i], 3));
+      row.setMa10(decimal(ma[1][i], 3));
+      row.setMa120(decimal(ma[2][i], 3));
+      row.setMa250(decimal(ma[3][i], 3));
+    }
+    return rows;
+  }
+
+  private static double round2(double value) {
+    return Math.round(value * 100) / 100.0;
+  }
+
+  private static BigDecimal decimal(double value, int scale) {
+    return Double.isNaN(value) ? null : BigDecimal.valueOf(value).setScale(scale, RoundingMode.HALF_UP);
+  }
+}
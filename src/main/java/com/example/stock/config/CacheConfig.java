@@ -0,0 +1,82 @@
+package com.example.stock.config;
+
+import com.example.stock.dto.StockQuery;
+import com.example.stock.dto.StockResponse;
+import com.example.stock.entity.StockBar;
+import com.example.stock.service.DataVersion;
+import com.example.stock.service.Screen;
+import com.example.stock.service.TradingCalendar;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 筛选结果缓存配置
+ *
+ * 使用 Caffeine（W-TinyLFU 淘汰），按响应中的行数计权重限制总大小。
+ * 缓存键包含数据版本戳，新交易日入库后只有窗口未完整的最近几天的结果失效。
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+  // 筛选结果缓存名称
+  public static final String SCREEN_CACHE = "screens";
+
+  @Bean
+  public Caffeine<Object, Object> caffeine(@Value("${stock.cache.max-rows:2000000}") long maxRows) {
+    return Caffeine.newBuilder()
+        .maximumWeight(maxRows)
+        .weigher((key, value) -> weigh(value))
+        .recordStats();
+  }
+
+  /**
+   * 筛选结果的缓存键：(筛选类型, 股票代码, 交易日期, 页码/游标, 版本戳)
+   */
+  @Bean
+  public KeyGenerator screenKeyGenerator(TradingCalendar tradingCalendar, DataVersion dataVersion) {
+    return (target, method, params) -> {
+      Screen screen = (Screen) params[0];
+      StockQuery query = (StockQuery) params[1];
+      // 未指定日期时按当前最新交易日计算版本戳
+      LocalDate tradeDate = query.getTradeDate() == null || query.getTradeDate().isEmpty()
+          ? tradingCalendar.maxDate()
+          : LocalDate.parse(query.getTradeDate());
+      return new ScreenKey(screen, query.getTsCode(), query.getTradeDate(), tradeDate,
+          query.getPageNum(), query.getAfter(), dataVersion.stampFor(screen, tradeDate));
+    };
+  }
+
+  private static int weigh(Object value) {
+    if (!(value instanceof StockResponse)) {
+      return 1;
+    }
+    List<List<StockBar>> gridData = ((StockResponse) value).getGrid_data();
+    int rows = 1;
+    if (gridData != null) {
+      for (List<StockBar> stock : gridData) {
+        rows += stock.size();
+      }
+    }
+    return rows;
+  }
+
+  @Data
+  static final class ScreenKey {
+    private final Screen screen;
+    private final String tsCode;
+    private final String requestedDate;
+    private final LocalDate tradeDate;
+    private final Integer pageNum;
+    private final String after;
+    private final long stamp;
+  }
+}
@@ -0,0 +1,49 @@
+package com.example.stock.config;
+
+import org.apache.ibatis.mapping.DatabaseIdProvider;
+import org.apache.ibatis.mapping.VendorDatabaseIdProvider;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.util.Properties;
+
+/**
+ * MyBatis 配置
+ */
+@Configuration
+public class MyBatisConfig {
+
+  /**
+   * 默认的执行器，Mapper 注入的是这一个；需显式声明，否则自动配置会因存在批量执行器而不再创建
+   */
+  @Bean
+  @Primary
+  public SqlSessionTemplate sqlSessionTemplate(SqlSessionFactory sqlSessionFactory) {
+    return new SqlSessionTemplate(sqlSessionFactory);
+  }
+
+  /**
+   * 批量执行器，在同一事务内把相同语句合并为 JDBC batch 发送
+   */
+  @Bean
+  public SqlSessionTemplate batchSqlSessionTemplate(SqlSessionFactory sqlSessionFactory) {
+    return new SqlSessionTemplate(sqlSessionFactory, ExecutorType.BATCH);
+  }
+
+  /**
+   * 按数据库区分语句，少数 PostgreSQL 专有写法（如 ON CONFLICT）在 H2 下使用 databaseId="h2" 的版本
+   */
+  @Bean
+  public DatabaseIdProvider databaseIdProvider() {
+    Properties properties = new Properties();
+    properties.setProperty("PostgreSQL", "postgresql");
+    properties.setProperty("H2", "h2");
+    VendorDatabaseIdProvider provider = new VendorDatabaseIdProvider();
+    provider.setProperties(properties);
+    return provider;
+  }
+}
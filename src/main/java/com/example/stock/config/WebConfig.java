@@ -0,0 +1,72 @@
+package com.example.stock.config;
+
+import com.example.stock.dto.IndicatorColumns;
+import com.example.stock.entity.StockBar;
+import com.example.stock.web.BinaryGridHttpMessageConverter;
+import com.example.stock.web.ColumnarJsonHttpMessageConverter;
+import com.example.stock.web.ConditionalGetInterceptor;
+import com.example.stock.web.IndicatorColumnsSerializer;
+import com.example.stock.web.StockBarSerializer;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import org.apache.coyote.http11.AbstractHttp11Protocol;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Web 配置：注册 grid_data 行的 JSON 序列化器，以及列式 JSON 和二进制格式；筛选接口的条件请求
+ */
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+  private final ObjectMapper objectMapper;
+  private final ConditionalGetInterceptor conditionalGetInterceptor;
+
+  public WebConfig(ObjectMapper objectMapper, ConditionalGetInterceptor conditionalGetInterceptor) {
+    this.objectMapper = objectMapper;
+    this.conditionalGetInterceptor = conditionalGetInterceptor;
+  }
+
+  /**
+   * grid_data 的每行和指标列输出为数组，由 Spring Boot 注册到全局 ObjectMapper；
+   * 声明为 static，避免与构造函数注入的 ObjectMapper 形成循环依赖
+   */
+  @Bean
+  public static Module stockBarModule() {
+    return new SimpleModule("stock-bar")
+        .addSerializer(StockBar.class, new StockBarSerializer())
+        .addSerializer(IndicatorColumns.class, new IndicatorColumnsSerializer());
+  }
+
+  @Override
+  public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+    // 放在最前面，避免 application/*+json 被默认的 Jackson 转换器接管
+    converters.add(0, new ColumnarJsonHttpMessageConverter(objectMapper.getFactory()));
+    converters.add(1, new BinaryGridHttpMessageConverter());
+  }
+
+  @Override
+  public void addInterceptors(InterceptorRegistry registry) {
+    registry.addInterceptor(conditionalGetInterceptor).addPathPatterns(ConditionalGetInterceptor.paths());
+  }
+
+  /**
+   * Tomcat 默认不压缩带强 ETag 的响应；筛选接口的 ETag 已包含 Accept-Encoding，压缩后仍可作为强 ETag
+   */
+  @Bean
+  public static WebServerFactoryCustomizer<TomcatServletWebServerFactory> compressStrongEtags() {
+    return factory -> factory.addConnectorCustomizers(connector -> {
+      if (connector.getProtocolHandler() instanceof AbstractHttp11Protocol) {
+        ((AbstractHttp11Protocol<?>) connector.getProtocolHandler()).setNoCompressionStrongETag(false);
+      }
+    });
+  }
+}
@@ -0,0 +1,116 @@
+package com.example.stock.controller;
+
+import com.example.stock.engine.ScreenIndex;
+import com.example.stock.engine.SeriesCache;
+import com.example.stock.indicator.MovingAverageEngine;
+import com.example.stock.metrics.SlowQueryLog;
+import com.example.stock.service.DataVersion;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 运维接口
+ *
+ * 包含重算均线、重建索引等写操作，接口本身不做鉴权，默认不注册，需设置 stock.admin.enabled=true 并只在内网开放。
+ */
+@RestController
+@ConditionalOnProperty(name = "stock.admin.enabled", havingValue = "true")
+@RequestMapping("/api/admin")
+public class AdminController {
+
+  private final CacheManager cacheManager;
+  private final DataVersion dataVersion;
+  private final MovingAverageEngine movingAverageEngine;
+  private final ScreenIndex screenIndex;
+  private final SeriesCache seriesCache;
+  private final SlowQueryLog slowQueryLog;
+
+  public AdminController(CacheManager cacheManager, DataVersion dataVersion,
+      MovingAverageEngine movingAverageEngine, ScreenIndex screenIndex, SeriesCache seriesCache,
+      SlowQueryLog slowQueryLog) {
+    this.cacheManager = cacheManager;
+    this.dataVersion = dataVersion;
+    this.movingAverageEngine = movingAverageEngine;
+    this.screenIndex = screenIndex;
+    this.seriesCache = seriesCache;
+    this.slowQueryLog = slowQueryLog;
+  }
+
+  // 查询各缓存的命中、未命中、淘汰统计
+  @GetMapping("/cache")
+  public Map<String, Object> getCacheStats() {
+    Map<String, Object> result = new LinkedHashMap<>();
+    result.put("data_version", dataVersion.current());
+    for (String name : cacheManager.getCacheNames()) {
+      Object cache = cacheManager.getCache(name);
+      if (!(cache instanceof CaffeineCache)) {
+        continue;
+      }
+      com.github.benmanes.caffeine.cache.Cache<Object, Object> nativeCache = ((CaffeineCache) cache).getNativeCache();
+      CacheStats stats = nativeCache.stats();
+      Map<String, Object> item = new LinkedHashMap<>();
+      item.put("size", nativeCache.estimatedSize());
+      item.put("weighted_size", nativeCache.policy().eviction()
+          .map(eviction -> eviction.weightedSize().orElse(0L)).orElse(0L));
+      item.put("hit_count", stats.hitCount());
+      item.put("miss_count", stats.missCount());
+      item.put("hit_rate", stats.hitRate());
+      item.put("eviction_count", stats.evictionCount());
+      item.put("eviction_weight", stats.evictionWeight());
+      item.put("load_average_ms", stats.averageLoadPenalty() / 1_000_000.0);
+      result.put(name, item);
+    }
+    result.put("series", seriesCache.stats());
+    return result;
+  }
+
+  // 全量重算所有股票的 ma5/ma10/ma120/ma250
+  @PostMapping("/indicators/ma/recompute")
+  public Map<String, Object> recomputeMovingAverages() {
+    long start = System.currentTimeMillis();
+    int updated = movingAverageEngine.recomputeAll();
+    Map<String, Object> result = new LinkedHashMap<>();
+    result.put("rows_updated", updated);
+    result.put("elapsed_ms", System.currentTimeMillis() - start);
+    return result;
+  }
+
+  // 查询筛选位图索引的规模
+  @GetMapping("/screen-index")
+  public Map<String, Object> getScreenIndexStats() {
+    return screenIndex.stats();
+  }
+
+  // 全量重建筛选位图索引
+  @PostMapping("/screen-index/rebuild")
+  public Map<String, Object> rebuildScreenIndex() {
+    screenIndex.rebuild();
+    return screenIndex.stats();
+  }
+
+  // 查询耗时最长的慢查询及抽样得到的执行计划
+  @GetMapping("/slow-queries")
+  public Map<String, Object> getSlowQueries() {
+    Map<String, Object> result = new LinkedHashMap<>();
+    result.put("threshold_ms", slowQueryLog.getThresholdMs());
+    result.put("total", slowQueryLog.total());
+    result.put("slowest", slowQueryLog.slowest());
+    return result;
+  }
+
+  // 清空慢查询记录
+  @DeleteMapping("/slow-queries")
+  public void clearSlowQueries() {
+    slowQueryLog.clear();
+  }
+}
@@ -0,0 +1,53 @@
+package com.example.stock.controller;
+
+import com.example.stock.dto.IngestResult;
+import com.example.stock.ingest.IngestionService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * 日线入库接口
+ *
+ * 请求体为 CSV 原文（首行为表头，列名同 all_stocks_days），
+ * 大文件可带 Content-Encoding: gzip 压缩上传。
+ * 接口本身不做鉴权，默认不注册，需设置 stock.ingest.enabled=true 并只在内网开放。
+ */
+@RestController
+@ConditionalOnProperty(name = "stock.ingest.enabled", havingValue = "true")
+@RequestMapping("/api/stock")
+public class IngestController {
+
+  private final IngestionService ingestionService;
+
+  public IngestController(IngestionService ingestionService) {
+    this.ingestionService = ingestionService;
+  }
+
+  // 导入日线CSV
+  @PostMapping("/ingest")
+  public IngestResult ingest(HttpServletRequest request) throws IOException {
+    InputStream in = request.getInputStream();
+    if ("gzip".equalsIgnoreCase(request.getHeader(HttpHeaders.CONTENT_ENCODING))) {
+      in = new GZIPInputStream(in, 1 << 16);
+    }
+    try (InputStream body = in) {
+      return ingestionService.ingest(body);
+    }
+  }
+
+  // 表头缺少必需的列返回400
+  @ExceptionHandler(IllegalArgumentException.class)
+  @ResponseStatus(HttpStatus.BAD_REQUEST)
+  public Map<String, String> handleBadRequest(IllegalArgumentException e) {
+    return Collections.singletonMap("error", e.getMessage());
+  }
+}
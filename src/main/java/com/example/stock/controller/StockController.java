@@ -1,9 +1,40 @@
 package com.example.stock.controller;
 
+import com.example.stock.dto.StockQuery;
 import com.example.stock.dto.StockResponse;
+import com.example.stock.indicator.IndicatorTimeoutException;
+import com.example.stock.live.LatestDayFeed;
+import com.example.stock.screener.Screener;
+import com.example.stock.service.ExportService;
+import com.example.stock.service.Screen;
 import com.example.stock.service.StockService;
+import com.example.stock.service.TradingCalendar;
+import com.example.stock.service.impl.GridAssembler;
+import com.example.stock.web.GridFormats;
+import com.example.stock.web.StockBarCsvWriter;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 各筛选接口的查询参数：tsCode、tradeDate、pageNum（默认1），
+ * 以及可选的 after 游标（上一页响应中的 next_cursor），传入时忽略 pageNum。
+ * produces 中 JSON 排在最前，未指定格式或 Accept 为通配时返回 JSON。
+ */
 @RestController
 @RequestMapping("/api/stock")
 @CrossOrigin(origins = "*")
@@ -11,54 +42,148 @@ public class StockController {
 
   // 注入StockService
   private final StockService stockService;
+  private final ExportService exportService;
+  private final TradingCalendar tradingCalendar;
+  private final LatestDayFeed latestDayFeed;
+  private final Screener screener;
 
   // 构造函数注入StockService
-  public StockController(StockService stockService) {
+  public StockController(StockService stockService, ExportService exportService, TradingCalendar tradingCalendar,
+      LatestDayFeed latestDayFeed, Screener screener) {
     this.stockService = stockService;
+    this.exportService = exportService;
+    this.tradingCalendar = tradingCalendar;
+    this.latestDayFeed = latestDayFeed;
+    this.screener = screener;
   }
 
   // 查询所有股票数据
-  @GetMapping("/data")
-  public StockResponse getAllData(
-      @RequestParam(required = false) String tsCode,
-      @RequestParam(required = false) String tradeDate,
-      @RequestParam(required = false, defaultValue = "1") Integer pageNum) {
-    return stockService.getAllData(tsCode, tradeDate, pageNum);
+  @GetMapping(value = "/data", produces = {MediaType.APPLICATION_JSON_VALUE, GridFormats.COLUMNAR_JSON_VALUE,
+      GridFormats.BINARY_F32_VALUE})
+  public StockResponse getAllData(StockQuery query) {
+    return stockService.getScreenData(Screen.ALL, query);
   }
 
   // 查询涨停股票数据
-  @GetMapping("/limit-up")
-  public StockResponse getLimitUpData(
-      @RequestParam(required = false) String tsCode,
-      @RequestParam(required = false) String tradeDate,
-      @RequestParam(required = false, defaultValue = "1") Integer pageNum) {
-    return stockService.getLimitUpData(tsCode, tradeDate, pageNum);
+  @GetMapping(value = "/limit-up", produces = {MediaType.APPLICATION_JSON_VALUE, GridFormats.COLUMNAR_JSON_VALUE,
+      GridFormats.BINARY_F32_VALUE})
+  public StockResponse getLimitUpData(StockQuery query) {
+    return stockService.getScreenData(Screen.LIMIT_UP, query);
   }
 
   // 查询跌停股票数据
-  @GetMapping("/limit-down")
-  public StockResponse getLimitDownData(
-      @RequestParam(required = false) String tsCode,
-      @RequestParam(required = false) String tradeDate,
-      @RequestParam(required = false, defaultValue = "1") Integer pageNum) {
-    return stockService.getLimitDownData(tsCode, tradeDate, pageNum);
+  @GetMapping(value = "/limit-down", produces = {MediaType.APPLICATION_JSON_VALUE, GridFormats.COLUMNAR_JSON_VALUE,
+      GridFormats.BINARY_F32_VALUE})
+  public StockResponse getLimitDownData(StockQuery query) {
+    return stockService.getScreenData(Screen.LIMIT_DOWN, query);
   }
 
   // 查询半年线股票数据
-  @GetMapping("/half-year-line")
-  public StockResponse getHalfYearLineData(
-      @RequestParam(required = false) String tsCode,
-      @RequestParam(required = false) String tradeDate,
-      @RequestParam(required = false, defaultValue = "1") Integer pageNum) {
-    return stockService.getHalfYearLineData(tsCode, tradeDate, pageNum);
+  @GetMapping(value = "/half-year-line", produces = {MediaType.APPLICATION_JSON_VALUE, GridFormats.COLUMNAR_JSON_VALUE,
+      GridFormats.BINARY_F32_VALUE})
+  public StockResponse getHalfYearLineData(StockQuery query) {
+    return stockService.getScreenData(Screen.HALF_YEAR_LINE, query);
   }
 
   // 查询年线股票数据
-  @GetMapping("/year-line")
-  public StockResponse getYearLineData(
-      @RequestParam(required = false) String tsCode,
-      @RequestParam(required = false) String tradeDate,
-      @RequestParam(required = false, defaultValue = "1") Integer pageNum) {
-    return stockService.getYearLineData(tsCode, tradeDate, pageNum);
+  @GetMapping(value = "/year-line", produces = {MediaType.APPLICATION_JSON_VALUE, GridFormats.COLUMNAR_JSON_VALUE,
+      GridFormats.BINARY_F32_VALUE})
+  public StockResponse getYearLineData(StockQuery query) {
+    return stockService.getScreenData(Screen.YEAR_LINE, query);
+  }
+
+  /**
+   * 按表达式自定义筛选，例如 expr=pct_chg >= 9.9 and close > ma250 order by amount desc
+   *
+   * 语法见 {@link com.example.stock.screener.ScreenExpression}；windowDays 为目标日前后各取的交易日数量，
+   * 其余参数与五类筛选相同，但只支持 pageNum 分页。
+   */
+  @GetMapping(value = "/screen", produces = {MediaType.APPLICATION_JSON_VALUE, GridFormats.COLUMNAR_JSON_VALUE,
+      GridFormats.BINARY_F32_VALUE})
+  public StockResponse screen(@RequestParam String expr,
+      @RequestParam(defaultValue = Screener.DEFAULT_WINDOW_DAYS) int windowDays, StockQuery query) {
+    return screener.screen(expr, query, windowDays);
+  }
+
+  /**
+   * 订阅最新交易日的增量推送
+   *
+   * 连接后先收到 ready 事件（当前最新交易日和数据版本），之后每当最新交易日有新增或修订的日线时
+   * 收到 delta 事件，内容见 {@link com.example.stock.dto.LatestDayDelta}。
+   * 最新交易日切换时收到 reset 事件（trade_date、previous_trade_date、data_version），客户端应重新查询当前页。
+   */
+  @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter stream() {
+    SseEmitter emitter = latestDayFeed.subscribe();
+    if (emitter == null) {
+      throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "推送连接数已满");
+    }
+    return emitter;
+  }
+
+  /**
+   * 导出日期范围内的日线，边读边写，不做分页
+   *
+   * start/end 为 yyyy-MM-dd，缺省时取最早/最新交易日；codes 为逗号分隔的股票代码，缺省导出全部股票。
+   * 同步写出响应，不受异步请求超时限制。
+   */
+  @GetMapping("/export")
+  public void export(@RequestParam(required = false) String start, @RequestParam(required = false) String end,
+      @RequestParam(required = false) String codes, @RequestParam(defaultValue = "csv") String format,
+      HttpServletResponse response) throws IOException {
+    if ("arrow".equalsIgnoreCase(format)) {
+      throw new IllegalArgumentException("暂不支持 arrow 格式，请使用 format=csv");
+    }
+    if (!"csv".equalsIgnoreCase(format)) {
+      throw new IllegalArgumentException("不支持的导出格式: " + format);
+    }
+    LocalDate startDate = start == null || start.isEmpty() ? tradingCalendar.minDate() : LocalDate.parse(start);
+    LocalDate endDate = end == null || end.isEmpty() ? tradingCalendar.maxDate() : LocalDate.parse(end);
+    if (startDate == null || endDate == null) {
+      throw new IllegalArgumentException("暂无行情数据");
+    }
+    if (startDate.isAfter(endDate)) {
+      throw new IllegalArgumentException("开始日期不能晚于结束日期");
+    }
+    List<String> codeList = null;
+    if (codes != null && !codes.isEmpty()) {
+      codeList = Arrays.stream(codes.split(",")).map(String::trim).filter(code -> !code.isEmpty())
+          .distinct().collect(Collectors.toList());
+      if (codeList.isEmpty()) {
+        throw new IllegalArgumentException("股票代码不能为空");
+      }
+    }
+
+    response.setContentType(StockBarCsvWriter.CONTENT_TYPE);
+    response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+        "attachment; filename=\"stocks_" + startDate + "_" + endDate + ".csv\"");
+    StockBarCsvWriter writer = new StockBarCsvWriter(response.getOutputStream());
+    writer.writeHeader(GridAssembler.COLUMN_NAMES);
+    exportService.export(startDate, endDate, codeList, writer::write);
+    writer.flush();
+  }
+
+  // 参数错误（如无效的分页游标）返回400
+  @ExceptionHandler(IllegalArgumentException.class)
+  public ResponseEntity<Map<String, String>> handleBadRequest(IllegalArgumentException e) {
+    return error(HttpStatus.BAD_REQUEST, e);
+  }
+
+  // 查询超时返回503，客户端可稍后重试
+  @ExceptionHandler(QueryTimeoutException.class)
+  public ResponseEntity<Map<String, String>> handleQueryTimeout(QueryTimeoutException e) {
+    return error(HttpStatus.SERVICE_UNAVAILABLE, e);
+  }
+
+  // 指标计算超时同样返回503
+  @ExceptionHandler(IndicatorTimeoutException.class)
+  public ResponseEntity<Map<String, String>> handleIndicatorTimeout(IndicatorTimeoutException e) {
+    return error(HttpStatus.SERVICE_UNAVAILABLE, e);
+  }
+
+  // 错误信息固定以 JSON 返回，不受 format 参数（如 f32、csv）的内容协商影响
+  private static ResponseEntity<Map<String, String>> error(HttpStatus status, Exception e) {
+    return ResponseEntity.status(status).contentType(MediaType.APPLICATION_JSON)
+        .body(Collections.singletonMap("error", e.getMessage()));
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,25 @@
+package com.example.stock.dto;
+
+/**
+ * 一只股票的技术指标列，顺序与 StockResponse.indicator_names 相同，每列与该股票的行一一对应；
+ * 空值（预热不足或当日无数据）为 NaN，JSON 中输出为 null
+ */
+public final class IndicatorColumns {
+
+  private final double[][] columns;
+
+  public IndicatorColumns(double[][] columns) {
+    this.columns = columns;
+  }
+
+  public int size() {
+    return columns.length;
+  }
+
+  /**
+   * 第i列，调用方不得修改
+   */
+  public double[] column(int i) {
+    return columns[i];
+  }
+}
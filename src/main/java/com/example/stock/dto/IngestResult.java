@@ -0,0 +1,26 @@
+package com.example.stock.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 日线入库结果
+ */
+@Data
+public class IngestResult {
+  // 写入方式：copy 或 batch
+  private String method;
+  // 读取的数据行数（不含表头）
+  private long rows_read;
+  // 校验失败被跳过的行数
+  private long rows_rejected;
+  // 新增或更新的行数，与库中完全相同的行不计入
+  private long rows_written;
+  // 涉及的交易日
+  private List<String> dates;
+  // 数据版本号
+  private long data_version;
+  // 耗时（毫秒）
+  private long elapsed_ms;
+}
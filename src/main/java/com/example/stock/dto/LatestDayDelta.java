@@ -0,0 +1,35 @@
+package com.example.stock.dto;
+
+import com.example.stock.entity.StockBar;
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 最新交易日的增量推送，只在最新交易日不变时发送；交易日切换时改为发送 reset 事件
+ */
+@Data
+public class LatestDayDelta {
+  // 最新交易日
+  private String trade_date;
+  // 数据版本号
+  private long data_version;
+  // 新增或数值有变化的行，格式与 grid_data 的行相同
+  private List<StockBar> rows;
+  // 当日被删除的股票代码
+  private List<String> removed;
+  // 各筛选（limit_up、limit_down、half_year_line、year_line）成员的变化
+  private Map<String, Membership> screens;
+
+  /**
+   * 筛选成员变化
+   */
+  @Data
+  public static class Membership {
+    // 新进入筛选的股票代码
+    private List<String> added;
+    // 移出筛选的股票代码
+    private List<String> removed;
+  }
+}
@@ -0,0 +1,22 @@
+package com.example.stock.dto;
+
+import lombok.Data;
+
+/**
+ * 一条慢查询记录
+ */
+@Data
+public class SlowQuery {
+  // Mapper 语句 id，如 StockDataMapper.findYearLine
+  private String statement;
+  // 执行耗时（毫秒）
+  private double elapsed_ms;
+  // 发生时间
+  private String time;
+  // 执行的SQL，参数为占位符
+  private String sql;
+  // 抽样执行的执行计划，未抽中或尚未完成时为空
+  private volatile String plan;
+  // 执行计划获取失败的原因
+  private volatile String plan_error;
+}
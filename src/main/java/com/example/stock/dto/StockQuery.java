@@ -0,0 +1,24 @@
+package com.example.stock.dto;
+
+import lombok.Data;
+
+/**
+ * 股票筛选查询参数
+ */
+@Data
+public class StockQuery {
+  // 股票代码
+  private String tsCode;
+  // 交易日期
+  private String tradeDate;
+  // 页码，使用游标时忽略
+  private Integer pageNum = 1;
+  // 上一页返回的游标，非空时按游标取下一页
+  private String after;
+  // 数据周期：day（默认）、week、month
+  private String resolution;
+  // 每只股票最多返回的行数，按收盘价走势选点，为空时不限
+  private Integer maxPoints;
+  // 技术指标，逗号分隔，如 macd,rsi(6),boll
+  private String indicators;
+}
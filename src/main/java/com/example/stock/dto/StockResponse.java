@@ -1,9 +1,9 @@
 package com.example.stock.dto;
 
+import com.example.stock.entity.StockBar;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Data;
-import java.time.LocalDate;
 import java.util.List;
-import java.math.BigDecimal;
 
 @Data
 public class StockResponse {
@@ -11,65 +11,18 @@ public class StockResponse {
   private List<String> column_names;
   // 选择的日期
   private String date;
-  // 股票数据，格式为数组的数组
-  private List<List<List<Object>>> grid_data;
+  // 股票数据，每只股票一组按交易日升序的行，每行序列化为与 column_names 对应的数组
+  private List<List<StockBar>> grid_data;
   // 当前页码
   private int page;
   // 股票总数
   private int stock_count;
-
-  @Data
-  public static class StockData {
-    // 股票代码
-    private String tsCode;
-    // 交易日期
-    private LocalDate tradeDate;
-    // 开盘价
-    private BigDecimal open;
-    // 最高价
-    private BigDecimal high;
-    // 最低价
-    private BigDecimal low;
-    // 收盘价
-    private BigDecimal close;
-    // 前收盘价
-    private BigDecimal preClose;
-    // 涨跌额
-    private BigDecimal pctChg;
-    // 成交量
-    private BigDecimal vol;
-    // 成交额
-    private BigDecimal amount;
-    // 换手率
-    private BigDecimal turnoverRate;
-    // 5日均线
-    private BigDecimal ma5;
-    // 10日均线
-    private BigDecimal ma10;
-    // 半年线
-    private BigDecimal ma120;
-    // 年线
-    private BigDecimal ma250;
-
-    // 转换为Object数组，用于grid_data
-    public Object[] toObjectArray() {
-      return new Object[] {
-          tsCode,
-          tradeDate.toString(),
-          open,
-          high,
-          low,
-          close,
-          preClose,
-          pctChg,
-          vol,
-          amount,
-          turnoverRate,
-          ma5,
-          ma10,
-          ma120,
-          ma250
-      };
-    }
-  }
-}
\ No newline at end of file
+  // 下一页游标，没有更多数据时为null
+  private String next_cursor;
+  // 请求 indicators 时的指标列名，如 macd.dif、rsi(6).rsi；未请求时不输出
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  private List<String> indicator_names;
+  // 与 grid_data 一一对应的指标列；未请求时不输出
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  private List<IndicatorColumns> indicator_data;
+}
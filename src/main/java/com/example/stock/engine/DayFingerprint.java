@@ -0,0 +1,37 @@
+package com.example.stock.engine;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * 一个交易日的数据指纹：行数及筛选条件所用各列之和
+ *
+ * 行数变化或任一行的 close、pct_chg、ma120、ma250 被修订时指纹随之变化，
+ * 用于判断持久化的筛选位图是否仍与库中数据一致。
+ */
+@Data
+public class DayFingerprint {
+  private LocalDate tradeDate;
+  private long rowCount;
+  private BigDecimal closeSum;
+  private BigDecimal pctChgSum;
+  private BigDecimal ma120Sum;
+  private BigDecimal ma250Sum;
+
+  /**
+   * 合并为一个64位值，小数按数值比较（去掉末尾的0）
+   */
+  public long value() {
+    long h = rowCount;
+    for (BigDecimal sum : new BigDecimal[] {closeSum, pctChgSum, ma120Sum, ma250Sum}) {
+      String text = sum == null ? "null" : sum.stripTrailingZeros().toPlainString();
+      for (int i = 0; i < text.length(); i++) {
+        h = h * 1_000_003L + text.charAt(i);
+      }
+      h = h * 1_000_003L + '|';
+    }
+    return h;
+  }
+}
@@ -0,0 +1,283 @@
+package com.example.stock.engine;
+
+import com.example.stock.entity.StockBar;
+import com.example.stock.entity.StockData;
+import com.example.stock.event.MarketDataChangedEvent;
+import com.example.stock.mapper.StockDataMapper;
+import com.example.stock.service.PageCursor;
+import com.example.stock.service.Screen;
+import com.example.stock.service.ScreenPage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 内存行情引擎
+ *
+ * 启动时将 all_stocks_days 按 ts_code 加载为列式数组，五类筛选直接在内存中完成。
+ * 通过 stock.engine.memory.enabled 开启；未开启或尚未加载完成时 isLoaded() 返回false，
+ * 由服务层回退到数据库查询。
+ */
+@Component
+public class MarketStore {
+
+  private static final Logger log = LoggerFactory.getLogger(MarketStore.class);
+
+  @Autowired
+  private StockDataMapper stockDataMapper;
+
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+
+  @Value("${stock.engine.memory.enabled:false}")
+  private boolean enabled;
+
+  // 当前快照，整体替换
+  private volatile Snapshot snapshot;
+
+  /**
+   * 是否已加载完成可供查询
+   */
+  public boolean isLoaded() {
+    return snapshot != null;
+  }
+
+  /**
+   * 应用启动后在后台线程加载，不阻塞启动
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void loadOnStartup() {
+    if (!enabled) {
+      return;
+    }
+    Thread loader = new Thread(this::reload, "market-store-loader");
+    loader.setDaemon(true);
+    loader.start();
+  }
+
+  /**
+   * 全量重新加载
+   */
+  public synchronized void reload() {
+    long start = System.currentTimeMillis();
+    List<StockSeries> loaded = new ArrayList<>();
+    try {
+      // PostgreSQL 只有在事务内才会按 fetchSize 分批读取
+      transactionTemplate.executeWithoutResult(status -> {
+        StockSeries.Builder[] current = new StockSeries.Builder[1];
+        stockDataMapper.scanAll(context -> {
+          StockData row = context.getResultObject();
+          if (current[0] == null || !current[0].getTsCode().equals(row.getTsCode())) {
+            if (current[0] != null) {
+              loaded.add(current[0].build());
+            }
+            current[0] = new StockSeries.Builder(row.getTsCode(), 256);
+          }
+          current[0].add(row);
+        });
+        if (current[0] != null) {
+          loaded.add(current[0].build());
+        }
+      });
+    } catch (RuntimeException e) {
+      log.error("内存行情加载失败，继续使用数据库查询", e);
+      return;
+    }
+    snapshot = new Snapshot(loaded.toArray(new StockSeries[0]));
+    log.info("内存行情加载完成: {} 只股票, 耗时 {} ms", loaded.size(), System.currentTimeMillis() - start);
+  }
+
+  /**
+   * 行情变更后合并受影响交易日的数据，范围未知时全量重载；需在均线计算之后、缓存预热之前执行
+   */
+  @EventListener
+  @Order(Ordered.HIGHEST_PRECEDENCE + 3)
+  public void onMarketDataChanged(MarketDataChangedEvent event) {
+    if (!enabled || snapshot == null) {
+      return;
+    }
+    if (event.getDates().isEmpty()) {
+      reload();
+      return;
+    }
+    merge(stockDataMapper.findByTradeDates(event.getDates()));
+  }
+
+  /**
+   * 合并按 ts_code、trade_date 排序的行，尚未加载时以这些行作为初始数据
+   */
+  public synchronized void merge(List<StockData> rows) {
+    Snapshot current = snapshot != null ? snapshot : new Snapshot(new StockSeries[0]);
+    if (rows.isEmpty()) {
+      return;
+    }
+    Map<String, List<StockData>> byCode = new TreeMap<>();
+    for (StockData row : rows) {
+      byCode.computeIfAbsent(row.getTsCode(), k -> new ArrayList<>()).add(row);
+    }
+    Map<String, StockSeries> merged = new TreeMap<>();
+    for (StockSeries s : current.series) {
+      merged.put(s.getTsCode(), s);
+    }
+    byCode.forEach((tsCode, codeRows) -> {
+      StockSeries existing = merged.get(tsCode);
+      if (existing == null) {
+        StockSeries.Builder b = new StockSeries.Builder(tsCode, codeRows.size());
+        codeRows.forEach(b::add);
+        merged.put(tsCode, b.build());
+      } else {
+        merged.put(tsCode, existing.merge(codeRows));
+      }
+    });
+    snapshot = new Snapshot(merged.values().toArray(new StockSeries[0]));
+    log.info("内存行情已合并 {} 行, {} 只股票", rows.size(), byCode.size());
+  }
+
+  /**
+   * 在内存中执行一次筛选
+   *
+   * @param screen      筛选类型
+   * @param tsCode      股票代码，为空时不限
+   * @param tradeDate   目标交易日
+   * @param windowStart 窗口起始日
+   * @param windowEnd   窗口结束日
+   * @param pageSize    每页股票数
+   * @param offset      跳过的股票数，游标非空时忽略
+   * @param cursor      键集分页游标，可为空
+   * @return 当前页数据及总数
+   */
+  public ScreenPage query(Screen screen, String tsCode, LocalDate tradeDate,
+      LocalDate windowStart, LocalDate windowEnd, int pageSize, int offset, PageCursor cursor) {
+    Snapshot snap = snapshot;
+    int day = (int) tradeDate.toEpochDay();
+
+    int from = 0;
+    int to = snap.series.length;
+    if (tsCode != null) {
+      Integer index = snap.indexByCode.get(tsCode);
+      if (index == null) {
+        return new ScreenPage(Collections.emptyList(), 0);
+      }
+      from = index;
+      to = index + 1;
+    }
+
+    // 高32位为排序键，低32位为股票下标（下标顺序即 ts_code 顺序）
+    long[] hits = new long[to - from];
+    int count = 0;
+    for (int i = from; i < to; i++) {
+      StockSeries s = snap.series[i];
+      int r = s.indexOf(day);
+      if (r >= 0 && matches(screen, s, r)) {
+        hits[count++] = ((long) sortKey(screen, s.pctChg[r]) << 32) | i;
+      }
+    }
+    Arrays.sort(hits, 0, count);
+
+    int first = cursor != null ? firstAfter(snap, screen, hits, count, cursor) : offset;
+    int pageEnd = Math.min(count, first + pageSize);
+    if (first >= pageEnd) {
+      return new ScreenPage(Collections.emptyList(), count);
+    }
+    int[] page = new int[pageEnd - first];
+    for (int k = 0; k < page.length; k++) {
+      page[k] = (int) hits[first + k];
+    }
+    // 与SQL保持一致，按 ts_code、trade_date 升序输出
+    Arrays.sort(page);
+
+    int startDay = (int) windowStart.toEpochDay();
+    int endDay = (int) windowEnd.toEpochDay();
+    List<StockBar> rows = new ArrayList<>();
+    for (int i : page) {
+      StockSeries s = snap.series[i];
+      s.appendBars(s.lowerBound(startDay), s.lowerBound(endDay + 1), rows);
+    }
+    return new ScreenPage(rows, count);
+  }
+
+  /**
+   * 二分查找第一个排在游标之后的命中下标
+   */
+  private static int firstAfter(Snapshot snap, Screen screen, long[] hits, int count, PageCursor cursor) {
+    double cursorPct = cursor.getPctChg() != null ? cursor.getPctChg().doubleValue() : 0;
+    int cursorKey = sortKey(screen, cursorPct);
+    int low = 0;
+    int high = count;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      int key = (int) (hits[mid] >> 32);
+      int cmp = key != cursorKey
+          ? Integer.compare(key, cursorKey)
+          : snap.series[(int) hits[mid]].getTsCode().compareTo(cursor.getTsCode());
+      if (cmp <= 0) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  private static boolean matches(Screen screen, StockSeries s, int r) {
+    switch (screen) {
+      case LIMIT_UP:
+        return s.pctChg[r] >= 6.0;
+      case LIMIT_DOWN:
+        return s.pctChg[r] <= -6.0;
+      case HALF_YEAR_LINE:
+        return s.close[r] > s.ma120[r];
+      case YEAR_LINE:
+        return s.close[r] > s.ma250[r];
+      default:
+        return true;
+    }
+  }
+
+  /**
+   * 涨停按涨跌幅降序、跌停按升序，其余按 ts_code 排序
+   */
+  private static int sortKey(Screen screen, double pctChg) {
+    // 库中涨跌幅为4位小数，放大为整数后顺序与相等关系都与SQL一致
+    int ordered = (int) Math.max(-Integer.MAX_VALUE, Math.min(Integer.MAX_VALUE, Math.round(pctChg * 10000)));
+    switch (screen) {
+      case LIMIT_UP:
+        return ~ordered;
+      case LIMIT_DOWN:
+        return ordered;
+      default:
+        return 0;
+    }
+  }
+
+  private static final class Snapshot {
+    private final StockSeries[] series;
+    private final Map<String, Integer> indexByCode;
+
+    private Snapshot(StockSeries[] series) {
+      Arrays.sort(series, Comparator.comparing(StockSeries::getTsCode));
+      this.series = series;
+      this.indexByCode = new HashMap<>(series.length * 2);
+      for (int i = 0; i < series.length; i++) {
+        indexByCode.put(series[i].getTsCode(), i);
+      }
+    }
+  }
+}
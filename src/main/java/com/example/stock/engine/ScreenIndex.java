@@ -0,0 +1,528 @@
+package com.example.stock.engine;
+
+import com.example.stock.entity.StockData;
+import com.example.stock.event.MarketDataChangedEvent;
+import com.example.stock.mapper.StockDataMapper;
+import com.example.stock.service.Screen;
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * 筛选位图索引
+ *
+ * 按 ts_code 升序为全部股票分配连续的ID，每个交易日为五类筛选各保存一个 Roaring 位图
+ * （当日有数据、pct_chg >= 6、pct_chg <= -6、close > ma120、close > ma250）。
+ * 总数由位图基数直接得到，按 ts_code 排序的筛选的分页由位图迭代得到，筛选之间可做交集/并集。
+ * 启动时优先从文件恢复，补齐缺失的交易日，并重建指纹（{@link DayFingerprint}）与库中不一致的交易日，
+ * 以覆盖停机期间或由外部程序修订的数据；行情变更后增量更新并写回文件。
+ */
+@Component
+public class ScreenIndex {
+
+  private static final Logger log = LoggerFactory.getLogger(ScreenIndex.class);
+
+  private static final int MAGIC = 0x53494458;
+  private static final int FORMAT = 2;
+  private static final Screen[] SCREENS = Screen.values();
+  private static final BigDecimal LIMIT_UP_PCT = new BigDecimal("6.0");
+  private static final BigDecimal LIMIT_DOWN_PCT = new BigDecimal("-6.0");
+
+  @Autowired
+  private StockDataMapper stockDataMapper;
+
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+
+  @Value("${stock.index.screen.enabled:true}")
+  private boolean enabled;
+
+  @Value("${stock.index.screen.file:data/screen-index.bin}")
+  private String file;
+
+  // 当前快照，整体替换
+  private volatile Snapshot snapshot;
+
+  /**
+   * 是否已加载完成可供查询
+   */
+  public boolean isLoaded() {
+    return snapshot != null;
+  }
+
+  /**
+   * 应用启动后在后台线程加载，不阻塞启动
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void loadOnStartup() {
+    if (!enabled) {
+      return;
+    }
+    Thread loader = new Thread(this::initialize, "screen-index-loader");
+    loader.setDaemon(true);
+    loader.start();
+  }
+
+  /**
+   * 从文件恢复并与库中数据对齐，文件不存在或无法读取时全量构建
+   */
+  public synchronized void initialize() {
+    try {
+      Snapshot loaded = read();
+      if (loaded == null) {
+        rebuild();
+        return;
+      }
+      // 文件保存之后新增的交易日需要补齐，已不存在的交易日需要删除，指纹不一致的交易日需要重建
+      Set<LocalDate> stale = new TreeSet<>();
+      Map<Integer, Long> current = fingerprints(null);
+      for (Map.Entry<Integer, Long> entry : current.entrySet()) {
+        int i = Arrays.binarySearch(loaded.days, entry.getKey());
+        if (i < 0 || loaded.fingerprints[i] != entry.getValue()) {
+          stale.add(LocalDate.ofEpochDay(entry.getKey()));
+        }
+      }
+      for (int day : loaded.days) {
+        if (!current.containsKey(day)) {
+          stale.add(LocalDate.ofEpochDay(day));
+        }
+      }
+      log.info("筛选位图索引已从文件恢复: {} 只股票, {} 个交易日, 待补齐或重建 {} 个交易日",
+          loaded.codes.length, loaded.days.length, stale.size());
+      // 对齐之后才开放查询，避免用过期的位图计数
+      if (stale.isEmpty()) {
+        snapshot = loaded;
+      } else {
+        apply(loaded, stale);
+      }
+    } catch (RuntimeException e) {
+      log.error("筛选位图索引加载失败，继续使用数据库统计", e);
+    }
+  }
+
+  /**
+   * 全量构建
+   */
+  public synchronized void rebuild() {
+    long start = System.currentTimeMillis();
+    // 指纹在扫描之前读取，期间有修订时下次启动会因指纹不一致而重建
+    Map<Integer, Long> fingerprints = fingerprints(null);
+    String[] codes = stockDataMapper.findAllTsCodes().toArray(new String[0]);
+    Map<Integer, RoaringBitmap[]> byDay = new HashMap<>();
+    // PostgreSQL 只有在事务内才会按 fetchSize 分批读取
+    transactionTemplate.executeWithoutResult(status ->
+        stockDataMapper.scanScreenFlags(null, context -> mark(codes, byDay, context.getResultObject())));
+    Snapshot built = new Snapshot(codes, optimize(byDay), fingerprints);
+    snapshot = built;
+    log.info("筛选位图索引构建完成: {} 只股票, {} 个交易日, 耗时 {} ms",
+        codes.length, built.days.length, System.currentTimeMillis() - start);
+    save(built);
+  }
+
+  /**
+   * 行情变更后更新受影响的交易日，范围未知时全量构建；需在均线计算之后执行
+   */
+  @EventListener
+  @Order(Ordered.HIGHEST_PRECEDENCE + 2)
+  public void onMarketDataChanged(MarketDataChangedEvent event) {
+    if (!enabled || snapshot == null) {
+      return;
+    }
+    if (event.getDates().isEmpty()) {
+      rebuild();
+    } else {
+      update(event.getDates());
+    }
+  }
+
+  /**
+   * 重新构建指定交易日的位图
+   */
+  public synchronized void update(Collection<LocalDate> dates) {
+    apply(snapshot, dates);
+  }
+
+  /**
+   * 在 current 的基础上重建指定交易日的位图，结果作为新的快照
+   */
+  private void apply(Snapshot current, Collection<LocalDate> dates) {
+    Map<Integer, Long> fresh = fingerprints(dates);
+    List<StockData> rows = new ArrayList<>();
+    transactionTemplate.executeWithoutResult(status ->
+        stockDataMapper.scanScreenFlags(dates, context -> rows.add(context.getResultObject())));
+
+    Set<String> added = new TreeSet<>();
+    for (StockData row : rows) {
+      if (Arrays.binarySearch(current.codes, row.getTsCode()) < 0) {
+        added.add(row.getTsCode());
+      }
+    }
+    String[] codes = current.codes;
+    int[] mapping = null;
+    if (!added.isEmpty()) {
+      // 新股插入后ID整体保持 ts_code 顺序，已有位图按新ID重新映射
+      Set<String> all = new TreeSet<>(Arrays.asList(current.codes));
+      all.addAll(added);
+      codes = all.toArray(new String[0]);
+      mapping = new int[current.codes.length];
+      for (int i = 0; i < mapping.length; i++) {
+        mapping[i] = Arrays.binarySearch(codes, current.codes[i]);
+      }
+    }
+
+    Map<Integer, RoaringBitmap[]> byDay = new HashMap<>();
+    Map<Integer, Long> fingerprints = new HashMap<>();
+    for (int i = 0; i < current.days.length; i++) {
+      byDay.put(current.days[i], mapping == null ? current.bitmaps[i] : remap(current.bitmaps[i], mapping));
+      fingerprints.put(current.days[i], current.fingerprints[i]);
+    }
+    for (LocalDate date : dates) {
+      byDay.remove((int) date.toEpochDay());
+      fingerprints.remove((int) date.toEpochDay());
+    }
+    Map<Integer, RoaringBitmap[]> marked = new HashMap<>();
+    for (StockData row : rows) {
+      mark(codes, marked, row);
+    }
+    byDay.putAll(optimize(marked));
+    fingerprints.putAll(fresh);
+
+    Snapshot updated = new Snapshot(codes, byDay, fingerprints);
+    snapshot = updated;
+    log.info("筛选位图索引已更新 {} 个交易日, 新增 {} 只股票", dates.size(), added.size());
+    save(updated);
+  }
+
+  /**
+   * 指定交易日符合筛选条件的股票数
+   *
+   * @param screen 筛选类型
+   * @param date   交易日
+   * @param tsCode 股票代码，为空时不限
+   * @return 股票数，该交易日不在索引中时返回-1
+   */
+  public long count(Screen screen, LocalDate date, String tsCode) {
+    Snapshot snap = snapshot;
+    RoaringBitmap bitmap = snap != null ? snap.bitmap(date, screen) : null;
+    if (bitmap == null) {
+      return -1;
+    }
+    if (tsCode == null) {
+      return bitmap.getLongCardinality();
+    }
+    int id = Arrays.binarySearch(snap.codes, tsCode);
+    return id >= 0 && bitmap.contains(id) ? 1 : 0;
+  }
+
+  /**
+   * 按 ts_code 顺序取一页符合筛选条件的股票代码
+   *
+   * @param screen    筛选类型
+   * @param date      交易日
+   * @param tsCode    股票代码，为空时不限
+   * @param offset    跳过的股票数，afterCode 非空时忽略
+   * @param afterCode 只取排在该代码之后的股票，可为空
+   * @param limit     最多返回的股票数
+   * @return 股票代码，该交易日不在索引中时返回null
+   */
+  public List<String> page(Screen screen, LocalDate date, String tsCode, int offset, String afterCode, int limit) {
+    Snapshot snap = snapshot;
+    RoaringBitmap bitmap = snap != null ? snap.bitmap(date, screen) : null;
+    if (bitmap == null) {
+      return null;
+    }
+    if (tsCode != null) {
+      boolean hit = count(screen, date, tsCode) > 0
+          && (afterCode != null ? tsCode.compareTo(afterCode) > 0 : offset == 0);
+      return hit ? Collections.singletonList(tsCode) : Collections.emptyList();
+    }
+    PeekableIntIterator it = bitmap.getIntIterator();
+    if (afterCode != null) {
+      int id = Arrays.binarySearch(snap.codes, afterCode);
+      it.advanceIfNeeded(id >= 0 ? id + 1 : -id - 1);
+    } else if (offset > 0) {
+      if (offset >= bitmap.getLongCardinality()) {
+        return Collections.emptyList();
+      }
+      it.advanceIfNeeded(bitmap.select(offset));
+    }
+    List<String> codes = new ArrayList<>(limit);
+    while (it.hasNext() && codes.size() < limit) {
+      codes.add(snap.codes[it.next()]);
+    }
+    return codes;
+  }
+
+  /**
+   * 同时满足多个筛选条件的股票
+   *
+   * @return 股票ID位图，该交易日不在索引中时返回null
+   */
+  public RoaringBitmap and(LocalDate date, Screen... screens) {
+    RoaringBitmap[] bitmaps = bitmaps(date, screens);
+    return bitmaps == null ? null : FastAggregation.and(bitmaps);
+  }
+
+  /**
+   * 满足任一筛选条件的股票
+   *
+   * @return 股票ID位图，该交易日不在索引中时返回null
+   */
+  public RoaringBitmap or(LocalDate date, Screen... screens) {
+    RoaringBitmap[] bitmaps = bitmaps(date, screens);
+    return bitmaps == null ? null : FastAggregation.or(bitmaps);
+  }
+
+  /**
+   * 将股票ID位图还原为股票代码（ts_code 升序）
+   */
+  public List<String> codes(RoaringBitmap ids) {
+    Snapshot snap = snapshot;
+    List<String> codes = new ArrayList<>(ids.getCardinality());
+    ids.forEach((int id) -> codes.add(snap.codes[id]));
+    return codes;
+  }
+
+  /**
+   * 索引规模统计
+   */
+  public Map<String, Object> stats() {
+    Snapshot snap = snapshot;
+    Map<String, Object> stats = new LinkedHashMap<>();
+    stats.put("loaded", snap != null);
+    if (snap != null) {
+      long bytes = 0;
+      for (RoaringBitmap[] day : snap.bitmaps) {
+        for (RoaringBitmap bitmap : day) {
+          bytes += bitmap.serializedSizeInBytes();
+        }
+      }
+      stats.put("stocks", snap.codes.length);
+      stats.put("trade_days", snap.days.length);
+      stats.put("bitmap_bytes", bytes);
+    }
+    return stats;
+  }
+
+  private RoaringBitmap[] bitmaps(LocalDate date, Screen... screens) {
+    Snapshot snap = snapshot;
+    if (snap == null) {
+      return null;
+    }
+    RoaringBitmap[] bitmaps = new RoaringBitmap[screens.length];
+    for (int i = 0; i < screens.length; i++) {
+      bitmaps[i] = snap.bitmap(date, screens[i]);
+      if (bitmaps[i] == null) {
+        return null;
+      }
+    }
+    return bitmaps;
+  }
+
+  /**
+   * 指定交易日（为null时全部）的数据指纹，键为 epoch day
+   */
+  private Map<Integer, Long> fingerprints(Collection<LocalDate> dates) {
+    Map<Integer, Long> fingerprints = new HashMap<>();
+    for (DayFingerprint fingerprint : stockDataMapper.findDayFingerprints(dates)) {
+      fingerprints.put((int) fingerprint.getTradeDate().toEpochDay(), fingerprint.value());
+    }
+    return fingerprints;
+  }
+
+  private static void mark(String[] codes, Map<Integer, RoaringBitmap[]> byDay, StockData row) {
+    int id = Arrays.binarySearch(codes, row.getTsCode());
+    if (id < 0) {
+      // 构建过程中新写入的股票，留给下一次增量更新
+      return;
+    }
+    RoaringBitmap[] bitmaps = byDay.computeIfAbsent((int) row.getTradeDate().toEpochDay(), k -> newBitmaps());
+    for (Screen screen : SCREENS) {
+      if (matches(screen, row)) {
+        bitmaps[screen.ordinal()].add(id);
+      }
+    }
+  }
+
+  /**
+   * 单行是否符合筛选条件，与筛选SQL的条件一致
+   */
+  public static boolean matches(Screen screen, StockData row) {
+    BigDecimal pctChg = row.getPctChg();
+    BigDecimal close = row.getClose();
+    switch (screen) {
+      case LIMIT_UP:
+        return pctChg != null && pctChg.compareTo(LIMIT_UP_PCT) >= 0;
+      case LIMIT_DOWN:
+        return pctChg != null && pctChg.compareTo(LIMIT_DOWN_PCT) <= 0;
+      case HALF_YEAR_LINE:
+        return close != null && row.getMa120() != null && close.compareTo(row.getMa120()) > 0;
+      case YEAR_LINE:
+        return close != null && row.getMa250() != null && close.compareTo(row.getMa250()) > 0;
+      default:
+        return true;
+    }
+  }
+
+  private static RoaringBitmap[] newBitmaps() {
+    RoaringBitmap[] bitmaps = new RoaringBitmap[SCREENS.length];
+    for (int i = 0; i < bitmaps.length; i++) {
+      bitmaps[i] = new RoaringBitmap();
+    }
+    return bitmaps;
+  }
+
+  private static Map<Integer, RoaringBitmap[]> optimize(Map<Integer, RoaringBitmap[]> byDay) {
+    for (RoaringBitmap[] bitmaps : byDay.values()) {
+      for (RoaringBitmap bitmap : bitmaps) {
+        bitmap.runOptimize();
+      }
+    }
+    return byDay;
+  }
+
+  private static RoaringBitmap[] remap(RoaringBitmap[] bitmaps, int[] mapping) {
+    RoaringBitmap[] remapped = new RoaringBitmap[bitmaps.length];
+    for (int i = 0; i < bitmaps.length; i++) {
+      int[] ids = bitmaps[i].toArray();
+      for (int k = 0; k < ids.length; k++) {
+        ids[k] = mapping[ids[k]];
+      }
+      // 映射保持顺序，ids 仍然有序
+      remapped[i] = RoaringBitmap.bitmapOf(ids);
+      remapped[i].runOptimize();
+    }
+    return remapped;
+  }
+
+  /**
+   * 写入临时文件后原子替换，失败只记录日志
+   */
+  private void save(Snapshot snap) {
+    if (file == null || file.isEmpty()) {
+      return;
+    }
+    Path path = Paths.get(file);
+    Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+    try {
+      if (path.getParent() != null) {
+        Files.createDirectories(path.getParent());
+      }
+      try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT);
+        out.writeInt(SCREENS.length);
+        out.writeInt(snap.codes.length);
+        for (String code : snap.codes) {
+          out.writeUTF(code);
+        }
+        out.writeInt(snap.days.length);
+        for (int i = 0; i < snap.days.length; i++) {
+          out.writeInt(snap.days[i]);
+          out.writeLong(snap.fingerprints[i]);
+          for (RoaringBitmap bitmap : snap.bitmaps[i]) {
+            bitmap.serialize(out);
+          }
+        }
+      }
+      Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      log.warn("筛选位图索引写入文件失败: {}", path, e);
+    }
+  }
+
+  /**
+   * 从文件读取，文件不存在或格式不符时返回null
+   */
+  private Snapshot read() {
+    if (file == null || file.isEmpty() || !Files.isRegularFile(Paths.get(file))) {
+      return null;
+    }
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(Paths.get(file)), 1 << 16))) {
+      if (in.readInt() != MAGIC || in.readInt() != FORMAT || in.readInt() != SCREENS.length) {
+        log.warn("筛选位图索引文件格式不符，重新构建: {}", file);
+        return null;
+      }
+      String[] codes = new String[in.readInt()];
+      for (int i = 0; i < codes.length; i++) {
+        codes[i] = in.readUTF();
+      }
+      int days = in.readInt();
+      Map<Integer, RoaringBitmap[]> byDay = new HashMap<>(days * 2);
+      Map<Integer, Long> fingerprints = new HashMap<>(days * 2);
+      for (int i = 0; i < days; i++) {
+        int day = in.readInt();
+        fingerprints.put(day, in.readLong());
+        RoaringBitmap[] bitmaps = new RoaringBitmap[SCREENS.length];
+        for (int s = 0; s < bitmaps.length; s++) {
+          bitmaps[s] = new RoaringBitmap();
+          bitmaps[s].deserialize(in);
+        }
+        byDay.put(day, bitmaps);
+      }
+      return new Snapshot(codes, byDay, fingerprints);
+    } catch (IOException | RuntimeException e) {
+      log.warn("筛选位图索引文件读取失败，重新构建: {}", file, e);
+      return null;
+    }
+  }
+
+  private static final class Snapshot {
+    // 股票ID即在该数组中的下标
+    private final String[] codes;
+    // 升序排列的交易日（epoch day）
+    private final int[] days;
+    // [交易日下标][筛选类型序号]
+    private final RoaringBitmap[][] bitmaps;
+    // 构建各交易日位图时的数据指纹，缺失时为0
+    private final long[] fingerprints;
+
+    private Snapshot(String[] codes, Map<Integer, RoaringBitmap[]> byDay, Map<Integer, Long> fingerprints) {
+      this.codes = codes;
+      this.days = byDay.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+      this.bitmaps = new RoaringBitmap[days.length][];
+      this.fingerprints = new long[days.length];
+      for (int i = 0; i < days.length; i++) {
+        bitmaps[i] = byDay.get(days[i]);
+        this.fingerprints[i] = fingerprints.getOrDefault(days[i], 0L);
+      }
+    }
+
+    private RoaringBitmap bitmap(LocalDate date, Screen screen) {
+      int i = Arrays.binarySearch(days, (int) date.toEpochDay());
+      return i < 0 ? null : bitmaps[i][screen.ordinal()];
+    }
+  }
+}
@@ -0,0 +1,190 @@
+package com.example.stock.engine;
+
+import com.example.stock.entity.StockBar;
+import com.example.stock.entity.StockData;
+import com.example.stock.event.MarketDataChangedEvent;
+import com.example.stock.mapper.StockDataMapper;
+import com.example.stock.service.DataVersion;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 单只股票的序列缓存
+ *
+ * 以 ts_code 为键缓存该股票全部历史的列式数组（{@link StockSeries}），容量按估算的字节数限制，
+ * 超出后由 Caffeine 按访问频率和时间淘汰。位图索引确定当前页的股票后，窗口内的行直接从缓存切片，
+ * 只有未缓存的股票需要查询数据库（一次查询取全部历史）。
+ * 行情变更时只把受影响交易日的行合并到已缓存的序列中，范围未知时全部失效。
+ * 内存行情引擎已加载时不经过这里。
+ */
+@Component
+public class SeriesCache {
+
+  @Autowired
+  private StockDataMapper stockDataMapper;
+
+  @Autowired
+  private DataVersion dataVersion;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Value("${stock.engine.series.enabled:true}")
+  private boolean enabled;
+
+  @Value("${stock.engine.series.max-mb:256}")
+  private long maxMb;
+
+  private Cache<String, StockSeries> cache;
+
+  @PostConstruct
+  public void init() {
+    cache = Caffeine.newBuilder()
+        .maximumWeight(maxMb * 1024 * 1024)
+        .weigher((String code, StockSeries series) -> (int) Math.min(series.byteSize(), Integer.MAX_VALUE))
+        .recordStats()
+        .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, "series");
+  }
+
+  /**
+   * 是否缓存序列；关闭时 {@link #window} 每次查询数据库
+   */
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * 指定股票在窗口内的行，按传入的代码顺序、交易日升序排列
+   *
+   * @param codes       股票代码
+   * @param windowStart 窗口起始日
+   * @param windowEnd   窗口结束日
+   */
+  public List<StockBar> window(List<String> codes, LocalDate windowStart, LocalDate windowEnd) {
+    if (!enabled) {
+      return stockDataMapper.findByCodes(codes, windowStart, windowEnd);
+    }
+    Map<String, StockSeries> series = series(codes);
+    int from = (int) windowStart.toEpochDay();
+    int to = (int) windowEnd.toEpochDay() + 1;
+    List<StockBar> rows = new ArrayList<>();
+    for (String code : codes) {
+      StockSeries s = series.get(code);
+      if (s != null) {
+        s.appendBars(s.lowerBound(from), s.lowerBound(to), rows);
+      }
+    }
+    return rows;
+  }
+
+  /**
+   * 指定股票的完整序列，未缓存的一次查询加载；没有数据的股票不在结果中。缓存关闭时每次都查询
+   */
+  public Map<String, StockSeries> series(Collection<String> codes) {
+    if (!enabled) {
+      return group(stockDataMapper.findHistoryByCodes(codes));
+    }
+    Map<String, StockSeries> series = new HashMap<>(cache.getAllPresent(codes));
+    if (series.size() < codes.size()) {
+      List<String> missing = new ArrayList<>();
+      for (String code : codes) {
+        if (!series.containsKey(code)) {
+          missing.add(code);
+        }
+      }
+      series.putAll(load(missing));
+    }
+    return series;
+  }
+
+  /**
+   * 一次查询加载多只股票的全部历史；加载期间行情有变更时结果可能缺少变更的行，只返回不放入缓存
+   */
+  private Map<String, StockSeries> load(Collection<String> codes) {
+    long version = dataVersion.current();
+    Map<String, StockSeries> loaded = group(stockDataMapper.findHistoryByCodes(codes));
+    if (dataVersion.current() == version) {
+      cache.putAll(loaded);
+    }
+    return loaded;
+  }
+
+  /**
+   * 行情变更后把受影响交易日的行合并到已缓存的序列，未缓存的股票不加载；范围未知时全部失效。
+   * 需在均线计算之后、缓存预热之前执行
+   */
+  @EventListener
+  @Order(Ordered.HIGHEST_PRECEDENCE + 3)
+  public void onMarketDataChanged(MarketDataChangedEvent event) {
+    if (!enabled || cache.estimatedSize() == 0) {
+      return;
+    }
+    if (event.getDates().isEmpty()) {
+      cache.invalidateAll();
+      return;
+    }
+    Map<String, List<StockData>> byCode = new HashMap<>();
+    for (StockData row : stockDataMapper.findByTradeDates(event.getDates())) {
+      byCode.computeIfAbsent(row.getTsCode(), k -> new ArrayList<>()).add(row);
+    }
+    byCode.forEach((code, rows) -> cache.asMap().computeIfPresent(code, (k, s) -> s.merge(rows)));
+  }
+
+  /**
+   * 缓存规模和命中统计
+   */
+  public Map<String, Object> stats() {
+    CacheStats stats = cache.stats();
+    Map<String, Object> item = new LinkedHashMap<>();
+    item.put("enabled", enabled);
+    item.put("size", cache.estimatedSize());
+    item.put("weighted_size", cache.policy().eviction()
+        .map(eviction -> eviction.weightedSize().orElse(0L)).orElse(0L));
+    item.put("max_bytes", maxMb * 1024 * 1024);
+    item.put("hit_count", stats.hitCount());
+    item.put("miss_count", stats.missCount());
+    item.put("hit_rate", stats.hitRate());
+    item.put("eviction_count", stats.evictionCount());
+    return item;
+  }
+
+  /**
+   * 将按 ts_code、trade_date 排序的行按股票构建为序列
+   */
+  private static Map<String, StockSeries> group(List<StockData> rows) {
+    Map<String, StockSeries> result = new HashMap<>();
+    StockSeries.Builder current = null;
+    for (StockData row : rows) {
+      if (current == null || !current.getTsCode().equals(row.getTsCode())) {
+        if (current != null) {
+          result.put(current.getTsCode(), current.build());
+        }
+        current = new StockSeries.Builder(row.getTsCode(), 256);
+      }
+      current.add(row);
+    }
+    if (current != null) {
+      result.put(current.getTsCode(), current.build());
+    }
+    return result;
+  }
+}
@@ -0,0 +1,280 @@
+package com.example.stock.engine;
+
+import com.example.stock.entity.StockBar;
+import com.example.stock.entity.StockData;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 单只股票的列式日线数据
+ *
+ * 每列一个原始类型数组，按交易日升序排列；空值以 NaN 表示。
+ * 数值列均为 double：库中为4位小数，价格超过1024后 float 已不足以还原第4位，序列缓存的窗口数据会直接输出。
+ * 实例创建后不再修改，合并新数据时生成新实例。
+ */
+public final class StockSeries {
+
+  private final String tsCode;
+  private final int size;
+  // 交易日（epoch day）
+  final int[] dates;
+  final double[] open;
+  final double[] high;
+  final double[] low;
+  final double[] close;
+  final double[] preClose;
+  final double[] pctChg;
+  final double[] vol;
+  final double[] amount;
+  final double[] turnoverRate;
+  final double[] ma5;
+  final double[] ma10;
+  final double[] ma120;
+  final double[] ma250;
+
+  private StockSeries(Builder b) {
+    this.tsCode = b.tsCode;
+    this.size = b.size;
+    this.dates = Arrays.copyOf(b.dates, b.size);
+    this.open = Arrays.copyOf(b.open, b.size);
+    this.high = Arrays.copyOf(b.high, b.size);
+    this.low = Arrays.copyOf(b.low, b.size);
+    this.close = Arrays.copyOf(b.close, b.size);
+    this.preClose = Arrays.copyOf(b.preClose, b.size);
+    this.pctChg = Arrays.copyOf(b.pctChg, b.size);
+    this.vol = Arrays.copyOf(b.vol, b.size);
+    this.amount = Arrays.copyOf(b.amount, b.size);
+    this.turnoverRate = Arrays.copyOf(b.turnoverRate, b.size);
+    this.ma5 = Arrays.copyOf(b.ma5, b.size);
+    this.ma10 = Arrays.copyOf(b.ma10, b.size);
+    this.ma120 = Arrays.copyOf(b.ma120, b.size);
+    this.ma250 = Arrays.copyOf(b.ma250, b.size);
+  }
+
+  public String getTsCode() {
+    return tsCode;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /**
+   * 第i行的交易日（epoch day）
+   */
+  public int date(int i) {
+    return dates[i];
+  }
+
+  public double high(int i) {
+    return high[i];
+  }
+
+  public double low(int i) {
+    return low[i];
+  }
+
+  public double close(int i) {
+    return close[i];
+  }
+
+  /**
+   * 估算占用的堆内存字节数：每行 4 字节交易日、13 个 double 列，另加数组和对象头
+   */
+  public long byteSize() {
+    return 128L + 15 * 16 + (long) size * (4 + 13 * 8);
+  }
+
+  /**
+   * 指定交易日所在下标，该日无数据时返回-1
+   */
+  public int indexOf(int epochDay) {
+    int i = lowerBound(epochDay);
+    return i < size && dates[i] == epochDay ? i : -1;
+  }
+
+  /**
+   * 第一个不早于指定交易日的下标
+   */
+  public int lowerBound(int epochDay) {
+    int low = 0;
+    int high = size;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (dates[mid] < epochDay) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * 将[from, to)区间内的行追加到out
+   */
+  public void appendBars(int from, int to, List<StockBar> out) {
+    for (int i = from; i < to; i++) {
+      out.add(toBar(i));
+    }
+  }
+
+  /**
+   * 指定下标的行；值为库中4位小数最接近的 double，输出时按4位小数四舍五入即还原原值
+   */
+  public StockBar toBar(int i) {
+    StockBar bar = new StockBar();
+    bar.setTsCode(tsCode);
+    bar.setTradeDate(dates[i]);
+    bar.setOpen(open[i]);
+    bar.setHigh(high[i]);
+    bar.setLow(low[i]);
+    bar.setClose(close[i]);
+    bar.setPreClose(preClose[i]);
+    bar.setPctChg(pctChg[i]);
+    bar.setVol(vol[i]);
+    bar.setAmount(amount[i]);
+    bar.setTurnoverRate(turnoverRate[i]);
+    bar.setMa5(ma5[i]);
+    bar.setMa10(ma10[i]);
+    bar.setMa120(ma120[i]);
+    bar.setMa250(ma250[i]);
+    return bar;
+  }
+
+  /**
+   * 合并新的行（按交易日升序），同一交易日以新数据为准
+   */
+  public StockSeries merge(List<StockData> rows) {
+    Builder b = new Builder(tsCode, size + rows.size());
+    int i = 0;
+    int j = 0;
+    while (i < size || j < rows.size()) {
+      int next = j < rows.size() ? (int) rows.get(j).getTradeDate().toEpochDay() : Integer.MAX_VALUE;
+      if (i < size && dates[i] < next) {
+        b.copyFrom(this, i++);
+      } else {
+        if (i < size && dates[i] == next) {
+          i++;
+        }
+        b.add(rows.get(j++));
+      }
+    }
+    return b.build();
+  }
+
+  private static double toDouble(BigDecimal value) {
+    return value == null ? Double.NaN : value.doubleValue();
+  }
+
+  /**
+   * 按交易日升序逐行追加构建
+   */
+  public static final class Builder {
+    private final String tsCode;
+    private int size;
+    private int[] dates;
+    private double[] open;
+    private double[] high;
+    private double[] low;
+    private double[] close;
+    private double[] preClose;
+    private double[] pctChg;
+    private double[] vol;
+    private double[] amount;
+    private double[] turnoverRate;
+    private double[] ma5;
+    private double[] ma10;
+    private double[] ma120;
+    private double[] ma250;
+
+    public Builder(String tsCode, int capacity) {
+      this.tsCode = tsCode;
+      int n = Math.max(capacity, 16);
+      dates = new int[n];
+      open = new double[n];
+      high = new double[n];
+      low = new double[n];
+      close = new double[n];
+      preClose = new double[n];
+      pctChg = new double[n];
+      vol = new double[n];
+      amount = new double[n];
+      turnoverRate = new double[n];
+      ma5 = new double[n];
+      ma10 = new double[n];
+      ma120 = new double[n];
+      ma250 = new double[n];
+    }
+
+    public String getTsCode() {
+      return tsCode;
+    }
+
+    public Builder add(StockData row) {
+      ensureCapacity();
+      dates[size] = (int) row.getTradeDate().toEpochDay();
+      open[size] = toDouble(row.getOpen());
+      high[size] = toDouble(row.getHigh());
+      low[size] = toDouble(row.getLow());
+      close[size] = toDouble(row.getClose());
+      preClose[size] = toDouble(row.getPreClose());
+      pctChg[size] = toDouble(row.getPctChg());
+      vol[size] = toDouble(row.getVol());
+      amount[size] = toDouble(row.getAmount());
+      turnoverRate[size] = toDouble(row.getTurnoverRate());
+      ma5[size] = toDouble(row.getMa5());
+      ma10[size] = toDouble(row.getMa10());
+      ma120[size] = toDouble(row.getMa120());
+      ma250[size] = toDouble(row.getMa250());
+      size++;
+      return this;
+    }
+
+    private void copyFrom(StockSeries s, int i) {
+      ensureCapacity();
+      dates[size] = s.dates[i];
+      open[size] = s.open[i];
+      high[size] = s.high[i];
+      low[size] = s.low[i];
+      close[size] = s.close[i];
+      preClose[size] = s.preClose[i];
+      pctChg[size] = s.pctChg[i];
+      vol[size] = s.vol[i];
+      amount[size] = s.amount[i];
+      turnoverRate[size] = s.turnoverRate[i];
+      ma5[size] = s.ma5[i];
+      ma10[size] = s.ma10[i];
+      ma120[size] = s.ma120[i];
+      ma250[size] = s.ma250[i];
+      size++;
+    }
+
+    private void ensureCapacity() {
+      if (size < dates.length) {
+        return;
+      }
+      int n = dates.length * 2;
+      dates = Arrays.copyOf(dates, n);
+      open = Arrays.copyOf(open, n);
+      high = Arrays.copyOf(high, n);
+      low = Arrays.copyOf(low, n);
+      close = Arrays.copyOf(close, n);
+      preClose = Arrays.copyOf(preClose, n);
+      pctChg = Arrays.copyOf(pctChg, n);
+      vol = Arrays.copyOf(vol, n);
+      amount = Arrays.copyOf(amount, n);
+      turnoverRate = Arrays.copyOf(turnoverRate, n);
+      ma5 = Arrays.copyOf(ma5, n);
+      ma10 = Arrays.copyOf(ma10, n);
+      ma120 = Arrays.copyOf(ma120, n);
+      ma250 = Arrays.copyOf(ma250, n);
+    }
+
+    public StockSeries build() {
+      return new StockSeries(this);
+    }
+  }
+}
@@ -0,0 +1,106 @@
+package com.example.stock.entity;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * 只读路径使用的日线行：数值列为 double（空值为 NaN），交易日为 epoch day
+ *
+ * 筛选查询由 stockBarMap 经 {@link com.example.stock.mapper.type.NanDoubleTypeHandler}
+ * 直接从结果集解码，每行不再创建13个 BigDecimal；输出 JSON 时按列的固定小数位格式化。
+ * 写入和均线计算仍使用 {@link StockData}，保留数据库中的精确小数。
+ */
+@Data
+public class StockBar {
+
+  // 数值列的个数
+  public static final int NUMERIC_COUNT = 13;
+
+  private String tsCode;
+  private int tradeDate;
+  private double open = Double.NaN;
+  private double high = Double.NaN;
+  private double low = Double.NaN;
+  private double close = Double.NaN;
+  private double preClose = Double.NaN;
+  private double pctChg = Double.NaN;
+  private double vol = Double.NaN;
+  private double amount = Double.NaN;
+  private double turnoverRate = Double.NaN;
+  private double ma5 = Double.NaN; // 5日均线
+  private double ma10 = Double.NaN; // 10日均线
+  private double ma120 = Double.NaN; // 半年线
+  private double ma250 = Double.NaN; // 年线
+
+  /**
+   * 按列序号读取数值：0 open ... 12 ma250，与 grid_data 中 open 之后的列顺序一致
+   */
+  public double number(int column) {
+    switch (column) {
+      case 0:
+        return open;
+      case 1:
+        return high;
+      case 2:
+        return low;
+      case 3:
+        return close;
+      case 4:
+        return preClose;
+      case 5:
+        return pctChg;
+      case 6:
+        return vol;
+      case 7:
+        return amount;
+      case 8:
+        return turnoverRate;
+      case 9:
+        return ma5;
+      case 10:
+        return ma10;
+      case 11:
+        return ma120;
+      case 12:
+        return ma250;
+      default:
+        throw new IndexOutOfBoundsException("列序号超出范围: " + column);
+    }
+  }
+
+  /**
+   * 交易日
+   */
+  public LocalDate tradeLocalDate() {
+    return LocalDate.ofEpochDay(tradeDate);
+  }
+
+  /**
+   * 由实体对象转换，用于合成数据等非查询来源
+   */
+  public static StockBar of(StockData row) {
+    StockBar bar = new StockBar();
+    bar.setTsCode(row.getTsCode());
+    bar.setTradeDate((int) row.getTradeDate().toEpochDay());
+    bar.setOpen(toDouble(row.getOpen()));
+    bar.setHigh(toDouble(row.getHigh()));
+    bar.setLow(toDouble(row.getLow()));
+    bar.setClose(toDouble(row.getClose()));
+    bar.setPreClose(toDouble(row.getPreClose()));
+    bar.setPctChg(toDouble(row.getPctChg()));
+    bar.setVol(toDouble(row.getVol()));
+    bar.setAmount(toDouble(row.getAmount()));
+    bar.setTurnoverRate(toDouble(row.getTurnoverRate()));
+    bar.setMa5(toDouble(row.getMa5()));
+    bar.setMa10(toDouble(row.getMa10()));
+    bar.setMa120(toDouble(row.getMa120()));
+    bar.setMa250(toDouble(row.getMa250()));
+    return bar;
+  }
+
+  private static double toDouble(BigDecimal value) {
+    return value == null ? Double.NaN : value.doubleValue();
+  }
+}
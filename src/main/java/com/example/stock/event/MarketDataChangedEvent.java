@@ -0,0 +1,27 @@
+package com.example.stock.event;
+
+import org.springframework.context.ApplicationEvent;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * 行情数据变更事件
+ *
+ * 有新的或修订的日线数据入库后发布，dates 为受影响的交易日，
+ * 为空表示无法确定范围，监听方应整体重建。
+ */
+public class MarketDataChangedEvent extends ApplicationEvent {
+
+  private final Set<LocalDate> dates;
+
+  public MarketDataChangedEvent(Object source, Set<LocalDate> dates) {
+    super(source);
+    this.dates = dates == null ? Collections.emptySet() : Collections.unmodifiableSet(dates);
+  }
+
+  public Set<LocalDate> getDates() {
+    return dates;
+  }
+}
@@ -0,0 +1,306 @@
+package com.example.stock.indicator;
+
+import com.example.stock.dto.IndicatorColumns;
+import com.example.stock.dto.StockResponse;
+import com.example.stock.engine.SeriesCache;
+import com.example.stock.engine.StockSeries;
+import com.example.stock.entity.StockBar;
+import com.example.stock.service.DataVersion;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 按需计算的技术指标（MACD、RSI、BOLL、KDJ、ATR）
+ *
+ * 指标在 {@link SeriesCache} 中每只股票的完整日线上计算，不受请求窗口影响，最早 lookback 行作为预热不输出；
+ * 结果按 (ts_code, 指标及参数, 数据版本) 缓存，同一只股票的不同页面、交易日和周期共用。
+ * 当前页的股票并行计算，之后按每行的交易日取值：周线、月线取周期最后一个交易日的日线指标，
+ * 按 maxPoints 选出的行取各自交易日的值。
+ * 计算只占用CPU，在独立的计算线程池中执行，不与数据库查询争用 {@code QueryExecutor}。
+ */
+@Component
+public class IndicatorEngine {
+
+  @Autowired
+  private SeriesCache seriesCache;
+
+  @Autowired
+  private DataVersion dataVersion;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Value("${stock.indicator.max-count:8}")
+  private int maxCount;
+
+  @Value("${stock.indicator.memo-mb:64}")
+  private long memoMb;
+
+  // 默认为CPU核数
+  @Value("${stock.indicator.parallelism:0}")
+  private int parallelism;
+
+  @Value("${stock.indicator.queue-capacity:256}")
+  private int queueCapacity;
+
+  @Value("${stock.indicator.timeout-ms:5000}")
+  private long timeoutMs;
+
+  private Cache<MemoKey, Computed> memo;
+
+  private ThreadPoolExecutor executor;
+
+  @PostConstruct
+  public void init() {
+    memo = Caffeine.newBuilder()
+        .maximumWeight(memoMb * 1024 * 1024)
+        .weigher((MemoKey key, Computed value) -> value.byteSize())
+        .recordStats()
+        .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, memo, "indicators");
+
+    int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+    AtomicInteger sequence = new AtomicInteger();
+    executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+        new ArrayBlockingQueue<>(queueCapacity), r -> {
+          Thread t = new Thread(r, "indicator-" + sequence.incrementAndGet());
+          t.setDaemon(true);
+          return t;
+        }, new ThreadPoolExecutor.CallerRunsPolicy());
+    executor.allowCoreThreadTimeOut(true);
+    // 前缀 executor，name=indicator
+    new ExecutorServiceMetrics(executor, "indicator", Tags.empty()).bindTo(meterRegistry);
+  }
+
+  @PreDestroy
+  public void stop() {
+    executor.shutdownNow();
+  }
+
+  /**
+   * 解析 indicators 参数，为空时返回null；查询之前调用以便尽早返回400
+   */
+  public List<IndicatorSpec> parse(String indicators) {
+    if (indicators == null || indicators.trim().isEmpty()) {
+      return null;
+    }
+    return IndicatorSpec.parseList(indicators, maxCount);
+  }
+
+  /**
+   * 为响应中的每只股票附加指标列，返回新的响应对象，不修改传入的（可能已缓存的）响应
+   *
+   * @param response 筛选结果，可能已经降采样
+   * @param specs    {@link #parse} 的结果，为null时原样返回
+   */
+  public StockResponse attach(StockResponse response, List<IndicatorSpec> specs) {
+    if (specs == null) {
+      return response;
+    }
+    List<String> names = new ArrayList<>();
+    for (IndicatorSpec spec : specs) {
+      names.addAll(spec.outputNames());
+    }
+    List<List<StockBar>> gridData = response.getGrid_data() != null ? response.getGrid_data() : new ArrayList<>();
+
+    Set<String> codes = new LinkedHashSet<>();
+    for (List<StockBar> rows : gridData) {
+      if (!rows.isEmpty()) {
+        codes.add(rows.get(0).getTsCode());
+      }
+    }
+    // 先取版本再取序列，序列若在此之后更新，结果只会按旧版本缓存
+    long version = dataVersion.current();
+    Map<String, StockSeries> series = codes.isEmpty() ? Map.of() : seriesCache.series(codes);
+
+    // 每只股票一个任务并行计算，线程池排满时在当前线程执行
+    List<Future<IndicatorColumns>> futures = new ArrayList<>(gridData.size());
+    for (List<StockBar> rows : gridData) {
+      StockSeries s = rows.isEmpty() ? null : series.get(rows.get(0).getTsCode());
+      futures.add(executor.submit(() -> columns(rows, s, specs, names.size(), version)));
+    }
+    List<IndicatorColumns> indicatorData = join(futures);
+
+    StockResponse result = new StockResponse();
+    result.setColumn_names(response.getColumn_names());
+    result.setDate(response.getDate());
+    result.setGrid_data(response.getGrid_data());
+    result.setPage(response.getPage());
+    result.setStock_count(response.getStock_count());
+    result.setNext_cursor(response.getNext_cursor());
+    result.setIndicator_names(names);
+    result.setIndicator_data(indicatorData);
+    return result;
+  }
+
+  /**
+   * 按提交顺序等待每只股票的计算结果，所有任务共用一个截止时间，超时或失败时取消其余任务
+   *
+   * @throws IndicatorTimeoutException 等待超过 stock.indicator.timeout-ms
+   */
+  private List<IndicatorColumns> join(List<Future<IndicatorColumns>> futures) {
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+    List<IndicatorColumns> results = new ArrayList<>(futures.size());
+    try {
+      for (Future<IndicatorColumns> future : futures) {
+        results.add(future.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS));
+      }
+      return results;
+    } catch (TimeoutException e) {
+      throw new IndicatorTimeoutException("指标计算超时: " + timeoutMs + " ms", e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("指标计算被中断", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException("指标计算失败", e.getCause());
+    } finally {
+      if (results.size() < futures.size()) {
+        futures.forEach(f -> f.cancel(true));
+      }
+    }
+  }
+
+  /**
+   * 一只股票的全部指标列，按行的交易日从完整序列的计算结果中取值
+   */
+  private IndicatorColumns columns(List<StockBar> rows, StockSeries series, List<IndicatorSpec> specs,
+      int columnCount, long version) {
+    double[][] columns = new double[columnCount][rows.size()];
+    for (double[] column : columns) {
+      Arrays.fill(column, Double.NaN);
+    }
+    if (series == null) {
+      return new IndicatorColumns(columns);
+    }
+    Prices prices = null;
+    int c = 0;
+    for (IndicatorSpec spec : specs) {
+      MemoKey key = new MemoKey(series.getTsCode(), spec, version);
+      Computed computed = memo.getIfPresent(key);
+      if (computed == null) {
+        if (prices == null) {
+          prices = new Prices(series);
+        }
+        computed = new Computed(series, prices.compute(spec));
+        memo.put(key, computed);
+      }
+      for (int r = 0; r < rows.size(); r++) {
+        int i = computed.series.indexOf(rows.get(r).getTradeDate());
+        if (i >= 0) {
+          for (int o = 0; o < spec.outputCount(); o++) {
+            columns[c + o][r] = computed.values[o][i];
+          }
+        }
+      }
+      c += spec.outputCount();
+    }
+    return new IndicatorColumns(columns);
+  }
+
+  /**
+   * 一只股票去掉空值后的最高、最低、收盘价，index 为其在序列中的下标
+   */
+  private static final class Prices {
+    private final int seriesSize;
+    private final int size;
+    private final int[] index;
+    private final double[] high;
+    private final double[] low;
+    private final double[] close;
+
+    private Prices(StockSeries series) {
+      int n = series.size();
+      seriesSize = n;
+      index = new int[n];
+      high = new double[n];
+      low = new double[n];
+      close = new double[n];
+      int k = 0;
+      for (int i = 0; i < n; i++) {
+        double h = series.high(i);
+        double l = series.low(i);
+        double c = series.close(i);
+        if (Double.isNaN(h) || Double.isNaN(l) || Double.isNaN(c)) {
+          continue;
+        }
+        index[k] = i;
+        high[k] = h;
+        low[k] = l;
+        close[k] = c;
+        k++;
+      }
+      size = k;
+    }
+
+    /**
+     * 计算一个指标，结果按序列下标展开，空值行和预热不足的行为 NaN
+     */
+    double[][] compute(IndicatorSpec spec) {
+      double[][] compact = spec.compute(Arrays.copyOf(high, size), Arrays.copyOf(low, size),
+          Arrays.copyOf(close, size));
+      double[][] values = new double[compact.length][seriesSize];
+      for (int o = 0; o < compact.length; o++) {
+        Arrays.fill(values[o], Double.NaN);
+        for (int k = spec.getLookback(); k < size; k++) {
+          values[o][index[k]] = compact[o][k];
+        }
+      }
+      return values;
+    }
+  }
+
+  /**
+   * 一只股票一个指标在完整序列上的结果
+   */
+  private static final class Computed {
+    private final StockSeries series;
+    private final double[][] values;
+
+    private Computed(StockSeries series, double[][] values) {
+      this.series = series;
+      this.values = values;
+    }
+
+    int byteSize() {
+      long bytes = 64;
+      for (double[] v : values) {
+        bytes += 16 + 8L * v.length;
+      }
+      return (int) Math.min(bytes, Integer.MAX_VALUE);
+    }
+  }
+
+  @Data
+  private static final class MemoKey {
+    private final String tsCode;
+    private final IndicatorSpec spec;
+    private final long version;
+  }
+}
@@ -0,0 +1,228 @@
+package com.example.stock.indicator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 请求的一个技术指标及其参数
+ *
+ * indicators 参数为逗号分隔的指标，参数可省略：macd、macd(12,26,9)、rsi(6)、boll(20,2)、kdj(9,3,3)、atr(14)。
+ * 输出列名为“标签.输出”，默认参数时标签为指标名，如 macd.dif、boll.upper，否则带上参数，如 rsi(6).rsi。
+ */
+public final class IndicatorSpec {
+
+  // 周期参数的上限
+  private static final int MAX_PERIOD = 500;
+
+  /**
+   * 支持的指标
+   */
+  public enum Type {
+    MACD(new double[] {12, 26, 9}, "dif", "dea", "macd"),
+    RSI(new double[] {14}, "rsi"),
+    BOLL(new double[] {20, 2}, "mid", "upper", "lower"),
+    KDJ(new double[] {9, 3, 3}, "k", "d", "j"),
+    ATR(new double[] {14}, "atr");
+
+    private final double[] defaults;
+    private final String[] outputs;
+
+    Type(double[] defaults, String... outputs) {
+      this.defaults = defaults;
+      this.outputs = outputs;
+    }
+  }
+
+  private final Type type;
+  private final double[] params;
+  private final String label;
+
+  private IndicatorSpec(Type type, double[] params) {
+    this.type = type;
+    this.params = params;
+    String name = type.name().toLowerCase(Locale.ROOT);
+    if (Arrays.equals(params, type.defaults)) {
+      this.label = name;
+    } else {
+      StringBuilder sb = new StringBuilder(name).append('(');
+      for (int i = 0; i < params.length; i++) {
+        if (i > 0) {
+          sb.append(',');
+        }
+        double p = params[i];
+        sb.append(p == Math.rint(p) ? String.valueOf((long) p) : String.valueOf(p));
+      }
+      this.label = sb.append(')').toString();
+    }
+  }
+
+  /**
+   * 解析 indicators 参数，相同的指标只保留一个，格式错误时抛出 IllegalArgumentException
+   *
+   * @param value    参数值
+   * @param maxCount 最多允许的指标数
+   */
+  public static List<IndicatorSpec> parseList(String value, int maxCount) {
+    Map<String, IndicatorSpec> specs = new LinkedHashMap<>();
+    int depth = 0;
+    int start = 0;
+    for (int i = 0; i <= value.length(); i++) {
+      char c = i < value.length() ? value.charAt(i) : ',';
+      if (c == '(') {
+        depth++;
+      } else if (c == ')') {
+        depth--;
+      } else if (c == ',' && depth == 0) {
+        String item = value.substring(start, i).trim();
+        if (!item.isEmpty()) {
+          IndicatorSpec spec = parse(item);
+          specs.putIfAbsent(spec.label, spec);
+        }
+        start = i + 1;
+      }
+    }
+    if (depth != 0) {
+      throw new IllegalArgumentException("indicators 的括号不匹配: " + value);
+    }
+    if (specs.isEmpty()) {
+      throw new IllegalArgumentException("indicators 不能为空");
+    }
+    if (specs.size() > maxCount) {
+      throw new IllegalArgumentException("一次最多请求 " + maxCount + " 个指标");
+    }
+    return new ArrayList<>(specs.values());
+  }
+
+  private static IndicatorSpec parse(String item) {
+    int open = item.indexOf('(');
+    String name = (open < 0 ? item : item.substring(0, open)).trim();
+    Type type;
+    try {
+      type = Type.valueOf(name.toUpperCase(Locale.ROOT));
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("未知的指标: " + name + "，可选 macd、rsi、boll、kdj、atr");
+    }
+    double[] params = type.defaults.clone();
+    if (open >= 0) {
+      if (!item.endsWith(")")) {
+        throw new IllegalArgumentException("指标参数格式错误: " + item);
+      }
+      String[] parts = item.substring(open + 1, item.length() - 1).split(",", -1);
+      if (parts.length != params.length) {
+        throw new IllegalArgumentException(name + " 需要 " + params.length + " 个参数: " + item);
+      }
+      for (int i = 0; i < parts.length; i++) {
+        try {
+          params[i] = Double.parseDouble(parts[i].trim());
+        } catch (NumberFormatException e) {
+          throw new IllegalArgumentException("指标参数格式错误: " + item);
+        }
+      }
+    }
+    validate(type, params, item);
+    return new IndicatorSpec(type, params);
+  }
+
+  private static void validate(Type type, double[] params, String item) {
+    // 布林线的第二个参数为标准差倍数，其余参数都是周期
+    for (int i = 0; i < params.length; i++) {
+      double p = params[i];
+      boolean multiplier = type == Type.BOLL && i == 1;
+      boolean valid = multiplier
+          ? p > 0 && p <= 10
+          : p == Math.rint(p) && p >= 1 && p <= MAX_PERIOD;
+      if (!valid) {
+        throw new IllegalArgumentException("指标参数超出范围: " + item);
+      }
+    }
+    if (type == Type.MACD && params[0] >= params[1]) {
+      throw new IllegalArgumentException("MACD 的短周期应小于长周期: " + item);
+    }
+  }
+
+  public Type getType() {
+    return type;
+  }
+
+  public String getLabel() {
+    return label;
+  }
+
+  /**
+   * 第i个参数
+   */
+  public double param(int i) {
+    return params[i];
+  }
+
+  public int period(int i) {
+    return (int) params[i];
+  }
+
+  /**
+   * 输出列名
+   */
+  public List<String> outputNames() {
+    List<String> names = new ArrayList<>(type.outputs.length);
+    for (String output : type.outputs) {
+      names.add(label + "." + output);
+    }
+    return names;
+  }
+
+  public int outputCount() {
+    return type.outputs.length;
+  }
+
+  /**
+   * 预热所需的行数，每只股票最早的这些行不输出
+   */
+  public int getLookback() {
+    switch (type) {
+      case MACD:
+        return period(1) + period(2) - 2;
+      case RSI:
+        return period(0);
+      default:
+        return period(0) - 1;
+    }
+  }
+
+  /**
+   * 在不含空值的价格数组上计算，返回各输出列
+   */
+  public double[][] compute(double[] high, double[] low, double[] close) {
+    switch (type) {
+      case MACD:
+        return TechnicalIndicators.macd(close, period(0), period(1), period(2));
+      case RSI:
+        return TechnicalIndicators.rsi(close, period(0));
+      case BOLL:
+        return TechnicalIndicators.boll(close, period(0), param(1));
+      case KDJ:
+        return TechnicalIndicators.kdj(high, low, close, period(0), period(1), period(2));
+      default:
+        return TechnicalIndicators.atr(high, low, close, period(0));
+    }
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    return o instanceof IndicatorSpec && label.equals(((IndicatorSpec) o).label);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(label);
+  }
+
+  @Override
+  public String toString() {
+    return label;
+  }
+}
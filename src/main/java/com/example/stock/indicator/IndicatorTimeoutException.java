@@ -0,0 +1,11 @@
+package com.example.stock.indicator;
+
+/**
+ * 指标计算超过 stock.indicator.timeout-ms，通常是计算线程池已排满，客户端可稍后重试
+ */
+public class IndicatorTimeoutException extends RuntimeException {
+
+  public IndicatorTimeoutException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
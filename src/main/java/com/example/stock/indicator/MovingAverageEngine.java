@@ -0,0 +1,260 @@
+package com.example.stock.indicator;
+
+import com.example.stock.entity.StockData;
+import com.example.stock.event.MarketDataChangedEvent;
+import com.example.stock.mapper.StockDataMapper;
+import com.example.stock.service.TradingCalendar;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * 均线计算引擎
+ *
+ * 按 ts_code 顺序流式读取收盘价，每只股票用 {@link RollingMean} 以 O(1)/根K线计算
+ * ma5/ma10/ma120/ma250，多只股票并行计算，只把与库中不一致的行分批写回。
+ * 支持全量重算（修复历史）和新交易日入库后的增量计算。
+ */
+@Component
+public class MovingAverageEngine {
+
+  private static final Logger log = LoggerFactory.getLogger(MovingAverageEngine.class);
+
+  // 计算的均线周期，依次对应 ma5、ma10、ma120、ma250
+  public static final int[] PERIODS = {5, 10, 120, 250};
+
+  // 写回时保留的小数位，与库中 NUMERIC(20, 4) 的均线列一致
+  private static final int SCALE = 4;
+
+  @Autowired
+  private StockDataMapper stockDataMapper;
+
+  @Autowired
+  @Qualifier("batchSqlSessionTemplate")
+  private SqlSessionTemplate batchSqlSessionTemplate;
+
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+
+  @Autowired
+  private TradingCalendar tradingCalendar;
+
+  @Autowired
+  private ApplicationEventPublisher eventPublisher;
+
+  @Value("${stock.indicator.ma.parallelism:4}")
+  private int parallelism;
+
+  @Value("${stock.indicator.ma.batch-size:5000}")
+  private int batchSize;
+
+  @Value("${stock.indicator.ma.auto-update:true}")
+  private boolean autoUpdate;
+
+  /**
+   * 全量重算所有股票的均线，完成后发布全量变更事件
+   *
+   * @return 写回的行数
+   */
+  public synchronized int recomputeAll() {
+    long start = System.currentTimeMillis();
+    int updated = run(null, null, null);
+    log.info("均线全量重算完成: 更新 {} 行, 耗时 {} ms", updated, System.currentTimeMillis() - start);
+    if (updated > 0) {
+      eventPublisher.publishEvent(new MarketDataChangedEvent(this, Collections.emptySet()));
+    }
+    return updated;
+  }
+
+  /**
+   * 增量计算指定交易日的均线
+   *
+   * @param dates 新入库或修订的交易日
+   * @return 写回的行数
+   */
+  public synchronized int updateDates(Collection<LocalDate> dates) {
+    if (dates.isEmpty()) {
+      return 0;
+    }
+    long start = System.currentTimeMillis();
+    LocalDate first = Collections.min(dates);
+    LocalDate last = Collections.max(dates);
+    // 多回看一倍的交易日，使停牌过的股票也能凑满最长的均线窗口
+    LocalDate from = tradingCalendar.previousNth(first, 2 * PERIODS[PERIODS.length - 1]);
+    int[] targetDays = dates.stream().mapToInt(d -> (int) d.toEpochDay()).sorted().toArray();
+    int updated = run(from, last, targetDays);
+    log.info("均线增量计算完成: {} 个交易日, 更新 {} 行, 耗时 {} ms",
+        dates.size(), updated, System.currentTimeMillis() - start);
+    return updated;
+  }
+
+  /**
+   * 新交易日入库后自动增量计算，需在内存引擎等监听方读取数据之前完成
+   */
+  @EventListener
+  @Order(Ordered.HIGHEST_PRECEDENCE + 1)
+  public void onMarketDataChanged(MarketDataChangedEvent event) {
+    if (autoUpdate && !event.getDates().isEmpty()) {
+      updateDates(event.getDates());
+    }
+  }
+
+  /**
+   * 计算一段收盘价序列的均线
+   *
+   * @param closes 按交易日升序的收盘价，空值为 NaN
+   * @return [周期下标][行下标]，不足一个周期或收盘价为空时为 NaN
+   */
+  public static double[][] compute(double[] closes) {
+    double[][] result = new double[PERIODS.length][closes.length];
+    RollingMean[] means = newMeans();
+    for (int i = 0; i < closes.length; i++) {
+      for (int k = 0; k < means.length; k++) {
+        result[k][i] = Double.isNaN(closes[i]) ? Double.NaN : means[k].add(closes[i]);
+      }
+    }
+    return result;
+  }
+
+  private int run(LocalDate from, LocalDate to, int[] targetDays) {
+    ExecutorService pool = Executors.newFixedThreadPool(parallelism, r -> {
+      Thread t = new Thread(r, "ma-engine");
+      t.setDaemon(true);
+      return t;
+    });
+    // 限制待计算的股票数，避免读取快于计算时堆积在内存中
+    Semaphore permits = new Semaphore(parallelism * 2);
+    List<Future<Integer>> futures = new ArrayList<>();
+    try {
+      transactionTemplate.executeWithoutResult(status -> {
+        List<StockData> current = new ArrayList<>();
+        stockDataMapper.scanCloses(from, to, context -> {
+          StockData row = context.getResultObject();
+          if (!current.isEmpty() && !current.get(0).getTsCode().equals(row.getTsCode())) {
+            futures.add(submit(pool, permits, new ArrayList<>(current), targetDays));
+            current.clear();
+          }
+          current.add(row);
+        });
+        if (!current.isEmpty()) {
+          futures.add(submit(pool, permits, current, targetDays));
+        }
+      });
+
+      int updated = 0;
+      for (Future<Integer> future : futures) {
+        updated += future.get();
+      }
+      return updated;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("均线计算被中断", e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("均线计算失败", e.getCause());
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  private Future<Integer> submit(ExecutorService pool, Semaphore permits, List<StockData> rows, int[] targetDays) {
+    permits.acquireUninterruptibly();
+    return pool.submit(() -> {
+      try {
+        return computeAndWrite(rows, targetDays);
+      } finally {
+        permits.release();
+      }
+    });
+  }
+
+  /**
+   * 计算一只股票的均线并写回发生变化的行
+   */
+  private int computeAndWrite(List<StockData> rows, int[] targetDays) {
+    // 增量计算时回看窗口内凑不满周期的均线保留库中原值
+    boolean keepExisting = targetDays != null;
+    RollingMean[] means = newMeans();
+    double[] values = new double[PERIODS.length];
+    List<StockData> changed = new ArrayList<>();
+    for (StockData row : rows) {
+      double close = row.getClose() == null ? Double.NaN : row.getClose().doubleValue();
+      for (int k = 0; k < means.length; k++) {
+        values[k] = Double.isNaN(close) ? Double.NaN : means[k].add(close);
+      }
+      if (keepExisting && Arrays.binarySearch(targetDays, (int) row.getTradeDate().toEpochDay()) < 0) {
+        continue;
+      }
+      if (differs(row.getMa5(), values[0], keepExisting) || differs(row.getMa10(), values[1], keepExisting)
+          || differs(row.getMa120(), values[2], keepExisting) || differs(row.getMa250(), values[3], keepExisting)) {
+        row.setMa5(decimal(values[0]));
+        row.setMa10(decimal(values[1]));
+        row.setMa120(decimal(values[2]));
+        row.setMa250(decimal(values[3]));
+        changed.add(row);
+      }
+    }
+    write(changed, keepExisting);
+    return changed.size();
+  }
+
+  /**
+   * 分批写回，每批一个事务、一次 JDBC batch
+   */
+  private void write(List<StockData> rows, boolean keepExisting) {
+    StockDataMapper batchMapper = batchSqlSessionTemplate.getMapper(StockDataMapper.class);
+    for (int from = 0; from < rows.size(); from += batchSize) {
+      List<StockData> chunk = rows.subList(from, Math.min(rows.size(), from + batchSize));
+      transactionTemplate.executeWithoutResult(status -> {
+        for (StockData row : chunk) {
+          batchMapper.updateMovingAverages(row, keepExisting);
+        }
+      });
+    }
+  }
+
+  private static RollingMean[] newMeans() {
+    RollingMean[] means = new RollingMean[PERIODS.length];
+    for (int k = 0; k < PERIODS.length; k++) {
+      means[k] = new RollingMean(PERIODS[k]);
+    }
+    return means;
+  }
+
+  private static boolean differs(BigDecimal existing, double value, boolean keepExisting) {
+    if (Double.isNaN(value)) {
+      return existing != null && !keepExisting;
+    }
+    if (existing == null) {
+      return true;
+    }
+    // 按写回的小数位比较，舍入后相同的值不重复写回
+    return existing.setScale(SCALE, RoundingMode.HALF_UP).compareTo(decimal(value)) != 0;
+  }
+
+  private static BigDecimal decimal(double value) {
+    return Double.isNaN(value) ? null : new BigDecimal(value).setScale(SCALE, RoundingMode.HALF_UP);
+  }
+}
@@ -0,0 +1,66 @@
+package com.example.stock.indicator;
+
+/**
+ * 固定窗口的滚动均值
+ *
+ * 基于原始类型环形缓冲区，每次追加 O(1)；缓冲区每转一圈用窗口内的值重新求和一次，
+ * 摊还成本仍为 O(1)，同时避免长序列上累计的浮点误差。
+ */
+public final class RollingMean {
+
+  private final double[] window;
+  private int next;
+  private int count;
+  private double sum;
+
+  public RollingMean(int period) {
+    if (period <= 0) {
+      throw new IllegalArgumentException("period must be positive: " + period);
+    }
+    this.window = new double[period];
+  }
+
+  public int getPeriod() {
+    return window.length;
+  }
+
+  /**
+   * 追加一个值
+   *
+   * @param value 新值
+   * @return 窗口已满时返回均值，否则返回 NaN
+   */
+  public double add(double value) {
+    if (count == window.length) {
+      sum -= window[next];
+    } else {
+      count++;
+    }
+    window[next] = value;
+    sum += value;
+    next++;
+    if (next == window.length) {
+      next = 0;
+      // 每转一圈重新求和，消除累计误差
+      double exact = 0;
+      for (int i = 0; i < count; i++) {
+        exact += window[i];
+      }
+      sum = exact;
+    }
+    return count == window.length ? sum / window.length : Double.NaN;
+  }
+
+  /**
+   * 当前均值，窗口未满时返回 NaN
+   */
+  public double mean() {
+    return count == window.length ? sum / window.length : Double.NaN;
+  }
+
+  public void reset() {
+    next = 0;
+    count = 0;
+    sum = 0;
+  }
+}
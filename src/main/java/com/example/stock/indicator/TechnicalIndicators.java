@@ -0,0 +1,169 @@
+package com.example.stock.indicator;
+
+/**
+ * 技术指标的计算，公式与通达信的默认公式一致
+ *
+ * 输入为按交易日升序、不含空值的价格数组，每个指标一次顺序遍历，输出与输入等长。
+ * 指数平滑类指标以第一个值为初值，调用方按 {@link IndicatorSpec#getLookback()} 隐藏预热不足的前几行。
+ */
+public final class TechnicalIndicators {
+
+  private TechnicalIndicators() {
+  }
+
+  /**
+   * MACD：DIF = EMA(C,fast) - EMA(C,slow)，DEA = EMA(DIF,signal)，MACD = (DIF-DEA)*2
+   *
+   * @return {dif, dea, macd}
+   */
+  public static double[][] macd(double[] close, int fast, int slow, int signal) {
+    int n = close.length;
+    double[] dif = new double[n];
+    double[] dea = new double[n];
+    double[] hist = new double[n];
+    double fastAlpha = 2.0 / (fast + 1);
+    double slowAlpha = 2.0 / (slow + 1);
+    double signalAlpha = 2.0 / (signal + 1);
+    double emaFast = 0;
+    double emaSlow = 0;
+    double emaDif = 0;
+    for (int i = 0; i < n; i++) {
+      double c = close[i];
+      if (i == 0) {
+        emaFast = c;
+        emaSlow = c;
+      } else {
+        emaFast += fastAlpha * (c - emaFast);
+        emaSlow += slowAlpha * (c - emaSlow);
+      }
+      double d = emaFast - emaSlow;
+      emaDif = i == 0 ? d : emaDif + signalAlpha * (d - emaDif);
+      dif[i] = d;
+      dea[i] = emaDif;
+      hist[i] = (d - emaDif) * 2;
+    }
+    return new double[][] {dif, dea, hist};
+  }
+
+  /**
+   * RSI = SMA(MAX(C-LC,0),n,1) / SMA(ABS(C-LC),n,1) * 100，第一行没有前收盘，为 NaN
+   *
+   * @return {rsi}
+   */
+  public static double[][] rsi(double[] close, int period) {
+    int n = close.length;
+    double[] rsi = new double[n];
+    double up = 0;
+    double total = 0;
+    for (int i = 0; i < n; i++) {
+      if (i == 0) {
+        rsi[i] = Double.NaN;
+        continue;
+      }
+      double change = close[i] - close[i - 1];
+      if (i == 1) {
+        up = Math.max(change, 0);
+        total = Math.abs(change);
+      } else {
+        up += (Math.max(change, 0) - up) / period;
+        total += (Math.abs(change) - total) / period;
+      }
+      rsi[i] = total == 0 ? Double.NaN : up / total * 100;
+    }
+    return new double[][] {rsi};
+  }
+
+  /**
+   * 布林线：MID = MA(C,n)，UPPER/LOWER = MID ± k * STD(C,n)，STD 为样本标准差
+   *
+   * @return {mid, upper, lower}
+   */
+  public static double[][] boll(double[] close, int period, double k) {
+    int n = close.length;
+    double[] mid = new double[n];
+    double[] upper = new double[n];
+    double[] lower = new double[n];
+    RollingMean mean = new RollingMean(period);
+    RollingMean meanOfSquares = new RollingMean(period);
+    for (int i = 0; i < n; i++) {
+      double c = close[i];
+      double m = mean.add(c);
+      double sq = meanOfSquares.add(c * c);
+      if (Double.isNaN(m)) {
+        mid[i] = upper[i] = lower[i] = Double.NaN;
+        continue;
+      }
+      double std = period > 1 ? Math.sqrt(Math.max(0, (sq - m * m) * period / (period - 1))) : 0;
+      mid[i] = m;
+      upper[i] = m + k * std;
+      lower[i] = m - k * std;
+    }
+    return new double[][] {mid, upper, lower};
+  }
+
+  /**
+   * KDJ：RSV = (C-LLV(L,n)) / (HHV(H,n)-LLV(L,n)) * 100，K = SMA(RSV,m1,1)，D = SMA(K,m2,1)，J = 3K-2D；
+   * K、D 以50为初值，区间最高等于最低时 RSV 取50。区间极值用单调队列维护
+   *
+   * @return {k, d, j}
+   */
+  public static double[][] kdj(double[] high, double[] low, double[] close, int period, int m1, int m2) {
+    int n = close.length;
+    double[] kk = new double[n];
+    double[] dd = new double[n];
+    double[] jj = new double[n];
+    // 单调队列保存下标：maxQueue 对应 high 递减，minQueue 对应 low 递增
+    int[] maxQueue = new int[n];
+    int[] minQueue = new int[n];
+    int maxHead = 0;
+    int maxTail = 0;
+    int minHead = 0;
+    int minTail = 0;
+    double k = 50;
+    double d = 50;
+    for (int i = 0; i < n; i++) {
+      while (maxTail > maxHead && high[maxQueue[maxTail - 1]] <= high[i]) {
+        maxTail--;
+      }
+      maxQueue[maxTail++] = i;
+      while (minTail > minHead && low[minQueue[minTail - 1]] >= low[i]) {
+        minTail--;
+      }
+      minQueue[minTail++] = i;
+      if (maxQueue[maxHead] <= i - period) {
+        maxHead++;
+      }
+      if (minQueue[minHead] <= i - period) {
+        minHead++;
+      }
+      double hh = high[maxQueue[maxHead]];
+      double ll = low[minQueue[minHead]];
+      double rsv = hh > ll ? (close[i] - ll) / (hh - ll) * 100 : 50;
+      k += (rsv - k) / m1;
+      d += (k - d) / m2;
+      kk[i] = k;
+      dd[i] = d;
+      jj[i] = 3 * k - 2 * d;
+    }
+    return new double[][] {kk, dd, jj};
+  }
+
+  /**
+   * ATR = MA(MAX(H-L, ABS(LC-H), ABS(LC-L)), n)，第一行的真实波幅取 H-L
+   *
+   * @return {atr}
+   */
+  public static double[][] atr(double[] high, double[] low, double[] close, int period) {
+    int n = close.length;
+    double[] atr = new double[n];
+    RollingMean mean = new RollingMean(period);
+    for (int i = 0; i < n; i++) {
+      double tr = high[i] - low[i];
+      if (i > 0) {
+        tr = Math.max(tr, Math.max(Math.abs(close[i - 1] - high[i]), Math.abs(close[i - 1] - low[i])));
+      }
+      atr[i] = mean.add(tr);
+    }
+    return new double[][] {atr};
+  }
+}
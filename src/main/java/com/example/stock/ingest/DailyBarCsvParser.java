@@ -0,0 +1,370 @@
+package com.example.stock.ingest;
+
+import com.example.stock.entity.StockData;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 日线 CSV 解析器
+ *
+ * 按表头定位列（ts_code、trade_date、close 必需，其余可选，多余的列忽略），
+ * 逐字符校验后把字段原样转写为 COPY 所需的规范 CSV，不把数值解析为 BigDecimal。
+ * 表头中没有的列写为空值，合并到主表时只更新 {@link #updateColumns()} 中的列，已有的值保持不变。
+ * trade_date 支持 yyyyMMdd 和 yyyy-MM-dd 两种写法。非线程安全。
+ */
+public class DailyBarCsvParser {
+
+  // 写入的列，顺序与 COPY/INSERT 的列顺序一致
+  public static final String[] COLUMNS = {
+      "ts_code", "trade_date", "open", "high", "low", "close", "pre_close", "pct_chg", "vol", "amount",
+      "turnover_rate"};
+
+  private static final int TS_CODE = 0;
+  private static final int TRADE_DATE = 1;
+  private static final int CLOSE = 5;
+
+  // 每个目标列在源文件中的位置，-1 表示不存在
+  private final int[] sourceIndex = new int[COLUMNS.length];
+  private final int sourceColumns;
+  private int[] fieldStart = new int[32];
+  private int[] fieldEnd = new int[32];
+
+  // 上一行的交易日，同一文件通常只有一个或少数几个交易日
+  private String lastDateText;
+  private int lastEpochDay;
+
+  /**
+   * @param headerLine 表头行
+   * @throws IllegalArgumentException 缺少必需的列
+   */
+  public DailyBarCsvParser(String headerLine) {
+    if (headerLine == null) {
+      throw new IllegalArgumentException("CSV 为空");
+    }
+    // 去掉可能存在的 UTF-8 BOM
+    if (!headerLine.isEmpty() && headerLine.charAt(0) == '\uFEFF') {
+      headerLine = headerLine.substring(1);
+    }
+    String[] names = headerLine.split(",", -1);
+    sourceColumns = names.length;
+    Arrays.fill(sourceIndex, -1);
+    for (int i = 0; i < names.length; i++) {
+      String name = names[i].trim().toLowerCase(Locale.ROOT);
+      for (int c = 0; c < COLUMNS.length; c++) {
+        if (COLUMNS[c].equals(name)) {
+          sourceIndex[c] = i;
+        }
+      }
+    }
+    for (int required : new int[] {TS_CODE, TRADE_DATE, CLOSE}) {
+      if (sourceIndex[required] < 0) {
+        throw new IllegalArgumentException("CSV 缺少必需的列: " + COLUMNS[required]);
+      }
+    }
+  }
+
+  /**
+   * 表头中存在的非键列，按 {@link #COLUMNS} 的顺序，合并时只更新这些列
+   */
+  public List<String> updateColumns() {
+    List<String> columns = new ArrayList<>();
+    for (int c = TRADE_DATE + 1; c < COLUMNS.length; c++) {
+      if (sourceIndex[c] >= 0) {
+        columns.add(COLUMNS[c]);
+      }
+    }
+    return columns;
+  }
+
+  /**
+   * 校验一行并以规范 CSV（空字段表示 NULL）追加到输出缓冲
+   *
+   * @param line 数据行
+   * @param out  输出缓冲
+   * @return 该行的交易日（epoch day），行无效时返回 -1 且不写入任何内容
+   */
+  public int appendCopyRow(String line, ByteBuffer out) {
+    if (!split(line)) {
+      return -1;
+    }
+    int epochDay = epochDay(line);
+    if (epochDay < 0 || !validCode(line) || !validNumbers(line)) {
+      return -1;
+    }
+    for (int c = 0; c < COLUMNS.length; c++) {
+      if (c > 0) {
+        out.put((byte) ',');
+      }
+      if (c == TRADE_DATE) {
+        appendIsoDate(epochDay, out);
+      } else if (sourceIndex[c] >= 0) {
+        int f = sourceIndex[c];
+        out.putAscii(line, fieldStart[f], fieldEnd[f]);
+      }
+    }
+    out.put((byte) '\n');
+    return epochDay;
+  }
+
+  /**
+   * 校验一行并转换为实体对象，供不支持 COPY 的数据库批量写入使用
+   *
+   * @return 实体对象，行无效时返回null
+   */
+  public StockData toEntity(String line) {
+    if (!split(line)) {
+      return null;
+    }
+    int epochDay = epochDay(line);
+    if (epochDay < 0 || !validCode(line) || !validNumbers(line)) {
+      return null;
+    }
+    StockData row = new StockData();
+    row.setTsCode(text(line, TS_CODE));
+    row.setTradeDate(LocalDate.ofEpochDay(epochDay));
+    row.setOpen(decimal(line, 2));
+    row.setHigh(decimal(line, 3));
+    row.setLow(decimal(line, 4));
+    row.setClose(decimal(line, CLOSE));
+    row.setPreClose(decimal(line, 6));
+    row.setPctChg(decimal(line, 7));
+    row.setVol(decimal(line, 8));
+    row.setAmount(decimal(line, 9));
+    row.setTurnoverRate(decimal(line, 10));
+    return row;
+  }
+
+  /**
+   * 按逗号切分字段位置，字段数不足或含引号时视为无效
+   */
+  private boolean split(String line) {
+    if (line.isEmpty() || line.indexOf('"') >= 0) {
+      return false;
+    }
+    int count = 0;
+    int start = 0;
+    int length = line.length();
+    // 兼容 CRLF
+    if (line.charAt(length - 1) == '\r') {
+      length--;
+    }
+    for (int i = 0; i <= length; i++) {
+      if (i == length || line.charAt(i) == ',') {
+        if (count == fieldStart.length) {
+          fieldStart = Arrays.copyOf(fieldStart, count * 2);
+          fieldEnd = Arrays.copyOf(fieldEnd, count * 2);
+        }
+        fieldStart[count] = start;
+        fieldEnd[count] = i;
+        count++;
+        start = i + 1;
+      }
+    }
+    if (count < sourceColumns) {
+      return false;
+    }
+    // 去掉字段两端的空格
+    for (int f = 0; f < count; f++) {
+      while (fieldStart[f] < fieldEnd[f] && line.charAt(fieldStart[f]) == ' ') {
+        fieldStart[f]++;
+      }
+      while (fieldEnd[f] > fieldStart[f] && line.charAt(fieldEnd[f] - 1) == ' ') {
+        fieldEnd[f]--;
+      }
+    }
+    return true;
+  }
+
+  private boolean validCode(String line) {
+    int f = sourceIndex[TS_CODE];
+    if (fieldEnd[f] == fieldStart[f] || fieldEnd[f] - fieldStart[f] > 16) {
+      return false;
+    }
+    for (int i = fieldStart[f]; i < fieldEnd[f]; i++) {
+      char ch = line.charAt(i);
+      if (!(ch >= '0' && ch <= '9' || ch >= 'A' && ch <= 'Z' || ch >= 'a' && ch <= 'z' || ch == '.')) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean validNumbers(String line) {
+    for (int c = 2; c < COLUMNS.length; c++) {
+      int f = sourceIndex[c];
+      if (f < 0) {
+        continue;
+      }
+      if (fieldStart[f] == fieldEnd[f]) {
+        // close 不能为空，其余可为空
+        if (c == CLOSE) {
+          return false;
+        }
+        continue;
+      }
+      if (!isNumber(line, fieldStart[f], fieldEnd[f])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * 校验十进制数：可选符号、数字、至多一个小数点、可选指数
+   */
+  static boolean isNumber(String s, int start, int end) {
+    int i = start;
+    if (s.charAt(i) == '-' || s.charAt(i) == '+') {
+      i++;
+    }
+    boolean digits = false;
+    boolean dot = false;
+    for (; i < end; i++) {
+      char ch = s.charAt(i);
+      if (ch >= '0' && ch <= '9') {
+        digits = true;
+      } else if (ch == '.' && !dot) {
+        dot = true;
+      } else if ((ch == 'e' || ch == 'E') && digits) {
+        int j = i + 1;
+        if (j < end && (s.charAt(j) == '-' || s.charAt(j) == '+')) {
+          j++;
+        }
+        if (j == end) {
+          return false;
+        }
+        for (; j < end; j++) {
+          if (s.charAt(j) < '0' || s.charAt(j) > '9') {
+            return false;
+          }
+        }
+        return true;
+      } else {
+        return false;
+      }
+    }
+    return digits;
+  }
+
+  /**
+   * 解析交易日，无效时返回-1
+   */
+  private int epochDay(String line) {
+    int f = sourceIndex[TRADE_DATE];
+    int start = fieldStart[f];
+    int end = fieldEnd[f];
+    if (lastDateText != null && lastDateText.length() == end - start && line.startsWith(lastDateText, start)) {
+      return lastEpochDay;
+    }
+    int year;
+    int month;
+    int day;
+    if (end - start == 8) {
+      year = digits(line, start, start + 4);
+      month = digits(line, start + 4, start + 6);
+      day = digits(line, start + 6, start + 8);
+    } else if (end - start == 10 && line.charAt(start + 4) == '-' && line.charAt(start + 7) == '-') {
+      year = digits(line, start, start + 4);
+      month = digits(line, start + 5, start + 7);
+      day = digits(line, start + 8, start + 10);
+    } else {
+      return -1;
+    }
+    if (year < 0 || month < 1 || month > 12 || day < 1 || day > 31) {
+      return -1;
+    }
+    try {
+      lastEpochDay = (int) LocalDate.of(year, month, day).toEpochDay();
+    } catch (java.time.DateTimeException e) {
+      return -1;
+    }
+    lastDateText = line.substring(start, end);
+    return lastEpochDay;
+  }
+
+  private static int digits(String s, int start, int end) {
+    int value = 0;
+    for (int i = start; i < end; i++) {
+      char ch = s.charAt(i);
+      if (ch < '0' || ch > '9') {
+        return -1;
+      }
+      value = value * 10 + (ch - '0');
+    }
+    return value;
+  }
+
+  private static void appendIsoDate(int epochDay, ByteBuffer out) {
+    LocalDate date = LocalDate.ofEpochDay(epochDay);
+    appendPadded(date.getYear(), 4, out);
+    out.put((byte) '-');
+    appendPadded(date.getMonthValue(), 2, out);
+    out.put((byte) '-');
+    appendPadded(date.getDayOfMonth(), 2, out);
+  }
+
+  private static void appendPadded(int value, int width, ByteBuffer out) {
+    for (int p = width - 1; p >= 0; p--) {
+      int divisor = (int) Math.pow(10, p);
+      out.put((byte) ('0' + (value / divisor) % 10));
+    }
+  }
+
+  private String text(String line, int column) {
+    int f = sourceIndex[column];
+    return line.substring(fieldStart[f], fieldEnd[f]);
+  }
+
+  private BigDecimal decimal(String line, int column) {
+    int f = sourceIndex[column];
+    if (f < 0 || fieldStart[f] == fieldEnd[f]) {
+      return null;
+    }
+    return new BigDecimal(line.substring(fieldStart[f], fieldEnd[f]));
+  }
+
+  /**
+   * 可增长的字节缓冲，字段均已校验为 ASCII
+   */
+  public static final class ByteBuffer {
+    private byte[] bytes;
+    private int size;
+
+    public ByteBuffer(int capacity) {
+      bytes = new byte[capacity];
+    }
+
+    void put(byte b) {
+      if (size == bytes.length) {
+        bytes = Arrays.copyOf(bytes, bytes.length * 2);
+      }
+      bytes[size++] = b;
+    }
+
+    void putAscii(String s, int start, int end) {
+      if (size + end - start > bytes.length) {
+        bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + end - start));
+      }
+      for (int i = start; i < end; i++) {
+        bytes[size++] = (byte) s.charAt(i);
+      }
+    }
+
+    public byte[] array() {
+      return bytes;
+    }
+
+    public int size() {
+      return size;
+    }
+
+    public void clear() {
+      size = 0;
+    }
+  }
+}
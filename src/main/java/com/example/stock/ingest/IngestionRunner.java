@@ -0,0 +1,95 @@
+package com.example.stock.ingest;
+
+import com.example.stock.dto.IngestResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * 命令行入库
+ *
+ * 用法：java -jar stock.jar --ingest=/data/daily/20240102.csv[,...] --spring.main.web-application-type=none
+ * 参数可以是文件或目录（导入目录下的 .csv/.csv.gz，按文件名顺序），以 .gz 结尾的文件按 gzip 解压。
+ * 非 Web 模式下导入完成后退出进程。
+ */
+@Component
+public class IngestionRunner implements ApplicationRunner {
+
+  private static final Logger log = LoggerFactory.getLogger(IngestionRunner.class);
+
+  @Autowired
+  private IngestionService ingestionService;
+
+  @Autowired
+  private ApplicationContext applicationContext;
+
+  @Override
+  public void run(ApplicationArguments args) throws Exception {
+    List<String> paths = args.getOptionValues("ingest");
+    if (paths == null || paths.isEmpty()) {
+      return;
+    }
+    int exitCode = 0;
+    try {
+      for (String option : paths) {
+        for (String value : option.split(",")) {
+          exitCode |= ingestPath(Paths.get(value.trim()));
+        }
+      }
+    } finally {
+      // 调度线程是非守护线程，非 Web 模式下需要主动退出
+      if (!(applicationContext instanceof WebServerApplicationContext)) {
+        int code = exitCode;
+        System.exit(SpringApplication.exit(applicationContext, () -> code));
+      }
+    }
+  }
+
+  private int ingestPath(Path path) throws Exception {
+    if (Files.isDirectory(path)) {
+      int exitCode = 0;
+      try (Stream<Path> files = Files.list(path)) {
+        for (Path file : (Iterable<Path>) files.filter(IngestionRunner::isCsv).sorted()::iterator) {
+          exitCode |= ingestFile(file);
+        }
+      }
+      return exitCode;
+    }
+    return ingestFile(path);
+  }
+
+  private int ingestFile(Path file) throws Exception {
+    try (InputStream in = open(file)) {
+      IngestResult result = ingestionService.ingest(in);
+      log.info("{}: 写入 {} 行, 跳过 {} 行", file, result.getRows_written(), result.getRows_rejected());
+      return 0;
+    } catch (IllegalArgumentException e) {
+      log.error("{}: {}", file, e.getMessage());
+      return 1;
+    }
+  }
+
+  private static InputStream open(Path file) throws Exception {
+    InputStream in = Files.newInputStream(file);
+    return file.toString().endsWith(".gz") ? new GZIPInputStream(in, 1 << 16) : in;
+  }
+
+  private static boolean isCsv(Path file) {
+    String name = file.getFileName().toString();
+    return name.endsWith(".csv") || name.endsWith(".csv.gz");
+  }
+}
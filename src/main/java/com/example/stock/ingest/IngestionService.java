@@ -0,0 +1,268 @@
+package com.example.stock.ingest;
+
+import com.example.stock.dto.IngestResult;
+import com.example.stock.entity.StockData;
+import com.example.stock.event.MarketDataChangedEvent;
+import com.example.stock.mapper.StockDataMapper;
+import com.example.stock.service.DataVersion;
+import com.example.stock.service.TradingCalendar;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * 日线入库
+ *
+ * 流式读取 CSV，PostgreSQL 下以 COPY 写入事务级临时表后一条 INSERT ... ON CONFLICT 合并到主表；
+ * 其它数据库退化为多行批量 upsert。按 stock.ingest.chunk-rows 分事务提交，内存占用与文件大小无关。
+ * 已有的行只更新 CSV 表头中存在的列。
+ * 入库结束后（包括中途失败而之前的块已提交时）刷新交易日历并发布 {@link MarketDataChangedEvent}，
+ * 由监听方递增数据版本、增量计算均线和合并内存行情。
+ * 合并依赖 (ts_code, trade_date) 唯一索引，生产库应预先执行 db/ingest-key.sql。
+ */
+@Service
+public class IngestionService {
+
+  private static final Logger log = LoggerFactory.getLogger(IngestionService.class);
+
+  private static final String COPY_SQL = "COPY ingest_stage (" + String.join(", ", DailyBarCsvParser.COLUMNS)
+      + ") FROM STDIN WITH (FORMAT csv)";
+
+  // 攒够该字节数后写给 COPY 一次
+  private static final int FLUSH_BYTES = 1 << 16;
+
+  @Autowired
+  private DataSource dataSource;
+
+  @Autowired
+  private StockDataMapper stockDataMapper;
+
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+
+  @Autowired
+  private TradingCalendar tradingCalendar;
+
+  @Autowired
+  private DataVersion dataVersion;
+
+  @Autowired
+  private ApplicationEventPublisher eventPublisher;
+
+  @Value("${stock.ingest.chunk-rows:1000000}")
+  private int chunkRows;
+
+  @Value("${stock.ingest.batch-rows:1000}")
+  private int batchRows;
+
+  @Value("${stock.ingest.ensure-key:false}")
+  private boolean ensureKey;
+
+  private boolean keyEnsured;
+
+  /**
+   * 导入一个 CSV 文件，首行为表头
+   *
+   * @param input UTF-8 编码的 CSV 流，由调用方关闭
+   * @return 入库结果
+   * @throws IllegalArgumentException 表头缺少必需的列
+   */
+  public synchronized IngestResult ingest(InputStream input) throws IOException {
+    long start = System.currentTimeMillis();
+    BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), 1 << 16);
+    DailyBarCsvParser parser = new DailyBarCsvParser(reader.readLine());
+    if (ensureKey && !keyEnsured) {
+      stockDataMapper.ensureIngestKey();
+      keyEnsured = true;
+    }
+
+    Progress progress = new Progress();
+    List<String> columns = parser.updateColumns();
+    boolean copy = supportsCopy();
+    try {
+      if (copy) {
+        DailyBarCsvParser.ByteBuffer buffer = new DailyBarCsvParser.ByteBuffer(FLUSH_BYTES + 4096);
+        while (!transactionTemplate.execute(status -> copyChunk(reader, parser, buffer, columns, progress))) {
+          log.debug("日线入库进度: 已读取 {} 行", progress.read);
+        }
+      } else {
+        while (!batchChunk(reader, parser, columns, progress)) {
+          log.debug("日线入库进度: 已读取 {} 行", progress.read);
+        }
+      }
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    } finally {
+      // 之前的块已各自提交，即使后面的块失败也要通知，否则各级缓存和索引继续使用旧数据
+      if (progress.written > 0) {
+        Set<LocalDate> dates = progress.days.stream().map(LocalDate::ofEpochDay).collect(Collectors.toSet());
+        tradingCalendar.refresh();
+        eventPublisher.publishEvent(new MarketDataChangedEvent(this, dates));
+      }
+    }
+
+    IngestResult result = new IngestResult();
+    result.setMethod(copy ? "copy" : "batch");
+    result.setRows_read(progress.read);
+    result.setRows_rejected(progress.rejected);
+    result.setRows_written(progress.written);
+    result.setDates(progress.days.stream().map(d -> LocalDate.ofEpochDay(d).toString()).collect(Collectors.toList()));
+    result.setData_version(dataVersion.current());
+    result.setElapsed_ms(System.currentTimeMillis() - start);
+    log.info("日线入库完成: 方式 {}, 读取 {} 行, 跳过 {} 行, 写入 {} 行, {} 个交易日, 耗时 {} ms",
+        result.getMethod(), progress.read, progress.rejected, progress.written, progress.days.size(),
+        result.getElapsed_ms());
+    return result;
+  }
+
+  /**
+   * 在当前事务内 COPY 至多 chunkRows 行并合并到主表
+   *
+   * @return 是否已读到文件末尾
+   */
+  private boolean copyChunk(BufferedReader reader, DailyBarCsvParser parser,
+      DailyBarCsvParser.ByteBuffer buffer, List<String> columns, Progress progress) {
+    stockDataMapper.createIngestStage();
+    // 事务内取到的是 MyBatis 同一个连接，临时表对其可见
+    Connection conn = DataSourceUtils.getConnection(dataSource);
+    boolean eof = false;
+    try {
+      CopyIn copyIn = conn.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_SQL);
+      try {
+        buffer.clear();
+        int rows = 0;
+        while (rows < chunkRows) {
+          String line = reader.readLine();
+          if (line == null) {
+            eof = true;
+            break;
+          }
+          if (line.isEmpty()) {
+            continue;
+          }
+          progress.read++;
+          int day = parser.appendCopyRow(line, buffer);
+          if (day < 0) {
+            progress.rejected++;
+            continue;
+          }
+          progress.addDay(day);
+          rows++;
+          if (buffer.size() >= FLUSH_BYTES) {
+            copyIn.writeToCopy(buffer.array(), 0, buffer.size());
+            buffer.clear();
+          }
+        }
+        if (buffer.size() > 0) {
+          copyIn.writeToCopy(buffer.array(), 0, buffer.size());
+        }
+        copyIn.endCopy();
+      } finally {
+        if (copyIn.isActive()) {
+          copyIn.cancelCopy();
+        }
+      }
+    } catch (SQLException e) {
+      throw new IllegalStateException("COPY 写入临时表失败", e);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    progress.written += stockDataMapper.upsertFromIngestStage(columns);
+    return eof;
+  }
+
+  /**
+   * 读取至多 chunkRows 行，以 batchRows 行一条语句批量写入，整块一个事务
+   *
+   * @return 是否已读到文件末尾
+   */
+  private boolean batchChunk(BufferedReader reader, DailyBarCsvParser parser, List<String> columns,
+      Progress progress) throws IOException {
+    List<List<StockData>> batches = new ArrayList<>();
+    // 同一批内的重复键以最后出现的行为准
+    Map<String, StockData> batch = new LinkedHashMap<>();
+    boolean eof = false;
+    int rows = 0;
+    while (rows < chunkRows) {
+      String line = reader.readLine();
+      if (line == null) {
+        eof = true;
+        break;
+      }
+      if (line.isEmpty()) {
+        continue;
+      }
+      progress.read++;
+      StockData row = parser.toEntity(line);
+      if (row == null) {
+        progress.rejected++;
+        continue;
+      }
+      progress.addDay((int) row.getTradeDate().toEpochDay());
+      rows++;
+      batch.put(row.getTsCode() + '|' + row.getTradeDate(), row);
+      if (batch.size() >= batchRows) {
+        batches.add(new ArrayList<>(batch.values()));
+        batch.clear();
+      }
+    }
+    if (!batch.isEmpty()) {
+      batches.add(new ArrayList<>(batch.values()));
+    }
+    transactionTemplate.executeWithoutResult(status -> {
+      for (List<StockData> b : batches) {
+        progress.written += stockDataMapper.upsertDailyBars(b, columns);
+      }
+    });
+    return eof;
+  }
+
+  private boolean supportsCopy() {
+    try (Connection conn = dataSource.getConnection()) {
+      return conn.isWrapperFor(PGConnection.class);
+    } catch (SQLException e) {
+      throw new IllegalStateException("无法获取数据库连接", e);
+    }
+  }
+
+  private static final class Progress {
+    private long read;
+    private long rejected;
+    private long written;
+    private final Set<Integer> days = new TreeSet<>();
+    private int lastDay = -1;
+
+    // 同一交易日的行通常连续出现，只在变化时装箱
+    private void addDay(int day) {
+      if (day != lastDay) {
+        days.add(day);
+        lastDay = day;
+      }
+    }
+  }
+}
@@ -0,0 +1,281 @@
+package com.example.stock.live;
+
+import com.example.stock.dto.LatestDayDelta;
+import com.example.stock.engine.ScreenIndex;
+import com.example.stock.entity.StockBar;
+import com.example.stock.entity.StockData;
+import com.example.stock.event.MarketDataChangedEvent;
+import com.example.stock.mapper.StockDataMapper;
+import com.example.stock.service.DataVersion;
+import com.example.stock.service.Screen;
+import com.example.stock.service.TradingCalendar;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 最新交易日的实时推送（Server-Sent Events）
+ *
+ * 行情变更涉及最新交易日时，重新读取当日全部行并与上次推送时的基线比较，
+ * 只推送新增或数值变化的行、被删除的股票以及各筛选成员的进出，前端据此原地更新表格。
+ * 最新交易日切换（或首次建立基线）时没有可比较的基线，只推送一条 reset 事件（新的交易日和数据版本），
+ * 由客户端重新查询当前页，避免把当日全部行同时推给所有订阅者。
+ * 比较和推送在单独的线程中进行，不阻塞入库；推送完成前到达的多次变更合并为一次。
+ */
+@Component
+public class LatestDayFeed {
+
+  private static final Logger log = LoggerFactory.getLogger(LatestDayFeed.class);
+
+  // 推送成员变化的筛选，ALL 的变化已体现在 rows 和 removed 中
+  private static final Screen[] SCREENS = {Screen.LIMIT_UP, Screen.LIMIT_DOWN, Screen.HALF_YEAR_LINE,
+      Screen.YEAR_LINE};
+
+  @Autowired
+  private StockDataMapper stockDataMapper;
+
+  @Autowired
+  private TradingCalendar tradingCalendar;
+
+  @Autowired
+  private DataVersion dataVersion;
+
+  @Value("${stock.live.enabled:true}")
+  private boolean enabled;
+
+  @Value("${stock.live.max-subscribers:200}")
+  private int maxSubscribers;
+
+  @Value("${stock.live.timeout-ms:1800000}")
+  private long timeoutMs;
+
+  private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+  // 已有尚未执行的刷新时不再重复提交
+  private final AtomicBoolean pending = new AtomicBoolean();
+  private ExecutorService publisher;
+
+  // 上次推送时最新交易日的数据，只在推送线程中读写
+  private LocalDate baselineDate;
+  private Map<String, StockBar> baseline = Collections.emptyMap();
+  private Map<Screen, Set<String>> baselineMembers = Collections.emptyMap();
+
+  @PostConstruct
+  public void start() {
+    publisher = Executors.newSingleThreadExecutor(r -> {
+      Thread t = new Thread(r, "latest-day-feed");
+      t.setDaemon(true);
+      return t;
+    });
+  }
+
+  @PreDestroy
+  public void stop() {
+    publisher.shutdownNow();
+    for (SseEmitter emitter : emitters) {
+      emitter.complete();
+    }
+  }
+
+  /**
+   * 应用启动后建立基线
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void loadOnStartup() {
+    if (enabled) {
+      schedule();
+    }
+  }
+
+  /**
+   * 变更涉及最新交易日（或范围未知）时刷新；只修订历史交易日时不推送
+   */
+  @EventListener
+  public void onMarketDataChanged(MarketDataChangedEvent event) {
+    if (!enabled) {
+      return;
+    }
+    LocalDate latest = tradingCalendar.maxDate();
+    if (event.getDates().isEmpty() || latest == null || event.getDates().contains(latest)) {
+      schedule();
+    }
+  }
+
+  /**
+   * 新建一个订阅，连接数已满或推送关闭时返回null
+   */
+  public SseEmitter subscribe() {
+    if (!enabled || emitters.size() >= maxSubscribers) {
+      return null;
+    }
+    SseEmitter emitter = new SseEmitter(timeoutMs);
+    emitter.onCompletion(() -> emitters.remove(emitter));
+    emitter.onTimeout(() -> emitters.remove(emitter));
+    emitter.onError(e -> emitters.remove(emitter));
+    emitters.add(emitter);
+
+    // 立即发送当前最新交易日，使客户端确认连接已建立
+    LocalDate latest = tradingCalendar.maxDate();
+    Map<String, Object> ready = new LinkedHashMap<>();
+    ready.put("trade_date", latest != null ? latest.toString() : null);
+    ready.put("data_version", dataVersion.current());
+    send(emitter, SseEmitter.event().name("ready").data(ready));
+    return emitter;
+  }
+
+  /**
+   * 当前订阅数
+   */
+  public int subscribers() {
+    return emitters.size();
+  }
+
+  /**
+   * 定时发送注释行，防止代理因连接空闲将其关闭，同时清理已断开的订阅
+   */
+  @Scheduled(initialDelayString = "${stock.live.heartbeat-ms:15000}",
+      fixedDelayString = "${stock.live.heartbeat-ms:15000}")
+  public void heartbeat() {
+    for (SseEmitter emitter : emitters) {
+      send(emitter, SseEmitter.event().comment("ping"));
+    }
+  }
+
+  private void schedule() {
+    if (pending.compareAndSet(false, true)) {
+      publisher.execute(() -> {
+        pending.set(false);
+        try {
+          refresh();
+        } catch (RuntimeException e) {
+          log.warn("最新交易日增量计算失败", e);
+        }
+      });
+    }
+  }
+
+  /**
+   * 读取最新交易日的全部行，与基线比较后推送变化
+   */
+  private void refresh() {
+    LocalDate latest = tradingCalendar.maxDate();
+    if (latest == null) {
+      return;
+    }
+    List<StockData> data = stockDataMapper.findByTradeDates(Collections.singleton(latest));
+    Map<String, StockBar> current = new HashMap<>(data.size() * 2);
+    Map<Screen, Set<String>> members = new EnumMap<>(Screen.class);
+    for (Screen screen : SCREENS) {
+      members.put(screen, new HashSet<>());
+    }
+    for (StockData row : data) {
+      current.put(row.getTsCode(), StockBar.of(row));
+      for (Screen screen : SCREENS) {
+        if (ScreenIndex.matches(screen, row)) {
+          members.get(screen).add(row.getTsCode());
+        }
+      }
+    }
+
+    // 最新交易日切换时只通知客户端重新查询，下一次变更再与新的基线比较
+    LocalDate previousDate = baselineDate;
+    Map<String, StockBar> previous = baseline;
+    Map<Screen, Set<String>> previousMembers = baselineMembers;
+    baselineDate = latest;
+    baseline = current;
+    baselineMembers = members;
+    if (emitters.isEmpty()) {
+      return;
+    }
+    if (!latest.equals(previousDate)) {
+      Map<String, Object> reset = new LinkedHashMap<>();
+      reset.put("trade_date", latest.toString());
+      reset.put("previous_trade_date", previousDate != null ? previousDate.toString() : null);
+      reset.put("data_version", dataVersion.current());
+      for (SseEmitter emitter : emitters) {
+        send(emitter, SseEmitter.event().name("reset").id(String.valueOf(dataVersion.current())).data(reset));
+      }
+      log.info("最新交易日切换为 {}，通知 {} 个订阅重新查询", latest, emitters.size());
+      return;
+    }
+
+    List<StockBar> rows = new ArrayList<>();
+    for (StockBar bar : current.values()) {
+      if (!bar.equals(previous.get(bar.getTsCode()))) {
+        rows.add(bar);
+      }
+    }
+    rows.sort(Comparator.comparing(StockBar::getTsCode));
+    List<String> removed = difference(previous.keySet(), current.keySet());
+    Map<String, LatestDayDelta.Membership> screens = new LinkedHashMap<>();
+    for (Screen screen : SCREENS) {
+      Set<String> before = previousMembers.get(screen);
+      Set<String> after = members.get(screen);
+      LatestDayDelta.Membership membership = new LatestDayDelta.Membership();
+      membership.setAdded(difference(after, before));
+      membership.setRemoved(difference(before, after));
+      if (!membership.getAdded().isEmpty() || !membership.getRemoved().isEmpty()) {
+        screens.put(screen.name().toLowerCase(), membership);
+      }
+    }
+    if (rows.isEmpty() && removed.isEmpty() && screens.isEmpty()) {
+      return;
+    }
+
+    LatestDayDelta delta = new LatestDayDelta();
+    delta.setTrade_date(latest.toString());
+    delta.setData_version(dataVersion.current());
+    delta.setRows(rows);
+    delta.setRemoved(removed);
+    delta.setScreens(screens);
+    for (SseEmitter emitter : emitters) {
+      send(emitter, SseEmitter.event().name("delta").id(String.valueOf(delta.getData_version())).data(delta));
+    }
+    log.info("推送最新交易日 {} 增量: {} 行, 删除 {} 只, 订阅 {} 个", latest, rows.size(), removed.size(),
+        emitters.size());
+  }
+
+  private void send(SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+    try {
+      emitter.send(event);
+    } catch (IOException | IllegalStateException e) {
+      // 客户端已断开，容器会随后结束该异步请求
+      emitters.remove(emitter);
+    }
+  }
+
+  private static List<String> difference(Set<String> a, Set<String> b) {
+    List<String> result = new ArrayList<>();
+    for (String code : a) {
+      if (!b.contains(code)) {
+        result.add(code);
+      }
+    }
+    Collections.sort(result);
+    return result;
+  }
+}
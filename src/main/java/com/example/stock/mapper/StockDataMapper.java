@@ -1,35 +1,51 @@
 package com.example.stock.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.example.stock.engine.DayFingerprint;
+import com.example.stock.entity.StockBar;
 import com.example.stock.entity.StockData;
+import com.example.stock.service.Screen;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.session.ResultHandler;
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 @Mapper
 public interface StockDataMapper extends BaseMapper<StockData> {
 
-  List<StockData> findByDateRange(
+  List<StockBar> findByDateRange(
       @Param("tsCode") String tsCode,
       @Param("startDate") LocalDate startDate,
-      @Param("endDate") LocalDate endDate,
+      @Param("windowStart") LocalDate windowStart,
+      @Param("windowEnd") LocalDate windowEnd,
       @Param("pageSize") int pageSize,
-      @Param("offset") int offset);
+      @Param("offset") int offset,
+      @Param("afterCode") String afterCode,
+      @Param("afterPct") BigDecimal afterPct);
 
-  List<StockData> findLimitUp(
+  List<StockBar> findLimitUp(
       @Param("tsCode") String tsCode,
       @Param("startDate") LocalDate startDate,
-      @Param("endDate") LocalDate endDate,
+      @Param("windowStart") LocalDate windowStart,
+      @Param("windowEnd") LocalDate windowEnd,
       @Param("pageSize") int pageSize,
-      @Param("offset") int offset);
+      @Param("offset") int offset,
+      @Param("afterCode") String afterCode,
+      @Param("afterPct") BigDecimal afterPct);
 
-  List<StockData> findLimitDown(
+  List<StockBar> findLimitDown(
       @Param("tsCode") String tsCode,
       @Param("startDate") LocalDate startDate,
-      @Param("endDate") LocalDate endDate,
+      @Param("windowStart") LocalDate windowStart,
+      @Param("windowEnd") LocalDate windowEnd,
       @Param("pageSize") int pageSize,
-      @Param("offset") int offset);
+      @Param("offset") int offset,
+      @Param("afterCode") String afterCode,
+      @Param("afterPct") BigDecimal afterPct);
 
   /**
    * 获取最小日期
@@ -46,22 +62,11 @@ public interface StockDataMapper extends BaseMapper<StockData> {
   LocalDate findMaxDate();
 
   /**
-   * 查找指定日期之后的第N个交易日
-   * 
-   * @param date 基准日期
-   * @param n    向后偏移的交易日数量
-   * @return 第N个交易日的日期
-   */
-  LocalDate findNextNthTradeDate(@Param("date") LocalDate date, @Param("n") int n);
-
-  /**
-   * 查找指定日期之前的第N个交易日
+   * 获取全部交易日（升序去重）
    * 
-   * @param date 基准日期
-   * @param n    向前偏移的交易日数量
-   * @return 第N个交易日的日期
+   * @return 交易日列表
    */
-  LocalDate findPreviousNthTradeDate(@Param("date") LocalDate date, @Param("n") int n);
+  List<LocalDate> findAllTradeDates();
 
   Long countStocks(@Param("tsCode") String tsCode,
       @Param("startDate") LocalDate startDate,
@@ -69,13 +74,159 @@ public interface StockDataMapper extends BaseMapper<StockData> {
       @Param("isLimitUp") Boolean isLimitUp,
       @Param("isLimitDown") Boolean isLimitDown);
 
-  List<StockData> findHalfYearLine(@Param("tsCode") String tsCode, @Param("startDate") LocalDate startDate,
-      @Param("pageSize") int pageSize, @Param("offset") int offset);
+  List<StockBar> findHalfYearLine(@Param("tsCode") String tsCode, @Param("startDate") LocalDate startDate,
+      @Param("windowStart") LocalDate windowStart, @Param("windowEnd") LocalDate windowEnd,
+      @Param("pageSize") int pageSize, @Param("offset") int offset,
+      @Param("afterCode") String afterCode);
 
-  List<StockData> findYearLine(@Param("tsCode") String tsCode, @Param("startDate") LocalDate startDate,
-      @Param("pageSize") int pageSize, @Param("offset") int offset);
+  List<StockBar> findYearLine(@Param("tsCode") String tsCode, @Param("startDate") LocalDate startDate,
+      @Param("windowStart") LocalDate windowStart, @Param("windowEnd") LocalDate windowEnd,
+      @Param("pageSize") int pageSize, @Param("offset") int offset,
+      @Param("afterCode") String afterCode);
+
+  /**
+   * 按筛选的分页顺序取目标日一页股票代码，窗口内的行由 SeriesCache 切片
+   * 
+   * @param screen    筛选类型，涨跌停按 pct_chg 排序，其余按 ts_code 排序
+   * @param afterCode 键集分页游标中的代码，可为空
+   * @param afterPct  键集分页游标中的涨跌幅，只用于涨跌停
+   * @return 当前页的股票代码
+   */
+  List<String> findScreenCodes(@Param("screen") Screen screen, @Param("tsCode") String tsCode,
+      @Param("startDate") LocalDate startDate, @Param("pageSize") int pageSize, @Param("offset") int offset,
+      @Param("afterCode") String afterCode, @Param("afterPct") BigDecimal afterPct);
 
   Long countHalfYearLineStocks(@Param("tsCode") String tsCode, @Param("startDate") LocalDate startDate);
 
   Long countYearLineStocks(@Param("tsCode") String tsCode, @Param("startDate") LocalDate startDate);
-}
\ No newline at end of file
+
+  /**
+   * 按 ts_code、trade_date 顺序流式读取全表，供内存行情引擎加载
+   * 
+   * @param handler 逐行处理器
+   */
+  void scanAll(ResultHandler<StockData> handler);
+
+  /**
+   * 查询指定交易日的全部数据
+   * 
+   * @param dates 交易日集合
+   * @return 按 ts_code、trade_date 升序排列的数据
+   */
+  List<StockData> findByTradeDates(@Param("dates") Collection<LocalDate> dates);
+
+  /**
+   * 按 ts_code、trade_date 顺序流式读取计算均线所需的列（ts_code、trade_date、close 及现有均线）
+   * 
+   * @param startDate 起始日期，为空时不限
+   * @param endDate   结束日期，为空时不限
+   * @param handler   逐行处理器
+   */
+  void scanCloses(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate,
+      ResultHandler<StockData> handler);
+
+  /**
+   * 按 ts_code、trade_date 更新一行的均线
+   * 
+   * @param row          包含 ts_code、trade_date 及 ma5/ma10/ma120/ma250 的行
+   * @param keepExisting 为true时新值为空的列保留原值
+   */
+  void updateMovingAverages(@Param("row") StockData row, @Param("keepExisting") boolean keepExisting);
+
+  /**
+   * 获取全部股票代码（升序去重）
+   * 
+   * @return 股票代码列表
+   */
+  List<String> findAllTsCodes();
+
+  /**
+   * 流式读取判断筛选条件所需的列（ts_code、trade_date、close、pct_chg、ma120、ma250），不保证顺序
+   * 
+   * @param dates   交易日集合，为null时读取全表
+   * @param handler 逐行处理器
+   */
+  void scanScreenFlags(@Param("dates") Collection<LocalDate> dates, ResultHandler<StockData> handler);
+
+  /**
+   * 按交易日汇总的数据指纹，用于校验持久化的筛选位图
+   * 
+   * @param dates 交易日集合，为null时汇总全表
+   */
+  List<DayFingerprint> findDayFingerprints(@Param("dates") Collection<LocalDate> dates);
+
+  /**
+   * 查询指定股票在窗口内的数据
+   * 
+   * @param codes       股票代码
+   * @param windowStart 窗口起始日
+   * @param windowEnd   窗口结束日
+   * @return 按 ts_code、trade_date 升序排列的数据
+   */
+  List<StockBar> findByCodes(@Param("codes") Collection<String> codes,
+      @Param("windowStart") LocalDate windowStart, @Param("windowEnd") LocalDate windowEnd);
+
+  /**
+   * 查询指定股票的全部历史数据，供单只股票的序列缓存加载
+   *
+   * @param codes 股票代码
+   * @return 按 ts_code、trade_date 升序排列的数据
+   */
+  List<StockData> findHistoryByCodes(@Param("codes") Collection<String> codes);
+
+  /**
+   * 流式读取日期范围内的日线，调用方需在事务内使用并关闭游标
+   *
+   * @param start 起始日
+   * @param end   结束日
+   * @param codes 股票代码，为空时导出全部
+   * @return 按 ts_code、trade_date 升序的游标
+   */
+  Cursor<StockBar> exportBars(@Param("start") LocalDate start, @Param("end") LocalDate end,
+      @Param("codes") Collection<String> codes);
+
+  /**
+   * 创建 (ts_code, trade_date) 唯一索引，入库合并依赖该约束。生产库应预先执行 db/ingest-key.sql
+   */
+  void ensureIngestKey();
+
+  /**
+   * 创建事务级临时表 ingest_stage，供 COPY 写入
+   */
+  void createIngestStage();
+
+  /**
+   * 将 ingest_stage 中的行合并到主表
+   * 
+   * @param columns 已有行需要更新的列，来自 CSV 表头，其余列保持不变
+   * @return 新增或更新的行数
+   */
+  int upsertFromIngestStage(@Param("columns") List<String> columns);
+
+  /**
+   * 多行批量写入日线，按 (ts_code, trade_date) 覆盖已有数据
+   * 
+   * @param rows    不含重复键的行
+   * @param columns 已有行需要更新的列，来自 CSV 表头，其余列保持不变
+   * @return 新增或更新的行数
+   */
+  int upsertDailyBars(@Param("rows") List<StockData> rows, @Param("columns") List<String> columns);
+
+  /**
+   * 日线总行数
+   */
+  Long countDailyBars();
+
+  /**
+   * 清空日线表，仅供合成数据使用
+   */
+  void truncateDailyBars();
+
+  /**
+   * 多行批量写入日线（含均线），不处理重复键
+   * 
+   * @param rows 日线
+   * @return 写入的行数
+   */
+  int insertDailyBars(@Param("rows") List<StockData> rows);
+}
@@ -0,0 +1,40 @@
+package com.example.stock.mapper.type;
+
+import org.apache.ibatis.type.JdbcType;
+import org.apache.ibatis.type.TypeHandler;
+
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+
+/**
+ * DATE 列与 epoch day 整数互转
+ */
+public class EpochDayTypeHandler implements TypeHandler<Integer> {
+
+  @Override
+  public void setParameter(PreparedStatement ps, int i, Integer parameter, JdbcType jdbcType) throws SQLException {
+    ps.setObject(i, parameter == null ? null : LocalDate.ofEpochDay(parameter));
+  }
+
+  @Override
+  public Integer getResult(ResultSet rs, String columnName) throws SQLException {
+    return toEpochDay(rs.getObject(columnName, LocalDate.class));
+  }
+
+  @Override
+  public Integer getResult(ResultSet rs, int columnIndex) throws SQLException {
+    return toEpochDay(rs.getObject(columnIndex, LocalDate.class));
+  }
+
+  @Override
+  public Integer getResult(CallableStatement cs, int columnIndex) throws SQLException {
+    return toEpochDay(cs.getObject(columnIndex, LocalDate.class));
+  }
+
+  private static Integer toEpochDay(LocalDate date) {
+    return date == null ? null : (int) date.toEpochDay();
+  }
+}
@@ -0,0 +1,45 @@
+package com.example.stock.mapper.type;
+
+import org.apache.ibatis.type.JdbcType;
+import org.apache.ibatis.type.TypeHandler;
+
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+
+/**
+ * NUMERIC 列直接以 getDouble 读取，空值映射为 NaN，在 resultMap 中按列显式指定
+ *
+ * 不经过 BigDecimal；返回 NaN 而不是 null，MyBatis 才会调用原始类型 double 的 setter。
+ */
+public class NanDoubleTypeHandler implements TypeHandler<Double> {
+
+  @Override
+  public void setParameter(PreparedStatement ps, int i, Double parameter, JdbcType jdbcType) throws SQLException {
+    if (parameter == null || parameter.isNaN()) {
+      ps.setNull(i, Types.NUMERIC);
+    } else {
+      ps.setDouble(i, parameter);
+    }
+  }
+
+  @Override
+  public Double getResult(ResultSet rs, String columnName) throws SQLException {
+    double value = rs.getDouble(columnName);
+    return rs.wasNull() ? Double.NaN : value;
+  }
+
+  @Override
+  public Double getResult(ResultSet rs, int columnIndex) throws SQLException {
+    double value = rs.getDouble(columnIndex);
+    return rs.wasNull() ? Double.NaN : value;
+  }
+
+  @Override
+  public Double getResult(CallableStatement cs, int columnIndex) throws SQLException {
+    double value = cs.getDouble(columnIndex);
+    return cs.wasNull() ? Double.NaN : value;
+  }
+}
@@ -0,0 +1,112 @@
+package com.example.stock.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按语句 id 记录 Mapper 的执行耗时和返回行数
+ *
+ * 替代 StdOutImpl 逐条打印SQL，指标名为 mybatis.statement（耗时）和
+ * mybatis.statement.rows（查询返回行数或更新影响行数），statement 标签取
+ * "Mapper名.方法名"。通过 ResultHandler 流式读取的语句只记录耗时。
+ */
+@Component
+@Intercepts({
+    @Signature(type = Executor.class, method = "query",
+        args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+    @Signature(type = Executor.class, method = "query",
+        args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class, CacheKey.class,
+            BoundSql.class}),
+    @Signature(type = Executor.class, method = "queryCursor",
+        args = {MappedStatement.class, Object.class, RowBounds.class}),
+    @Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class})
+})
+public class MapperMetricsInterceptor implements Interceptor {
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  // 每条语句的指标只创建一次
+  private final Map<String, StatementMeters> meters = new ConcurrentHashMap<>();
+
+  @Override
+  public Object intercept(Invocation invocation) throws Throwable {
+    MappedStatement ms = (MappedStatement) invocation.getArgs()[0];
+    StatementMeters m = meters.computeIfAbsent(ms.getId(), this::register);
+    long start = System.nanoTime();
+    Object result;
+    try {
+      result = invocation.proceed();
+    } catch (Throwable e) {
+      m.failed.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+      throw e;
+    }
+    m.succeeded.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    boolean streamed = invocation.getArgs().length > 3 && invocation.getArgs()[3] != Executor.NO_RESULT_HANDLER;
+    if (result instanceof List && !streamed) {
+      m.rows.record(((List<?>) result).size());
+    } else if (result instanceof Integer && (Integer) result >= 0) {
+      // 批量执行器返回的是占位的负数，不计入
+      m.rows.record((Integer) result);
+    }
+    return result;
+  }
+
+  private StatementMeters register(String id) {
+    String statement = shortId(id);
+    return new StatementMeters(
+        timer(statement, "success"),
+        timer(statement, "error"),
+        DistributionSummary.builder("mybatis.statement.rows")
+            .description("查询返回或更新影响的行数")
+            .tag("statement", statement)
+            .register(meterRegistry));
+  }
+
+  /**
+   * com.example.stock.mapper.StockDataMapper.findLimitUp -> StockDataMapper.findLimitUp
+   */
+  static String shortId(String id) {
+    int method = id.lastIndexOf('.');
+    int type = method > 0 ? id.lastIndexOf('.', method - 1) : -1;
+    return id.substring(type + 1);
+  }
+
+  private Timer timer(String statement, String outcome) {
+    return Timer.builder("mybatis.statement")
+        .description("Mapper 语句执行耗时")
+        .tag("statement", statement)
+        .tag("outcome", outcome)
+        .register(meterRegistry);
+  }
+
+  private static final class StatementMeters {
+    private final Timer succeeded;
+    private final Timer failed;
+    private final DistributionSummary rows;
+
+    private StatementMeters(Timer succeeded, Timer failed, DistributionSummary rows) {
+      this.succeeded = succeeded;
+      this.failed = failed;
+      this.rows = rows;
+    }
+  }
+}
@@ -0,0 +1,115 @@
+package com.example.stock.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+
+/**
+ * 记录 /api/stock 接口的响应体大小（压缩前），指标名 http.server.response.size，
+ * 按接口路径和输出格式区分，用于观察分页和格式选择对传输量的影响
+ */
+@Component
+public class ResponseSizeFilter extends OncePerRequestFilter {
+
+  private static final String PREFIX = "/api/stock/";
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    return !request.getRequestURI().startsWith(PREFIX);
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+      throws ServletException, IOException {
+    CountingResponse counting = new CountingResponse(response);
+    chain.doFilter(request, counting);
+    if (request.isAsyncStarted()) {
+      return;
+    }
+    Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+    DistributionSummary.builder("http.server.response.size")
+        .description("响应体字节数（压缩前）")
+        .baseUnit("bytes")
+        .tag("uri", pattern != null ? pattern.toString() : "UNKNOWN")
+        .tag("format", format(response.getContentType()))
+        .register(meterRegistry)
+        .record(counting.count);
+  }
+
+  private static String format(String contentType) {
+    if (contentType == null) {
+      return "none";
+    }
+    MediaType type = MediaType.parseMediaType(contentType);
+    return type.getSubtype();
+  }
+
+  /**
+   * 统计写入输出流的字节数
+   */
+  private static final class CountingResponse extends HttpServletResponseWrapper {
+    private long count;
+    private ServletOutputStream stream;
+
+    private CountingResponse(HttpServletResponse response) {
+      super(response);
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+      if (stream == null) {
+        ServletOutputStream delegate = super.getOutputStream();
+        stream = new ServletOutputStream() {
+          @Override
+          public void write(int b) throws IOException {
+            delegate.write(b);
+            count++;
+          }
+
+          @Override
+          public void write(byte[] b, int off, int len) throws IOException {
+            delegate.write(b, off, len);
+            count += len;
+          }
+
+          @Override
+          public void flush() throws IOException {
+            delegate.flush();
+          }
+
+          @Override
+          public void close() throws IOException {
+            delegate.close();
+          }
+
+          @Override
+          public boolean isReady() {
+            return delegate.isReady();
+          }
+
+          @Override
+          public void setWriteListener(WriteListener listener) {
+            delegate.setWriteListener(listener);
+          }
+        };
+      }
+      return stream;
+    }
+  }
+}
@@ -0,0 +1,92 @@
+package com.example.stock.metrics;
+
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.ParameterMode;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 捕获超过 stock.slow-query.threshold-ms 的查询及其绑定参数，交给 {@link SlowQueryLog} 保存和抽样分析
+ *
+ * 未超过阈值时只多一次 System.nanoTime()，参数解析只在慢查询时进行。
+ * 带 ResultHandler 的流式扫描（scanAll、scanCloses、scanScreenFlags 等）不计入：它们的耗时包含逐行处理，
+ * 总会超过阈值，抽样 EXPLAIN ANALYZE 时还会在后台把整表再扫一遍。
+ */
+@Component
+@Intercepts({
+    @Signature(type = Executor.class, method = "query",
+        args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+    @Signature(type = Executor.class, method = "query",
+        args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class, CacheKey.class,
+            BoundSql.class})
+})
+public class SlowQueryInterceptor implements Interceptor {
+
+  @Autowired
+  private SlowQueryLog slowQueryLog;
+
+  @Value("${stock.slow-query.enabled:true}")
+  private boolean enabled;
+
+  @Override
+  public Object intercept(Invocation invocation) throws Throwable {
+    if (!enabled || invocation.getArgs()[3] != Executor.NO_RESULT_HANDLER) {
+      return invocation.proceed();
+    }
+    long start = System.nanoTime();
+    try {
+      return invocation.proceed();
+    } finally {
+      long elapsed = System.nanoTime() - start;
+      if (elapsed >= slowQueryLog.getThresholdMs() * 1_000_000) {
+        capture(invocation.getArgs(), elapsed);
+      }
+    }
+  }
+
+  private void capture(Object[] args, long elapsed) {
+    MappedStatement ms = (MappedStatement) args[0];
+    Object parameter = args[1];
+    BoundSql boundSql = args.length > 5 ? (BoundSql) args[5] : ms.getBoundSql(parameter);
+    List<ParameterMapping> mappings = boundSql.getParameterMappings();
+    List<Object> values = new ArrayList<>(mappings.size());
+    for (ParameterMapping mapping : mappings) {
+      values.add(mapping.getMode() == ParameterMode.OUT ? null : value(ms.getConfiguration(), boundSql, parameter,
+          mapping.getProperty()));
+    }
+    slowQueryLog.record(MapperMetricsInterceptor.shortId(ms.getId()), elapsed, boundSql.getSql(), mappings, values);
+  }
+
+  /**
+   * 与 DefaultParameterHandler 相同的规则取参数值
+   */
+  private static Object value(Configuration configuration, BoundSql boundSql, Object parameter, String property) {
+    if (boundSql.hasAdditionalParameter(property)) {
+      return boundSql.getAdditionalParameter(property);
+    }
+    if (parameter == null) {
+      return null;
+    }
+    if (configuration.getTypeHandlerRegistry().hasTypeHandler(parameter.getClass())) {
+      return parameter;
+    }
+    MetaObject metaObject = configuration.newMetaObject(parameter);
+    return metaObject.getValue(property);
+  }
+}
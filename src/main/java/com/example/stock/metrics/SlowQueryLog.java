@@ -0,0 +1,200 @@
+package com.example.stock.metrics;
+
+import com.example.stock.dto.SlowQuery;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.type.TypeHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 慢查询记录
+ *
+ * 保留耗时最长的 N 条，并按抽样比例在后台线程中以原参数对其执行
+ * EXPLAIN (ANALYZE, BUFFERS)，用于定位窗口查询在不同交易日、是否指定 tsCode 时走了哪种执行计划。
+ * 同一语句在 explain-interval-ms 内最多分析一次；ANALYZE 会真正执行语句，
+ * 因此在只读连接上运行并带有语句超时，分析队列满时直接放弃。
+ * 绑定参数只用于 EXPLAIN，不保存到记录中，也不写入日志。
+ */
+@Component
+public class SlowQueryLog {
+
+  private static final Logger log = LoggerFactory.getLogger(SlowQueryLog.class);
+
+  @Autowired
+  private DataSource dataSource;
+
+  @Value("${stock.slow-query.threshold-ms:500}")
+  private long thresholdMs;
+
+  @Value("${stock.slow-query.capacity:50}")
+  private int capacity;
+
+  @Value("${stock.slow-query.explain-sample-rate:0.2}")
+  private double explainSampleRate;
+
+  @Value("${stock.slow-query.explain-interval-ms:60000}")
+  private long explainIntervalMs;
+
+  @Value("${stock.slow-query.explain-timeout-seconds:30}")
+  private int explainTimeoutSeconds;
+
+  // 按耗时升序的小顶堆，堆顶是当前保留的最快一条
+  private final PriorityQueue<SlowQuery> slowest =
+      new PriorityQueue<>(Comparator.comparingDouble(SlowQuery::getElapsed_ms));
+  private final AtomicLong total = new AtomicLong();
+  // 每条语句上次分析的时间
+  private final Map<String, Long> lastExplained = new ConcurrentHashMap<>();
+
+  private ThreadPoolExecutor explainer;
+
+  @PostConstruct
+  public void start() {
+    explainer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(16), r -> {
+      Thread t = new Thread(r, "slow-query-explain");
+      t.setDaemon(true);
+      return t;
+    }, new ThreadPoolExecutor.DiscardPolicy());
+  }
+
+  @PreDestroy
+  public void stop() {
+    explainer.shutdownNow();
+  }
+
+  public long getThresholdMs() {
+    return thresholdMs;
+  }
+
+  /**
+   * 记录一条超过阈值的查询
+   *
+   * @param statement    语句 id
+   * @param elapsedNanos 耗时
+   * @param sql          带占位符的SQL
+   * @param mappings     占位符对应的参数映射
+   * @param values       按占位符顺序的参数值
+   */
+  void record(String statement, long elapsedNanos, String sql, List<ParameterMapping> mappings, List<Object> values) {
+    total.incrementAndGet();
+    SlowQuery entry = new SlowQuery();
+    entry.setStatement(statement);
+    entry.setElapsed_ms(elapsedNanos / 1_000_000.0);
+    entry.setTime(LocalDateTime.now().toString());
+    entry.setSql(sql.replaceAll("\\s+", " ").trim());
+    log.warn("慢查询 {}: {} ms", statement, String.format("%.1f", entry.getElapsed_ms()));
+
+    synchronized (slowest) {
+      if (slowest.size() >= capacity) {
+        if (slowest.peek().getElapsed_ms() >= entry.getElapsed_ms()) {
+          return;
+        }
+        slowest.poll();
+      }
+      slowest.add(entry);
+    }
+
+    if (ThreadLocalRandom.current().nextDouble() < explainSampleRate && claimExplain(statement)) {
+      explainer.execute(() -> explain(entry, sql, mappings, values));
+    }
+  }
+
+  private boolean claimExplain(String statement) {
+    long now = System.currentTimeMillis();
+    Long previous = lastExplained.get(statement);
+    if (previous != null && now - previous < explainIntervalMs) {
+      return false;
+    }
+    return previous == null
+        ? lastExplained.putIfAbsent(statement, now) == null
+        : lastExplained.replace(statement, previous, now);
+  }
+
+  /**
+   * 以原参数执行 EXPLAIN，PostgreSQL 使用 (ANALYZE, BUFFERS)，其他数据库使用 EXPLAIN ANALYZE
+   */
+  private void explain(SlowQuery entry, String sql, List<ParameterMapping> mappings, List<Object> values) {
+    try (Connection connection = dataSource.getConnection()) {
+      boolean postgres = connection.getMetaData().getDatabaseProductName().toLowerCase().contains("postgresql");
+      boolean autoCommit = connection.getAutoCommit();
+      connection.setAutoCommit(false);
+      connection.setReadOnly(true);
+      String prefix = postgres ? "EXPLAIN (ANALYZE, BUFFERS) " : "EXPLAIN ANALYZE ";
+      try (PreparedStatement ps = connection.prepareStatement(prefix + sql)) {
+        ps.setQueryTimeout(explainTimeoutSeconds);
+        for (int i = 0; i < mappings.size(); i++) {
+          ParameterMapping mapping = mappings.get(i);
+          @SuppressWarnings("unchecked")
+          TypeHandler<Object> handler = (TypeHandler<Object>) mapping.getTypeHandler();
+          handler.setParameter(ps, i + 1, values.get(i), mapping.getJdbcType());
+        }
+        StringBuilder plan = new StringBuilder();
+        try (ResultSet rs = ps.executeQuery()) {
+          while (rs.next()) {
+            plan.append(rs.getString(1)).append('\n');
+          }
+        }
+        entry.setPlan(plan.toString());
+      } finally {
+        connection.rollback();
+        connection.setReadOnly(false);
+        connection.setAutoCommit(autoCommit);
+      }
+    } catch (SQLException | RuntimeException e) {
+      entry.setPlan_error(e.getMessage());
+      log.warn("获取 {} 的执行计划失败: {}", entry.getStatement(), e.getMessage());
+    }
+  }
+
+  /**
+   * 按耗时降序返回保留的慢查询
+   */
+  public List<SlowQuery> slowest() {
+    List<SlowQuery> result;
+    synchronized (slowest) {
+      result = new ArrayList<>(slowest);
+    }
+    result.sort(Comparator.comparingDouble(SlowQuery::getElapsed_ms).reversed());
+    return result;
+  }
+
+  /**
+   * 启动以来超过阈值的查询总数
+   */
+  public long total() {
+    return total.get();
+  }
+
+  /**
+   * 清空记录，便于调整索引后重新观察
+   */
+  public void clear() {
+    synchronized (slowest) {
+      slowest.clear();
+    }
+    lastExplained.clear();
+    total.set(0);
+  }
+}
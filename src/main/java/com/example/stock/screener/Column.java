@@ -0,0 +1,54 @@
+package com.example.stock.screener;
+
+import com.example.stock.entity.StockData;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 筛选表达式可以引用的列，名称与 all_stocks_days 的列名相同
+ */
+public enum Column {
+  OPEN(StockData::getOpen),
+  HIGH(StockData::getHigh),
+  LOW(StockData::getLow),
+  CLOSE(StockData::getClose),
+  PRE_CLOSE(StockData::getPreClose),
+  PCT_CHG(StockData::getPctChg),
+  VOL(StockData::getVol),
+  AMOUNT(StockData::getAmount),
+  TURNOVER_RATE(StockData::getTurnoverRate),
+  MA5(StockData::getMa5),
+  MA10(StockData::getMa10),
+  MA120(StockData::getMa120),
+  MA250(StockData::getMa250);
+
+  private final Function<StockData, BigDecimal> getter;
+
+  Column(Function<StockData, BigDecimal> getter) {
+    this.getter = getter;
+  }
+
+  /**
+   * 读取一行中该列的值，空值返回 NaN
+   */
+  double read(StockData row) {
+    BigDecimal value = getter.apply(row);
+    return value == null ? Double.NaN : value.doubleValue();
+  }
+
+  /**
+   * 按列名查找，不区分大小写
+   */
+  public static Column parse(String name) {
+    for (Column column : values()) {
+      if (column.name().equalsIgnoreCase(name)) {
+        return column;
+      }
+    }
+    throw new IllegalArgumentException("未知的列: " + name + "，可选 " + Arrays.stream(values())
+        .map(c -> c.name().toLowerCase()).collect(Collectors.joining("、")));
+  }
+}
@@ -0,0 +1,70 @@
+package com.example.stock.screener;
+
+import com.example.stock.entity.StockData;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 一个交易日全部股票的截面数据
+ *
+ * 每列一个 double 数组，下标为股票按 ts_code 升序的序号；空值以 NaN 表示。创建后不再修改。
+ */
+public final class CrossSection {
+
+  private final LocalDate tradeDate;
+  private final String[] codes;
+  // 按 Column 序号排列的各列
+  private final double[][] columns;
+
+  private CrossSection(LocalDate tradeDate, String[] codes, double[][] columns) {
+    this.tradeDate = tradeDate;
+    this.codes = codes;
+    this.columns = columns;
+  }
+
+  /**
+   * 由同一交易日按 ts_code 升序排列的行构建
+   */
+  public static CrossSection of(LocalDate tradeDate, List<StockData> rows) {
+    int n = rows.size();
+    String[] codes = new String[n];
+    double[][] columns = new double[Column.values().length][n];
+    for (int i = 0; i < n; i++) {
+      StockData row = rows.get(i);
+      codes[i] = row.getTsCode();
+      for (Column column : Column.values()) {
+        columns[column.ordinal()][i] = column.read(row);
+      }
+    }
+    return new CrossSection(tradeDate, codes, columns);
+  }
+
+  public LocalDate getTradeDate() {
+    return tradeDate;
+  }
+
+  public int size() {
+    return codes.length;
+  }
+
+  public String code(int i) {
+    return codes[i];
+  }
+
+  /**
+   * 指定股票的序号，该日无数据时返回-1
+   */
+  public int indexOf(String tsCode) {
+    int i = Arrays.binarySearch(codes, tsCode);
+    return i >= 0 ? i : -1;
+  }
+
+  /**
+   * 一列的全部值，调用方不得修改
+   */
+  double[] column(Column column) {
+    return columns[column.ordinal()];
+  }
+}
@@ -0,0 +1,571 @@
+package com.example.stock.screener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 自定义筛选表达式
+ *
+ * 语法：[条件] [order by 列 [asc|desc]]，条件由比较（列或数值 &gt;、&gt;=、&lt;、&lt;=、=、!= 列或数值，
+ * 至少一侧为列）经 and、or、not 和括号组合，例如
+ * {@code pct_chg >= 9.9 and turnover_rate > 5 and close > ma250 order by amount desc}。
+ * 与空值（NaN）的比较都不成立，与 SQL 一致。
+ *
+ * 解析后每个比较编译为对一列的单次循环，结果写入位图，逻辑运算按64位字合并；
+ * 之后一次遍历位图完成计数，并按排序列用大小为 offset+limit 的堆选出当前页。
+ * 未指定排序时按 ts_code 升序。
+ */
+public final class ScreenExpression {
+
+  // 表达式的最大长度
+  public static final int MAX_LENGTH = 1000;
+
+  private final Filter filter;
+  private final Column orderBy;
+  private final boolean descending;
+
+  private ScreenExpression(Filter filter, Column orderBy, boolean descending) {
+    this.filter = filter;
+    this.orderBy = orderBy;
+    this.descending = descending;
+  }
+
+  /**
+   * 解析表达式，语法错误时抛出 IllegalArgumentException
+   */
+  public static ScreenExpression parse(String text) {
+    if (text == null || text.trim().isEmpty()) {
+      throw new IllegalArgumentException("筛选表达式不能为空");
+    }
+    if (text.length() > MAX_LENGTH) {
+      throw new IllegalArgumentException("筛选表达式不能超过 " + MAX_LENGTH + " 个字符");
+    }
+    return new Parser(tokenize(text)).parse();
+  }
+
+  public Column getOrderBy() {
+    return orderBy;
+  }
+
+  public boolean isDescending() {
+    return descending;
+  }
+
+  /**
+   * 计算截面上满足条件的股票，返回按序号的位图
+   */
+  public long[] evaluate(CrossSection section) {
+    return filter != null ? filter.evaluate(section) : all(section.size());
+  }
+
+  /**
+   * 一次遍历位图，统计匹配数并按排序选出第 offset 个起的至多 limit 只股票
+   *
+   * @param section 截面数据
+   * @param bits    {@link #evaluate} 的结果，可再经调用方按其它条件裁剪
+   * @param offset  跳过的股票数
+   * @param limit   每页股票数
+   */
+  public Selection select(CrossSection section, long[] bits, int offset, int limit) {
+    if (orderBy == null) {
+      int[] page = new int[limit];
+      int k = 0;
+      int count = 0;
+      for (int w = 0; w < bits.length; w++) {
+        long word = bits[w];
+        while (word != 0) {
+          int i = (w << 6) | Long.numberOfTrailingZeros(word);
+          word &= word - 1;
+          if (count >= offset && k < limit) {
+            page[k++] = i;
+          }
+          count++;
+        }
+      }
+      return new Selection(count, Arrays.copyOf(page, k));
+    }
+
+    TopK top = new TopK(section.column(orderBy), descending,
+        (int) Math.min((long) offset + limit, section.size()));
+    int count = 0;
+    for (int w = 0; w < bits.length; w++) {
+      long word = bits[w];
+      while (word != 0) {
+        top.offer((w << 6) | Long.numberOfTrailingZeros(word));
+        word &= word - 1;
+        count++;
+      }
+    }
+    int[] ranked = top.drain();
+    int from = Math.min(offset, ranked.length);
+    int to = (int) Math.min((long) offset + limit, ranked.length);
+    return new Selection(count, Arrays.copyOfRange(ranked, from, to));
+  }
+
+  private static long[] all(int n) {
+    long[] bits = new long[words(n)];
+    Arrays.fill(bits, -1L);
+    clearTail(bits, n);
+    return bits;
+  }
+
+  private static int words(int n) {
+    return (n + 63) >>> 6;
+  }
+
+  private static void clearTail(long[] bits, int n) {
+    if ((n & 63) != 0) {
+      bits[bits.length - 1] &= -1L >>> (64 - (n & 63));
+    }
+  }
+
+  /**
+   * 匹配结果
+   */
+  public static final class Selection {
+    private final int count;
+    private final int[] page;
+
+    private Selection(int count, int[] page) {
+      this.count = count;
+      this.page = page;
+    }
+
+    // 满足条件的股票总数
+    public int getCount() {
+      return count;
+    }
+
+    // 当前页股票在截面中的序号，按排序先后排列
+    public int[] getPage() {
+      return page;
+    }
+  }
+
+  /**
+   * 比较运算符
+   */
+  private enum Op {
+    GT, GE, LT, LE, EQ, NE;
+
+    static Op parse(String token) {
+      switch (token) {
+        case ">":
+          return GT;
+        case ">=":
+          return GE;
+        case "<":
+          return LT;
+        case "<=":
+          return LE;
+        case "=":
+        case "==":
+          return EQ;
+        case "!=":
+        case "<>":
+          return NE;
+        default:
+          return null;
+      }
+    }
+
+    // 交换左右两侧后的运算符
+    Op flip() {
+      switch (this) {
+        case GT:
+          return LT;
+        case GE:
+          return LE;
+        case LT:
+          return GT;
+        case LE:
+          return GE;
+        default:
+          return this;
+      }
+    }
+  }
+
+  /**
+   * 编译后的条件，结果为按截面序号的位图
+   */
+  private interface Filter {
+    long[] evaluate(CrossSection section);
+  }
+
+  /**
+   * 列与常数或另一列的比较；两列比较时先逐行相减再与0比较，差值为0当且仅当两值相等，空值仍为 NaN
+   */
+  private static final class Compare implements Filter {
+    private final Column left;
+    private final Column right;
+    private final double constant;
+    private final Op op;
+
+    private Compare(Column left, Column right, double constant, Op op) {
+      this.left = left;
+      this.right = right;
+      this.constant = constant;
+      this.op = op;
+    }
+
+    @Override
+    public long[] evaluate(CrossSection section) {
+      int n = section.size();
+      double[] v = section.column(left);
+      if (right != null) {
+        double[] r = section.column(right);
+        double[] diff = new double[n];
+        for (int i = 0; i < n; i++) {
+          diff[i] = v[i] - r[i];
+        }
+        v = diff;
+      }
+      double c = constant;
+      long[] bits = new long[words(n)];
+      // 每种运算符单独一个循环，循环体内没有分支判断运算符
+      switch (op) {
+        case GT:
+          for (int i = 0; i < n; i++) {
+            bits[i >>> 6] |= (v[i] > c ? 1L : 0L) << i;
+          }
+          break;
+        case GE:
+          for (int i = 0; i < n; i++) {
+            bits[i >>> 6] |= (v[i] >= c ? 1L : 0L) << i;
+          }
+          break;
+        case LT:
+          for (int i = 0; i < n; i++) {
+            bits[i >>> 6] |= (v[i] < c ? 1L : 0L) << i;
+          }
+          break;
+        case LE:
+          for (int i = 0; i < n; i++) {
+            bits[i >>> 6] |= (v[i] <= c ? 1L : 0L) << i;
+          }
+          break;
+        case EQ:
+          for (int i = 0; i < n; i++) {
+            bits[i >>> 6] |= (v[i] == c ? 1L : 0L) << i;
+          }
+          break;
+        default:
+          // NaN 与任何值比较都不成立，不能用 !(v == c)
+          for (int i = 0; i < n; i++) {
+            bits[i >>> 6] |= (v[i] < c || v[i] > c ? 1L : 0L) << i;
+          }
+          break;
+      }
+      return bits;
+    }
+  }
+
+  private static final class And implements Filter {
+    private final Filter left;
+    private final Filter right;
+
+    private And(Filter left, Filter right) {
+      this.left = left;
+      this.right = right;
+    }
+
+    @Override
+    public long[] evaluate(CrossSection section) {
+      long[] a = left.evaluate(section);
+      long[] b = right.evaluate(section);
+      for (int w = 0; w < a.length; w++) {
+        a[w] &= b[w];
+      }
+      return a;
+    }
+  }
+
+  private static final class Or implements Filter {
+    private final Filter left;
+    private final Filter right;
+
+    private Or(Filter left, Filter right) {
+      this.left = left;
+      this.right = right;
+    }
+
+    @Override
+    public long[] evaluate(CrossSection section) {
+      long[] a = left.evaluate(section);
+      long[] b = right.evaluate(section);
+      for (int w = 0; w < a.length; w++) {
+        a[w] |= b[w];
+      }
+      return a;
+    }
+  }
+
+  private static final class Not implements Filter {
+    private final Filter operand;
+
+    private Not(Filter operand) {
+      this.operand = operand;
+    }
+
+    @Override
+    public long[] evaluate(CrossSection section) {
+      long[] a = operand.evaluate(section);
+      for (int w = 0; w < a.length; w++) {
+        a[w] = ~a[w];
+      }
+      clearTail(a, section.size());
+      return a;
+    }
+  }
+
+  /**
+   * 保留排在最前的 capacity 个序号的堆，堆顶为其中排在最后的一个；
+   * 排序值为 NaN 的排在最后，排序值相同时按 ts_code（即序号）升序
+   */
+  private static final class TopK {
+    private final double[] key;
+    private final boolean descending;
+    private final int[] heap;
+    private int size;
+
+    private TopK(double[] key, boolean descending, int capacity) {
+      this.key = key;
+      this.descending = descending;
+      this.heap = new int[capacity];
+    }
+
+    void offer(int i) {
+      if (size < heap.length) {
+        heap[size] = i;
+        siftUp(size++);
+      } else if (size > 0 && before(i, heap[0])) {
+        heap[0] = i;
+        siftDown(0);
+      }
+    }
+
+    /**
+     * 按排序先后取出全部序号
+     */
+    int[] drain() {
+      int[] result = new int[size];
+      while (size > 0) {
+        result[size - 1] = heap[0];
+        heap[0] = heap[--size];
+        siftDown(0);
+      }
+      return result;
+    }
+
+    private boolean before(int a, int b) {
+      double x = key[a];
+      double y = key[b];
+      boolean xNaN = Double.isNaN(x);
+      boolean yNaN = Double.isNaN(y);
+      if (xNaN != yNaN) {
+        return yNaN;
+      }
+      if (!xNaN && x != y) {
+        return descending ? x > y : x < y;
+      }
+      return a < b;
+    }
+
+    private void siftUp(int i) {
+      while (i > 0) {
+        int parent = (i - 1) >>> 1;
+        if (!before(heap[parent], heap[i])) {
+          break;
+        }
+        swap(parent, i);
+        i = parent;
+      }
+    }
+
+    private void siftDown(int i) {
+      while (true) {
+        int child = 2 * i + 1;
+        if (child >= size) {
+          break;
+        }
+        if (child + 1 < size && before(heap[child], heap[child + 1])) {
+          child++;
+        }
+        if (!before(heap[i], heap[child])) {
+          break;
+        }
+        swap(i, child);
+        i = child;
+      }
+    }
+
+    private void swap(int a, int b) {
+      int t = heap[a];
+      heap[a] = heap[b];
+      heap[b] = t;
+    }
+  }
+
+  /**
+   * 将表达式切分为标识符、数值、运算符和括号
+   */
+  private static List<String> tokenize(String text) {
+    List<String> tokens = new ArrayList<>();
+    int n = text.length();
+    int i = 0;
+    while (i < n) {
+      char c = text.charAt(i);
+      int start = i;
+      if (Character.isWhitespace(c)) {
+        i++;
+        continue;
+      }
+      if (Character.isLetter(c) || c == '_') {
+        while (i < n && (Character.isLetterOrDigit(text.charAt(i)) || text.charAt(i) == '_')) {
+          i++;
+        }
+        tokens.add(text.substring(start, i).toLowerCase());
+      } else if (Character.isDigit(c) || c == '.' || c == '-') {
+        i++;
+        while (i < n && (Character.isDigit(text.charAt(i)) || text.charAt(i) == '.')) {
+          i++;
+        }
+        tokens.add(text.substring(start, i));
+      } else if (c == '(' || c == ')') {
+        tokens.add(String.valueOf(c));
+        i++;
+      } else if (c == '<' || c == '>' || c == '=' || c == '!') {
+        i++;
+        if (i < n && (text.charAt(i) == '=' || c == '<' && text.charAt(i) == '>')) {
+          i++;
+        }
+        tokens.add(text.substring(start, i));
+      } else {
+        throw new IllegalArgumentException("筛选表达式第 " + (i + 1) + " 个字符无法识别: " + c);
+      }
+    }
+    return tokens;
+  }
+
+  /**
+   * 递归下降解析：or 的优先级低于 and，and 低于 not
+   */
+  private static final class Parser {
+    private final List<String> tokens;
+    private int pos;
+
+    private Parser(List<String> tokens) {
+      this.tokens = tokens;
+    }
+
+    ScreenExpression parse() {
+      Filter filter = "order".equals(peek()) ? null : parseOr();
+      Column orderBy = null;
+      boolean descending = false;
+      if (accept("order")) {
+        expect("by");
+        orderBy = Column.parse(next());
+        if (accept("desc")) {
+          descending = true;
+        } else {
+          accept("asc");
+        }
+      }
+      if (pos < tokens.size()) {
+        throw new IllegalArgumentException("筛选表达式中多余的内容: " + tokens.get(pos));
+      }
+      return new ScreenExpression(filter, orderBy, descending);
+    }
+
+    private Filter parseOr() {
+      Filter left = parseAnd();
+      while (accept("or")) {
+        left = new Or(left, parseAnd());
+      }
+      return left;
+    }
+
+    private Filter parseAnd() {
+      Filter left = parseNot();
+      while (accept("and")) {
+        left = new And(left, parseNot());
+      }
+      return left;
+    }
+
+    private Filter parseNot() {
+      if (accept("not")) {
+        return new Not(parseNot());
+      }
+      if (accept("(")) {
+        Filter inner = parseOr();
+        expect(")");
+        return inner;
+      }
+      return parseComparison();
+    }
+
+    private Filter parseComparison() {
+      String left = next();
+      String opToken = next();
+      Op op = Op.parse(opToken);
+      if (op == null) {
+        throw new IllegalArgumentException("筛选表达式中 " + left + " 之后应为比较运算符，实际为: " + opToken);
+      }
+      String right = next();
+      boolean leftNumber = isNumber(left);
+      boolean rightNumber = isNumber(right);
+      if (leftNumber && rightNumber) {
+        throw new IllegalArgumentException("比较的两侧至少有一侧应为列: " + left + " " + opToken + " " + right);
+      }
+      if (leftNumber) {
+        return new Compare(Column.parse(right), null, number(left), op.flip());
+      }
+      if (rightNumber) {
+        return new Compare(Column.parse(left), null, number(right), op);
+      }
+      return new Compare(Column.parse(left), Column.parse(right), 0, op);
+    }
+
+    private String peek() {
+      return pos < tokens.size() ? tokens.get(pos) : null;
+    }
+
+    private String next() {
+      if (pos >= tokens.size()) {
+        throw new IllegalArgumentException("筛选表达式不完整");
+      }
+      return tokens.get(pos++);
+    }
+
+    private boolean accept(String token) {
+      if (token.equals(peek())) {
+        pos++;
+        return true;
+      }
+      return false;
+    }
+
+    private void expect(String token) {
+      String actual = next();
+      if (!token.equals(actual)) {
+        throw new IllegalArgumentException("筛选表达式中应为 " + token + "，实际为: " + actual);
+      }
+    }
+
+    private static boolean isNumber(String token) {
+      char c = token.charAt(0);
+      return Character.isDigit(c) || c == '.' || c == '-';
+    }
+
+    private static double number(String token) {
+      try {
+        return Double.parseDouble(token);
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException("无效的数值: " + token);
+      }
+    }
+  }
+}
@@ -0,0 +1,199 @@
+package com.example.stock.screener;
+
+import com.example.stock.dto.StockQuery;
+import com.example.stock.dto.StockResponse;
+import com.example.stock.engine.SeriesCache;
+import com.example.stock.indicator.IndicatorEngine;
+import com.example.stock.indicator.IndicatorSpec;
+import com.example.stock.entity.StockBar;
+import com.example.stock.event.MarketDataChangedEvent;
+import com.example.stock.mapper.StockDataMapper;
+import com.example.stock.service.DataVersion;
+import com.example.stock.service.TradingCalendar;
+import com.example.stock.service.impl.BarSampler;
+import com.example.stock.service.impl.GridAssembler;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 按表达式的自定义筛选
+ *
+ * 目标交易日的截面数据按列缓存（{@link CrossSection}），由 {@link ScreenExpression} 在截面上
+ * 完成过滤、计数和排序分页，当前页股票前后 windowDays 个交易日的行从 {@link SeriesCache} 切片。
+ * 行情变更时丢弃受影响交易日的截面。
+ */
+@Component
+public class Screener {
+
+  // windowDays 参数的默认值
+  public static final String DEFAULT_WINDOW_DAYS = "20";
+
+  @Autowired
+  private StockDataMapper stockDataMapper;
+
+  @Autowired
+  private TradingCalendar tradingCalendar;
+
+  @Autowired
+  private SeriesCache seriesCache;
+
+  @Autowired
+  private DataVersion dataVersion;
+
+  @Autowired
+  private IndicatorEngine indicatorEngine;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Value("${stock.page.size}")
+  private int pageSize;
+
+  @Value("${stock.screener.cached-dates:16}")
+  private int cachedDates;
+
+  @Value("${stock.screener.max-window-days:750}")
+  private int maxWindowDays;
+
+  private Cache<LocalDate, CrossSection> crossSections;
+
+  @PostConstruct
+  public void init() {
+    crossSections = Caffeine.newBuilder().maximumSize(cachedDates).build();
+  }
+
+  /**
+   * 执行一次自定义筛选，返回格式与五类筛选相同
+   *
+   * @param expression 筛选表达式，语法见 {@link ScreenExpression}
+   * @param query      tsCode、tradeDate、pageNum、resolution、maxPoints、indicators，不支持 after 游标
+   * @param windowDays 目标日前后各取的交易日数量
+   */
+  public StockResponse screen(String expression, StockQuery query, int windowDays) {
+    ScreenExpression expr = ScreenExpression.parse(expression);
+    if (windowDays < 0 || windowDays > maxWindowDays) {
+      throw new IllegalArgumentException("windowDays 应在 0 到 " + maxWindowDays + " 之间");
+    }
+    if (query.getAfter() != null && !query.getAfter().isEmpty()) {
+      throw new IllegalArgumentException("自定义筛选不支持游标分页，请使用 pageNum");
+    }
+    BarSampler.Resolution resolution = BarSampler.Resolution.parse(query.getResolution());
+    BarSampler.checkMaxPoints(query.getMaxPoints());
+    List<IndicatorSpec> indicators = indicatorEngine.parse(query.getIndicators());
+
+    String tradeDate = query.getTradeDate();
+    LocalDate targetDate = tradeDate == null || tradeDate.isEmpty()
+        ? tradingCalendar.maxDate()
+        : LocalDate.parse(tradeDate);
+    int pageNum = query.getPageNum() != null ? query.getPageNum() : 1;
+    if (targetDate == null) {
+      return GridAssembler.empty(null, pageNum, tradeDate);
+    }
+
+    Timer.Sample sample = Timer.start(meterRegistry);
+    StockResponse response;
+    try {
+      response = screen(expr, query.getTsCode(), targetDate, pageNum, windowDays);
+    } finally {
+      sample.stop(meterRegistry.timer("stock.screener"));
+    }
+    response.setDate(tradeDate != null ? tradeDate : targetDate.toString());
+    return indicatorEngine.attach(BarSampler.apply(response, resolution, query.getMaxPoints()), indicators);
+  }
+
+  private StockResponse screen(ScreenExpression expr, String tsCode, LocalDate targetDate, int pageNum,
+      int windowDays) {
+    CrossSection section = crossSection(targetDate);
+    long[] bits = expr.evaluate(section);
+    // 指定股票代码时只保留该股票
+    if (tsCode != null && !tsCode.isEmpty()) {
+      int only = section.indexOf(tsCode);
+      for (int w = 0; w < bits.length; w++) {
+        bits[w] &= only >= 0 && only >>> 6 == w ? 1L << only : 0L;
+      }
+    }
+    int offset = Math.max(0, pageNum - 1) * pageSize;
+    ScreenExpression.Selection selection = expr.select(section, bits, offset, pageSize);
+
+    List<String> codes = new ArrayList<>(selection.getPage().length);
+    for (int i : selection.getPage()) {
+      codes.add(section.code(i));
+    }
+    StockResponse response = GridAssembler.empty(targetDate, pageNum, null);
+    response.setGrid_data(codes.isEmpty() ? new ArrayList<>() : window(codes, targetDate, windowDays));
+    response.setStock_count(selection.getCount());
+    return response;
+  }
+
+  /**
+   * 当前页股票在窗口内的行，按页内排序分组
+   */
+  private List<List<StockBar>> window(List<String> codes, LocalDate targetDate, int windowDays) {
+    LocalDate windowStart = tradingCalendar.previousNth(targetDate, windowDays);
+    LocalDate windowEnd = tradingCalendar.nextNth(targetDate, windowDays);
+    List<StockBar> rows = seriesCache.window(codes, windowStart, windowEnd);
+
+    // 行按 ts_code 连续排列，切分后按页内顺序输出
+    Map<String, List<StockBar>> byCode = new HashMap<>();
+    int start = 0;
+    while (start < rows.size()) {
+      String code = rows.get(start).getTsCode();
+      int end = start + 1;
+      while (end < rows.size() && code.equals(rows.get(end).getTsCode())) {
+        end++;
+      }
+      byCode.put(code, rows.subList(start, end));
+      start = end;
+    }
+    List<List<StockBar>> gridData = new ArrayList<>(codes.size());
+    for (String code : codes) {
+      gridData.add(byCode.getOrDefault(code, Collections.emptyList()));
+    }
+    return gridData;
+  }
+
+  /**
+   * 取缓存的截面，未缓存时读取当日全部行；读取期间行情有变更时不放入缓存
+   */
+  private CrossSection crossSection(LocalDate date) {
+    CrossSection section = crossSections.getIfPresent(date);
+    if (section != null) {
+      return section;
+    }
+    long version = dataVersion.current();
+    section = CrossSection.of(date, stockDataMapper.findByTradeDates(Collections.singleton(date)));
+    if (dataVersion.current() == version) {
+      crossSections.put(date, section);
+    }
+    return section;
+  }
+
+  /**
+   * 行情变更后丢弃受影响交易日的截面，范围未知时全部丢弃
+   */
+  @EventListener
+  @Order(Ordered.HIGHEST_PRECEDENCE + 3)
+  public void onMarketDataChanged(MarketDataChangedEvent event) {
+    if (event.getDates().isEmpty()) {
+      crossSections.invalidateAll();
+    } else {
+      crossSections.invalidateAll(event.getDates());
+    }
+  }
+}
@@ -0,0 +1,89 @@
+package com.example.stock.service;
+
+import com.example.stock.event.MarketDataChangedEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 数据版本
+ *
+ * version 在每次行情变更时递增；epoch 只在历史交易日被修订或范围未知时递增。
+ * 目标日期前后窗口已经完整（之后的交易日数量不少于窗口大小）的结果只依赖 epoch，
+ * 因此追加新交易日只会让最近几天的缓存失效。
+ * 两个计数只在本进程内有意义，每次启动都从1开始，进程之外使用时需带上 {@link #instance()}。
+ */
+@Component
+public class DataVersion {
+
+  @Autowired
+  private TradingCalendar tradingCalendar;
+
+  // 本次启动的标识，不同进程或重启前后相同的版本号不代表相同的数据
+  private final String instance = UUID.randomUUID().toString().substring(0, 8);
+  private final AtomicLong version = new AtomicLong(1);
+  private final AtomicLong epoch = new AtomicLong(1);
+  private volatile LocalDate latestDate;
+
+  /**
+   * 当前数据版本
+   */
+  public long current() {
+    return version.get();
+  }
+
+  /**
+   * 本次启动的标识
+   */
+  public String instance() {
+    return instance;
+  }
+
+  /**
+   * 指定筛选和交易日对应的版本戳
+   *
+   * @param screen    筛选类型
+   * @param tradeDate 目标交易日
+   * @return 窗口已完整时返回 epoch，否则返回 version
+   */
+  public long stampFor(Screen screen, LocalDate tradeDate) {
+    return stampFor(screen.getWindowDays(), tradeDate);
+  }
+
+  /**
+   * 目标日前后各取 windowDays 个交易日时对应的版本戳，用于没有固定窗口的自定义筛选
+   */
+  public long stampFor(int windowDays, LocalDate tradeDate) {
+    return isComplete(windowDays, tradeDate) ? epoch.get() : version.get();
+  }
+
+  /**
+   * 目标日之后的交易日数量是否已不少于窗口大小，此后只有修订历史交易日才会改变结果
+   */
+  public boolean isComplete(int windowDays, LocalDate tradeDate) {
+    return tradeDate != null && tradingCalendar.countAfter(tradeDate) >= windowDays;
+  }
+
+  /**
+   * 行情变更时递增版本，需先于其它监听方执行
+   */
+  @EventListener
+  @Order(Ordered.HIGHEST_PRECEDENCE)
+  public void onMarketDataChanged(MarketDataChangedEvent event) {
+    LocalDate previousLatest = latestDate;
+    // 不知道此前的最新交易日时按修订历史处理
+    boolean historyRevised = event.getDates().isEmpty() || previousLatest == null
+        || event.getDates().stream().anyMatch(d -> d.isBefore(previousLatest));
+    if (historyRevised) {
+      epoch.incrementAndGet();
+    }
+    version.incrementAndGet();
+    latestDate = tradingCalendar.maxDate();
+  }
+}
@@ -0,0 +1,68 @@
+package com.example.stock.service;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * 键集分页游标
+ *
+ * 记录上一页最后一只股票的排序键（涨跌幅，可为空）和 ts_code，
+ * 对外以 base64url 编码的不透明字符串传递。
+ */
+public final class PageCursor {
+
+  private static final String VERSION = "1";
+
+  private final BigDecimal pctChg;
+  private final String tsCode;
+
+  public PageCursor(BigDecimal pctChg, String tsCode) {
+    this.pctChg = pctChg;
+    this.tsCode = tsCode;
+  }
+
+  public BigDecimal getPctChg() {
+    return pctChg;
+  }
+
+  public String getTsCode() {
+    return tsCode;
+  }
+
+  /**
+   * 编码为不透明字符串
+   */
+  public String encode() {
+    String raw = VERSION + "|" + (pctChg != null ? pctChg.toPlainString() : "") + "|" + tsCode;
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * 解析游标字符串
+   *
+   * @param token 游标字符串
+   * @return 游标，token为空时返回null
+   * @throws IllegalArgumentException 游标格式不正确
+   */
+  public static PageCursor decode(String token) {
+    if (token == null || token.isEmpty()) {
+      return null;
+    }
+    String[] parts;
+    try {
+      parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\\|", -1);
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("无效的分页游标: " + token);
+    }
+    if (parts.length != 3 || !VERSION.equals(parts[0]) || parts[2].isEmpty()) {
+      throw new IllegalArgumentException("无效的分页游标: " + token);
+    }
+    try {
+      BigDecimal pctChg = parts[1].isEmpty() ? null : new BigDecimal(parts[1]);
+      return new PageCursor(pctChg, parts[2]);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("无效的分页游标: " + token);
+    }
+  }
+}
@@ -0,0 +1,94 @@
+package com.example.stock.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 查询线程池
+ *
+ * 同一请求中互不依赖的数据库查询（如当前页数据和总数）提交到这里与请求线程并行执行。
+ * 线程数和队列都有上限，队列满时由提交线程自己执行，相当于退回串行而不是拒绝请求。
+ * 等待超时后取消任务，语句本身由 MyBatis 的 statement timeout 在数据库端取消。
+ */
+@Component
+public class QueryExecutor {
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Value("${stock.query.executor.pool-size:16}")
+  private int poolSize;
+
+  @Value("${stock.query.executor.queue-capacity:256}")
+  private int queueCapacity;
+
+  @Value("${stock.query.executor.timeout-ms:10000}")
+  private long timeoutMs;
+
+  private ThreadPoolExecutor executor;
+
+  @PostConstruct
+  public void start() {
+    AtomicInteger sequence = new AtomicInteger();
+    executor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+        new ArrayBlockingQueue<>(queueCapacity), r -> {
+          Thread t = new Thread(r, "query-" + sequence.incrementAndGet());
+          t.setDaemon(true);
+          return t;
+        }, new ThreadPoolExecutor.CallerRunsPolicy());
+    executor.allowCoreThreadTimeOut(true);
+    // 活跃线程数、队列长度等指标，前缀 executor，name=query
+    new ExecutorServiceMetrics(executor, "query", Tags.empty()).bindTo(meterRegistry);
+  }
+
+  @PreDestroy
+  public void stop() {
+    executor.shutdownNow();
+  }
+
+  /**
+   * 异步执行查询
+   */
+  public <T> Future<T> submit(Callable<T> query) {
+    return executor.submit(query);
+  }
+
+  /**
+   * 等待查询结果，超时或被中断时取消查询
+   *
+   * @throws QueryTimeoutException 等待超过 stock.query.executor.timeout-ms
+   */
+  public <T> T join(Future<T> future) {
+    try {
+      return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      future.cancel(true);
+      throw new QueryTimeoutException("查询超时: " + timeoutMs + " ms", e);
+    } catch (InterruptedException e) {
+      future.cancel(true);
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("查询被中断", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException("查询失败", e.getCause());
+    }
+  }
+}
@@ -0,0 +1,28 @@
+package com.example.stock.service;
+
+/**
+ * 股票筛选类型
+ */
+public enum Screen {
+  // 全部股票
+  ALL(20),
+  // 涨停股票
+  LIMIT_UP(20),
+  // 跌停股票
+  LIMIT_DOWN(20),
+  // 站上半年线的股票
+  HALF_YEAR_LINE(250),
+  // 站上年线的股票
+  YEAR_LINE(750);
+
+  // 目标日期前后各取的交易日数量
+  private final int windowDays;
+
+  Screen(int windowDays) {
+    this.windowDays = windowDays;
+  }
+
+  public int getWindowDays() {
+    return windowDays;
+  }
+}
@@ -0,0 +1,17 @@
+package com.example.stock.service;
+
+import com.example.stock.entity.StockBar;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 一页筛选结果：当前页股票的窗口数据（按 ts_code、trade_date 升序）及符合条件的股票总数
+ */
+@Data
+@AllArgsConstructor
+public class ScreenPage {
+  private List<StockBar> rows;
+  private long totalCount;
+}
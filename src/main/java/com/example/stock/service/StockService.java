@@ -2,6 +2,7 @@ package com.example.stock.service;
 
 import org.springframework.stereotype.Service;
 
+import com.example.stock.dto.StockQuery;
 import com.example.stock.dto.StockResponse;
 
 /**
@@ -10,6 +11,15 @@ import com.example.stock.dto.StockResponse;
 @Service
 public interface StockService {
 
+  /**
+   * 按筛选类型获取股票数据
+   * 
+   * @param screen 筛选类型
+   * @param query  查询参数，支持页码或游标分页
+   * @return 股票数据响应
+   */
+  StockResponse getScreenData(Screen screen, StockQuery query);
+
   /**
    * 获取所有股票数据
    * 
@@ -18,7 +28,9 @@ public interface StockService {
    * @param pageNum   页码
    * @return 股票数据响应
    */
-  StockResponse getAllData(String tsCode, String tradeDate, Integer pageNum);
+  default StockResponse getAllData(String tsCode, String tradeDate, Integer pageNum) {
+    return getScreenData(Screen.ALL, query(tsCode, tradeDate, pageNum));
+  }
 
   /**
    * 获取涨停股票数据
@@ -28,7 +40,9 @@ public interface StockService {
    * @param pageNum   页码
    * @return 股票数据响应
    */
-  StockResponse getLimitUpData(String tsCode, String tradeDate, Integer pageNum);
+  default StockResponse getLimitUpData(String tsCode, String tradeDate, Integer pageNum) {
+    return getScreenData(Screen.LIMIT_UP, query(tsCode, tradeDate, pageNum));
+  }
 
   /**
    * 获取跌停股票数据
@@ -38,7 +52,9 @@ public interface StockService {
    * @param pageNum   页码
    * @return 股票数据响应
    */
-  StockResponse getLimitDownData(String tsCode, String tradeDate, Integer pageNum);
+  default StockResponse getLimitDownData(String tsCode, String tradeDate, Integer pageNum) {
+    return getScreenData(Screen.LIMIT_DOWN, query(tsCode, tradeDate, pageNum));
+  }
 
   /**
    * 获取半年线股票数据
@@ -48,7 +64,9 @@ public interface StockService {
    * @param pageNum   页码
    * @return 股票数据响应
    */
-  StockResponse getHalfYearLineData(String tsCode, String tradeDate, Integer pageNum);
+  default StockResponse getHalfYearLineData(String tsCode, String tradeDate, Integer pageNum) {
+    return getScreenData(Screen.HALF_YEAR_LINE, query(tsCode, tradeDate, pageNum));
+  }
 
   /**
    * 获取年线股票数据
@@ -58,5 +76,15 @@ public interface StockService {
    * @param pageNum   页码
    * @return 股票数据响应
    */
-  StockResponse getYearLineData(String tsCode, String tradeDate, Integer pageNum);
+  default StockResponse getYearLineData(String tsCode, String tradeDate, Integer pageNum) {
+    return getScreenData(Screen.YEAR_LINE, query(tsCode, tradeDate, pageNum));
+  }
+
+  private static StockQuery query(String tsCode, String tradeDate, Integer pageNum) {
+    StockQuery query = new StockQuery();
+    query.setTsCode(tsCode);
+    query.setTradeDate(tradeDate);
+    query.setPageNum(pageNum);
+    return query;
+  }
 }
\ No newline at end of file
@@ -0,0 +1,184 @@
+package com.example.stock.service;
+
+import com.example.stock.event.MarketDataChangedEvent;
+import com.example.stock.mapper.StockDataMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 交易日历
+ *
+ * 启动后首次使用时从 all_stocks_days 一次性加载去重排序后的交易日，
+ * 之后"第N个交易日之前/之后"、最小/最大日期等查询都在内存中以二分查找完成，
+ * 不再对整张表做 DISTINCT + ORDER BY。
+ */
+@Component
+public class TradingCalendar {
+
+  private static final Logger log = LoggerFactory.getLogger(TradingCalendar.class);
+
+  @Autowired
+  private StockDataMapper stockDataMapper;
+
+  @Autowired
+  private ApplicationEventPublisher eventPublisher;
+
+  // 升序排列的交易日（epoch day），整体替换以保证读线程看到一致的快照
+  private volatile int[] tradeDays;
+
+  /**
+   * 重新从数据库加载交易日
+   */
+  public synchronized void refresh() {
+    List<LocalDate> dates = stockDataMapper.findAllTradeDates();
+    int[] days = new int[dates.size()];
+    for (int i = 0; i < days.length; i++) {
+      days[i] = (int) dates.get(i).toEpochDay();
+    }
+    tradeDays = days;
+    log.info("交易日历已加载: {} 个交易日", days.length);
+  }
+
+  /**
+   * 定时检查最大交易日，发现外部脚本写入了新交易日时重新加载并发布变更事件
+   */
+  @Scheduled(initialDelayString = "${stock.calendar.refresh-interval-ms:60000}",
+      fixedDelayString = "${stock.calendar.refresh-interval-ms:60000}")
+  public void refreshIfStale() {
+    if (tradeDays == null) {
+      return;
+    }
+    LocalDate maxDate = stockDataMapper.findMaxDate();
+    if (maxDate == null || maxDate.equals(maxDate())) {
+      return;
+    }
+    int[] previous = tradeDays;
+    refresh();
+    Set<LocalDate> added = new HashSet<>();
+    for (int day : tradeDays) {
+      if (Arrays.binarySearch(previous, day) < 0) {
+        added.add(LocalDate.ofEpochDay(day));
+      }
+    }
+    eventPublisher.publishEvent(new MarketDataChangedEvent(this, added));
+  }
+
+  /**
+   * 获取最早交易日，无数据时返回null
+   */
+  public LocalDate minDate() {
+    int[] days = days();
+    return days.length == 0 ? null : LocalDate.ofEpochDay(days[0]);
+  }
+
+  /**
+   * 获取最晚交易日，无数据时返回null
+   */
+  public LocalDate maxDate() {
+    int[] days = days();
+    return days.length == 0 ? null : LocalDate.ofEpochDay(days[days.length - 1]);
+  }
+
+  /**
+   * 交易日总数
+   */
+  public int size() {
+    return days().length;
+  }
+
+  /**
+   * 查找指定日期之前的第N个交易日，不足N个时返回最早交易日
+   *
+   * @param date 基准日期
+   * @param n    向前偏移的交易日数量
+   * @return 第N个交易日的日期，无数据时返回null
+   */
+  public LocalDate previousNth(LocalDate date, int n) {
+    int[] days = days();
+    if (days.length == 0) {
+      return null;
+    }
+    // 严格小于date的交易日个数
+    int before = lowerBound(days, (int) date.toEpochDay());
+    return LocalDate.ofEpochDay(days[Math.max(before - n, 0)]);
+  }
+
+  /**
+   * 查找指定日期之后的第N个交易日，不足N个时返回最晚交易日
+   *
+   * @param date 基准日期
+   * @param n    向后偏移的交易日数量
+   * @return 第N个交易日的日期，无数据时返回null
+   */
+  public LocalDate nextNth(LocalDate date, int n) {
+    int[] days = days();
+    if (days.length == 0) {
+      return null;
+    }
+    // 第一个严格大于date的交易日下标
+    int after = lowerBound(days, (int) date.toEpochDay() + 1);
+    return LocalDate.ofEpochDay(days[Math.min(after + n - 1, days.length - 1)]);
+  }
+
+  /**
+   * 指定日期之后（不含当日）的交易日数量
+   */
+  public int countAfter(LocalDate date) {
+    int[] days = days();
+    return days.length - lowerBound(days, (int) date.toEpochDay() + 1);
+  }
+
+  /**
+   * 全部交易日（epoch day，升序）
+   */
+  public int[] epochDays() {
+    return days().clone();
+  }
+
+  /**
+   * 判断指定日期是否为交易日
+   */
+  public boolean isTradeDay(LocalDate date) {
+    return Arrays.binarySearch(days(), (int) date.toEpochDay()) >= 0;
+  }
+
+  private int[] days() {
+    int[] days = tradeDays;
+    if (days == null) {
+      synchronized (this) {
+        if (tradeDays == null) {
+          refresh();
+        }
+        days = tradeDays;
+      }
+    }
+    return days;
+  }
+
+  /**
+   * 返回第一个不小于key的元素下标
+   */
+  private static int lowerBound(int[] days, int key) {
+    int low = 0;
+    int high = days.length;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (days[mid] < key) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+}
@@ -0,0 +1,235 @@
+package com.example.stock.service.impl;
+
+import com.example.stock.dto.StockResponse;
+import com.example.stock.entity.StockBar;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * grid_data 的降采样
+ *
+ * resolution=week|month 将日线合并为周线/月线：开盘取首日、收盘取末日、最高/最低取极值、
+ * 成交量/成交额/换手率求和、均线取末日的值，交易日为周期内最后一个交易日；
+ * maxPoints 按收盘价用 LTTB（Largest-Triangle-Three-Buckets）选出至多 maxPoints 行，
+ * 保留走势的转折点，均线随所选的行一起保留。两者可同时使用，先合并周期再选点。
+ * 每只股票的行只顺序遍历一次，输入须按 trade_date 升序。
+ */
+public final class BarSampler {
+
+  // 降采样后至少保留的点数，LTTB 需要首尾两点之外至少一个分桶
+  public static final int MIN_POINTS = 3;
+
+  private BarSampler() {
+  }
+
+  /**
+   * 数据周期
+   */
+  public enum Resolution {
+    DAY, WEEK, MONTH;
+
+    /**
+     * 解析请求参数，为空时按日线处理
+     */
+    public static Resolution parse(String value) {
+      if (value == null || value.isEmpty()) {
+        return DAY;
+      }
+      switch (value.toLowerCase()) {
+        case "day":
+          return DAY;
+        case "week":
+          return WEEK;
+        case "month":
+          return MONTH;
+        default:
+          throw new IllegalArgumentException("无效的 resolution: " + value + "，可选 day、week、month");
+      }
+    }
+  }
+
+  /**
+   * 对响应中每只股票的行降采样，不需要时原样返回；返回新的响应对象，不修改传入的（可能已缓存的）响应
+   *
+   * @param response   日线响应
+   * @param resolution 周期
+   * @param maxPoints  每只股票最多保留的行数，为null时不限
+   */
+  public static StockResponse apply(StockResponse response, Resolution resolution, Integer maxPoints) {
+    checkMaxPoints(maxPoints);
+    if (resolution == Resolution.DAY && maxPoints == null || response.getGrid_data() == null) {
+      return response;
+    }
+    List<List<StockBar>> gridData = new ArrayList<>(response.getGrid_data().size());
+    for (List<StockBar> rows : response.getGrid_data()) {
+      List<StockBar> sampled = resolution == Resolution.DAY ? rows : aggregate(rows, resolution);
+      gridData.add(maxPoints == null ? sampled : lttb(sampled, maxPoints));
+    }
+    StockResponse result = new StockResponse();
+    result.setColumn_names(response.getColumn_names());
+    result.setDate(response.getDate());
+    result.setGrid_data(gridData);
+    result.setPage(response.getPage());
+    result.setStock_count(response.getStock_count());
+    result.setNext_cursor(response.getNext_cursor());
+    return result;
+  }
+
+  /**
+   * 校验 maxPoints 参数，查询之前调用以便尽早返回400
+   */
+  public static void checkMaxPoints(Integer maxPoints) {
+    if (maxPoints != null && maxPoints < MIN_POINTS) {
+      throw new IllegalArgumentException("maxPoints 不能小于 " + MIN_POINTS);
+    }
+  }
+
+  /**
+   * 一次遍历将一只股票的日线合并为周线或月线
+   */
+  static List<StockBar> aggregate(List<StockBar> rows, Resolution resolution) {
+    List<StockBar> result = new ArrayList<>();
+    StockBar current = null;
+    long periodEnd = Long.MIN_VALUE;
+    for (StockBar row : rows) {
+      int day = row.getTradeDate();
+      if (current == null || day >= periodEnd) {
+        periodEnd = nextPeriodStart(day, resolution);
+        current = open(row);
+        result.add(current);
+      } else {
+        merge(current, row);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * 下一个周期第一天的 epoch day；周以周一开始
+   */
+  private static long nextPeriodStart(int day, Resolution resolution) {
+    if (resolution == Resolution.WEEK) {
+      // 1970-01-01 是周四，加3后按7取整即为本周一
+      return Math.floorDiv(day + 3L, 7) * 7 - 3 + 7;
+    }
+    LocalDate date = LocalDate.ofEpochDay(day);
+    return date.withDayOfMonth(1).plusMonths(1).toEpochDay();
+  }
+
+  private static StockBar open(StockBar row) {
+    StockBar bar = new StockBar();
+    bar.setTsCode(row.getTsCode());
+    bar.setTradeDate(row.getTradeDate());
+    bar.setOpen(row.getOpen());
+    bar.setHigh(row.getHigh());
+    bar.setLow(row.getLow());
+    bar.setClose(row.getClose());
+    bar.setPreClose(row.getPreClose());
+    bar.setPctChg(row.getPctChg());
+    bar.setVol(row.getVol());
+    bar.setAmount(row.getAmount());
+    bar.setTurnoverRate(row.getTurnoverRate());
+    bar.setMa5(row.getMa5());
+    bar.setMa10(row.getMa10());
+    bar.setMa120(row.getMa120());
+    bar.setMa250(row.getMa250());
+    return bar;
+  }
+
+  private static void merge(StockBar bar, StockBar row) {
+    bar.setTradeDate(row.getTradeDate());
+    if (Double.isNaN(bar.getOpen())) {
+      bar.setOpen(row.getOpen());
+    }
+    bar.setHigh(max(bar.getHigh(), row.getHigh()));
+    bar.setLow(min(bar.getLow(), row.getLow()));
+    if (!Double.isNaN(row.getClose())) {
+      bar.setClose(row.getClose());
+    }
+    if (!Double.isNaN(bar.getClose()) && !Double.isNaN(bar.getPreClose()) && bar.getPreClose() != 0) {
+      bar.setPctChg((bar.getClose() / bar.getPreClose() - 1) * 100);
+    }
+    bar.setVol(sum(bar.getVol(), row.getVol()));
+    bar.setAmount(sum(bar.getAmount(), row.getAmount()));
+    bar.setTurnoverRate(sum(bar.getTurnoverRate(), row.getTurnoverRate()));
+    bar.setMa5(row.getMa5());
+    bar.setMa10(row.getMa10());
+    bar.setMa120(row.getMa120());
+    bar.setMa250(row.getMa250());
+  }
+
+  // 以下合并函数忽略空值（NaN），两者都为空时结果为空
+
+  private static double max(double a, double b) {
+    return Double.isNaN(a) ? b : Double.isNaN(b) ? a : Math.max(a, b);
+  }
+
+  private static double min(double a, double b) {
+    return Double.isNaN(a) ? b : Double.isNaN(b) ? a : Math.min(a, b);
+  }
+
+  private static double sum(double a, double b) {
+    return Double.isNaN(a) ? b : Double.isNaN(b) ? a : a + b;
+  }
+
+  /**
+   * 按收盘价的 LTTB 选点：保留首尾两行，中间的行均分为 maxPoints-2 个桶，
+   * 每个桶选与前一选中点、下一桶均值所成三角形面积最大的一行
+   */
+  static List<StockBar> lttb(List<StockBar> rows, int maxPoints) {
+    int n = rows.size();
+    if (n <= maxPoints) {
+      return rows;
+    }
+    List<StockBar> result = new ArrayList<>(maxPoints);
+    result.add(rows.get(0));
+    double bucketSize = (double) (n - 2) / (maxPoints - 2);
+    int a = 0;
+    for (int bucket = 0; bucket < maxPoints - 2; bucket++) {
+      int start = (int) (bucket * bucketSize) + 1;
+      int end = (int) ((bucket + 1) * bucketSize) + 1;
+
+      // 下一个桶的平均点，最后一个桶以末行代替
+      int nextStart = end;
+      int nextEnd = Math.min((int) ((bucket + 2) * bucketSize) + 1, n);
+      double avgX = 0;
+      double avgY = 0;
+      int count = 0;
+      for (int i = nextStart; i < nextEnd; i++) {
+        double y = rows.get(i).getClose();
+        if (!Double.isNaN(y)) {
+          avgX += rows.get(i).getTradeDate();
+          avgY += y;
+          count++;
+        }
+      }
+      if (count == 0) {
+        avgX = rows.get(n - 1).getTradeDate();
+        avgY = rows.get(n - 1).getClose();
+      } else {
+        avgX /= count;
+        avgY /= count;
+      }
+
+      double ax = rows.get(a).getTradeDate();
+      double ay = rows.get(a).getClose();
+      int selected = start;
+      double maxArea = -1;
+      for (int i = start; i < end; i++) {
+        StockBar row = rows.get(i);
+        double area = Math.abs((ax - avgX) * (row.getClose() - ay) - (ax - row.getTradeDate()) * (avgY - ay));
+        // 含空值时面积为 NaN，不会被选中
+        if (area > maxArea) {
+          maxArea = area;
+          selected = i;
+        }
+      }
+      result.add(rows.get(selected));
+      a = selected;
+    }
+    result.add(rows.get(n - 1));
+    return result;
+  }
+}
@@ -0,0 +1,132 @@
+package com.example.stock.service.impl;
+
+import com.example.stock.dto.StockQuery;
+import com.example.stock.dto.StockResponse;
+import com.example.stock.indicator.IndicatorEngine;
+import com.example.stock.indicator.IndicatorSpec;
+import com.example.stock.service.Screen;
+import com.example.stock.service.StockService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.context.annotation.Primary;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.stereotype.Service;
+import org.springframework.util.ReflectionUtils;
+
+import javax.annotation.PostConstruct;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 相同筛选查询的合并（single-flight）
+ *
+ * 位于带缓存的 {@link StockServiceImpl} 之前：同一时刻键相同的查询只有第一个调用方真正执行，
+ * 其余调用方等待并共享它的结果（或异常），等待超过 stock.coalesce.timeout-ms 时返回503。
+ * 键与筛选缓存相同（含数据版本戳），行情变更后的新请求不会合并到变更前开始的查询上。
+ * 缓存本身的 sync 只在缓存开启时生效且等待没有上限，这里对所有调用方统一限时。
+ * resolution/maxPoints 不属于键：不同周期的请求共享同一份日线页，拿到结果后再由 {@link BarSampler} 降采样。
+ * indicators 同样不属于键，降采样之后由 {@link IndicatorEngine} 附加指标列。
+ */
+@Service
+@Primary
+public class CoalescingStockService implements StockService {
+
+  private static final Method GET_SCREEN_DATA =
+      ReflectionUtils.findMethod(StockService.class, "getScreenData", Screen.class, StockQuery.class);
+
+  @Autowired
+  @Qualifier("stockServiceImpl")
+  private StockService delegate;
+
+  @Autowired
+  @Qualifier("screenKeyGenerator")
+  private KeyGenerator keyGenerator;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Autowired
+  private IndicatorEngine indicatorEngine;
+
+  @Value("${stock.coalesce.enabled:true}")
+  private boolean enabled;
+
+  @Value("${stock.coalesce.timeout-ms:10000}")
+  private long timeoutMs;
+
+  // 执行中的查询
+  private final ConcurrentHashMap<Object, CompletableFuture<StockResponse>> inFlight = new ConcurrentHashMap<>();
+
+  @PostConstruct
+  public void init() {
+    meterRegistry.gaugeMapSize("stock.screen.inflight", Tags.empty(), inFlight);
+  }
+
+  @Override
+  public StockResponse getScreenData(Screen screen, StockQuery query) {
+    BarSampler.Resolution resolution = BarSampler.Resolution.parse(query.getResolution());
+    BarSampler.checkMaxPoints(query.getMaxPoints());
+    List<IndicatorSpec> indicators = indicatorEngine.parse(query.getIndicators());
+    return indicatorEngine.attach(
+        BarSampler.apply(coalesce(screen, query), resolution, query.getMaxPoints()), indicators);
+  }
+
+  private StockResponse coalesce(Screen screen, StockQuery query) {
+    if (!enabled) {
+      return delegate.getScreenData(screen, query);
+    }
+    Object key = keyGenerator.generate(delegate, GET_SCREEN_DATA, screen, query);
+    CompletableFuture<StockResponse> flight = new CompletableFuture<>();
+    CompletableFuture<StockResponse> existing = inFlight.putIfAbsent(key, flight);
+    if (existing == null) {
+      return lead(key, flight, screen, query);
+    }
+    meterRegistry.counter("stock.screen.coalesced", "screen", screen.name()).increment();
+    return await(existing);
+  }
+
+  /**
+   * 由第一个调用方在自己的线程中执行查询，完成后通知等待方
+   */
+  private StockResponse lead(Object key, CompletableFuture<StockResponse> flight, Screen screen, StockQuery query) {
+    try {
+      StockResponse response = delegate.getScreenData(screen, query);
+      flight.complete(response);
+      return response;
+    } catch (RuntimeException | Error e) {
+      flight.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.remove(key, flight);
+    }
+  }
+
+  private StockResponse await(CompletableFuture<StockResponse> flight) {
+    try {
+      return flight.get(timeoutMs, TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      throw new QueryTimeoutException("等待相同查询的结果超时");
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new QueryTimeoutException("等待相同查询的结果被中断");
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IllegalStateException(cause);
+    }
+  }
+}
@@ -0,0 +1,128 @@
+package com.example.stock.service.impl;
+
+import com.example.stock.dto.StockResponse;
+import com.example.stock.entity.StockBar;
+import com.example.stock.service.Screen;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 将查询结果组装为 grid_data
+ *
+ * 输入行必须已按 ts_code、trade_date 升序排列（SQL 和内存引擎都保证这一点），
+ * 因此一次顺序遍历即可切分出每只股票的行，无需再分组和按日期排序；
+ * 只在需要时对当前页的股票（通常9只）按涨跌幅排序。
+ */
+public final class GridAssembler {
+
+  // grid_data 每行的列名
+  public static final List<String> COLUMN_NAMES = Collections.unmodifiableList(Arrays.asList(
+      "ts_code", "trade_date", "open", "high",
+      "low", "close", "pre_close", "pct_chg", "vol", "amount",
+      "turnover_rate", "ma5", "ma10", "ma120", "ma250"));
+
+  private GridAssembler() {
+  }
+
+  /**
+   * 构建响应对象
+   *
+   * @param screen       筛选类型，决定股票的排列顺序
+   * @param rows         按 ts_code、trade_date 升序排列的行
+   * @param baseDate     目标交易日
+   * @param totalStocks  符合条件的股票总数
+   * @param pageNum      页码
+   * @param tradeDateStr 请求中的交易日期
+   * @return 响应对象
+   */
+  public static StockResponse assemble(Screen screen, List<StockBar> rows, LocalDate baseDate,
+      long totalStocks, Integer pageNum, String tradeDateStr) {
+    StockResponse response = newResponse(tradeDateStr != null ? tradeDateStr : LocalDate.now().toString(), pageNum);
+    response.setGrid_data(buildGrid(screen, rows, baseDate));
+    response.setStock_count((int) totalStocks);
+    return response;
+  }
+
+  /**
+   * 构建空响应对象
+   */
+  public static StockResponse empty(LocalDate targetDate, Integer pageNum, String tradeDateStr) {
+    StockResponse response = newResponse(tradeDateStr != null ? tradeDateStr : String.valueOf(targetDate), pageNum);
+    response.setGrid_data(new ArrayList<>());
+    response.setStock_count(0);
+    return response;
+  }
+
+  /**
+   * 一次遍历切分每只股票的行；全部数据和涨停按最接近目标日那天的涨跌幅降序，
+   * 跌停按升序，均线筛选保持 ts_code 顺序。每只股票的行直接取 rows 的子列表，不复制
+   */
+  static List<List<StockBar>> buildGrid(Screen screen, List<StockBar> rows, LocalDate baseDate) {
+    long base = baseDate != null ? baseDate.toEpochDay() : LocalDate.now().toEpochDay();
+    int n = rows.size();
+    List<Group> groups = new ArrayList<>();
+
+    int start = 0;
+    while (start < n) {
+      String tsCode = rows.get(start).getTsCode();
+      int end = start + 1;
+      while (end < n && tsCode.equals(rows.get(end).getTsCode())) {
+        end++;
+      }
+
+      double closestPctChg = Double.NaN;
+      long closestDistance = Long.MAX_VALUE;
+      for (int i = start; i < end; i++) {
+        StockBar row = rows.get(i);
+        long distance = Math.abs(row.getTradeDate() - base);
+        if (distance < closestDistance) {
+          closestDistance = distance;
+          closestPctChg = row.getPctChg();
+        }
+      }
+      groups.add(new Group(rows.subList(start, end), Double.isNaN(closestPctChg) ? 0.0 : closestPctChg));
+      start = end;
+    }
+
+    switch (screen) {
+      case ALL:
+      case LIMIT_UP:
+        groups.sort(Comparator.comparingDouble((Group g) -> g.pctChg).reversed());
+        break;
+      case LIMIT_DOWN:
+        groups.sort(Comparator.comparingDouble((Group g) -> g.pctChg));
+        break;
+      default:
+        break;
+    }
+
+    List<List<StockBar>> gridData = new ArrayList<>(groups.size());
+    for (Group group : groups) {
+      gridData.add(group.rows);
+    }
+    return gridData;
+  }
+
+  private static StockResponse newResponse(String date, Integer pageNum) {
+    StockResponse response = new StockResponse();
+    response.setColumn_names(COLUMN_NAMES);
+    response.setDate(date);
+    response.setPage(pageNum != null ? pageNum : 1);
+    return response;
+  }
+
+  private static final class Group {
+    private final List<StockBar> rows;
+    private final double pctChg;
+
+    private Group(List<StockBar> rows, double pctChg) {
+      this.rows = rows;
+      this.pctChg = pctChg;
+    }
+  }
+}
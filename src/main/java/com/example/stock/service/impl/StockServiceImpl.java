@@ -2,24 +2,35 @@ package com.example.stock.service.impl;
 
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.example.stock.config.CacheConfig;
+import com.example.stock.dto.StockQuery;
 import com.example.stock.dto.StockResponse;
-import com.example.stock.entity.StockData;
+import com.example.stock.engine.MarketStore;
+import com.example.stock.engine.ScreenIndex;
+import com.example.stock.engine.SeriesCache;
+import com.example.stock.entity.StockBar;
 import com.example.stock.mapper.StockDataMapper;
+import com.example.stock.service.PageCursor;
+import com.example.stock.service.QueryExecutor;
+import com.example.stock.service.Screen;
+import com.example.stock.service.ScreenPage;
 import com.example.stock.service.StockService;
+import com.example.stock.service.TradingCalendar;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.AbstractMap.SimpleImmutableEntry;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Comparator;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.concurrent.Future;
 
 @Service
 public class StockServiceImpl implements StockService {
@@ -27,486 +38,265 @@ public class StockServiceImpl implements StockService {
   @Autowired
   private StockDataMapper stockDataMapper;
 
-  @Value("${stock.page.size}")
-  private int pageSize;
+  @Autowired
+  private TradingCalendar tradingCalendar;
 
-  private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd");
+  @Autowired
+  private MarketStore marketStore;
 
-  @Override
-  public StockResponse getAllData(String tsCode, String tradeDate, Integer pageNum) {
-    // 解析传入的日期
-    LocalDate targetDate = parseDate(tradeDate);
-    if (targetDate == null) {
-      targetDate = stockDataMapper.findMaxDate();
-    }
+  @Autowired
+  private ScreenIndex screenIndex;
 
-    int offset = (pageNum != null ? pageNum - 1 : 0) * pageSize;
+  @Autowired
+  private SeriesCache seriesCache;
 
-    // 严格使用指定日期查询，SQL会自动计算前后20个交易日的范围
-    List<StockData> stockList = stockDataMapper.findByDateRange(
-        tsCode,
-        targetDate,
-        null, // 不需要显式传递endDate，SQL会自动计算
-        pageSize,
-        offset);
+  @Autowired
+  private QueryExecutor queryExecutor;
 
-    Long totalCount = stockDataMapper.countStocks(tsCode, targetDate, null, null, null);
+  @Autowired
+  private MeterRegistry meterRegistry;
 
-    // 如果没有数据，返回一个空响应
-    if (stockList.isEmpty()) {
-      return buildEmptyResponse(targetDate, pageNum, tradeDate);
-    }
+  @Value("${stock.page.size}")
+  private int pageSize;
 
-    // 从查询结果中获取实际的日期范围
-    LocalDate startDate = stockList.stream()
-        .map(StockData::getTradeDate)
-        .min(LocalDate::compareTo)
-        .orElse(targetDate);
-    LocalDate endDate = stockList.stream()
-        .map(StockData::getTradeDate)
-        .max(LocalDate::compareTo)
-        .orElse(targetDate);
-
-    return buildResponse(stockList, startDate, endDate, totalCount.intValue(), pageNum, tradeDate);
-  }
+  private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd");
 
   @Override
-  public StockResponse getLimitUpData(String tsCode, String tradeDate, Integer pageNum) {
-    // 解析传入的日期
-    LocalDate targetDate = parseDate(tradeDate);
-    if (targetDate == null) {
-      targetDate = stockDataMapper.findMaxDate();
-    }
-
-    int offset = (pageNum != null ? pageNum - 1 : 0) * pageSize;
-
-    // 严格使用指定日期筛选涨停股票
-    List<StockData> stockList = stockDataMapper.findLimitUp(
-        tsCode,
-        targetDate,
-        null,
-        pageSize,
-        offset);
-
-    Long totalCount = stockDataMapper.countStocks(tsCode, targetDate, null, true, null);
-
-    // 如果没有数据，返回一个空响应
-    if (stockList.isEmpty()) {
-      return buildEmptyResponse(targetDate, pageNum, tradeDate);
+  @Cacheable(cacheNames = CacheConfig.SCREEN_CACHE, keyGenerator = "screenKeyGenerator", sync = true)
+  public StockResponse getScreenData(Screen screen, StockQuery query) {
+    // 只统计未命中缓存的查询，命中率见 cache.gets 指标
+    Timer.Sample sample = Timer.start(meterRegistry);
+    try {
+      return query(screen, query);
+    } finally {
+      sample.stop(meterRegistry.timer("stock.screen", "screen", screen.name()));
     }
-
-    // 显示使用日期范围的开始和结束日期（如果有数据）
-    LocalDate startDate = stockList.stream()
-        .map(StockData::getTradeDate)
-        .min(LocalDate::compareTo)
-        .orElse(targetDate);
-    LocalDate endDate = stockList.stream()
-        .map(StockData::getTradeDate)
-        .max(LocalDate::compareTo)
-        .orElse(targetDate);
-
-    return buildLimitResponse(stockList, startDate, endDate, totalCount.intValue(), pageNum, tradeDate);
   }
 
-  @Override
-  public StockResponse getLimitDownData(String tsCode, String tradeDate, Integer pageNum) {
-    // 解析传入的日期
-    LocalDate targetDate = parseDate(tradeDate);
-    if (targetDate == null) {
-      targetDate = stockDataMapper.findMaxDate();
-    }
-
-    int offset = (pageNum != null ? pageNum - 1 : 0) * pageSize;
-
-    // 严格使用指定日期筛选跌停股票
-    List<StockData> stockList = stockDataMapper.findLimitDown(
-        tsCode,
-        targetDate,
-        null,
-        pageSize,
-        offset);
-
-    Long totalCount = stockDataMapper.countStocks(tsCode, targetDate, null, null, true);
-
-    // 如果没有数据，返回一个空响应
-    if (stockList.isEmpty()) {
-      return buildEmptyResponse(targetDate, pageNum, tradeDate);
-    }
-
-    // 显示使用日期范围的开始和结束日期（如果有数据）
-    LocalDate startDate = stockList.stream()
-        .map(StockData::getTradeDate)
-        .min(LocalDate::compareTo)
-        .orElse(targetDate);
-    LocalDate endDate = stockList.stream()
-        .map(StockData::getTradeDate)
-        .max(LocalDate::compareTo)
-        .orElse(targetDate);
-
-    return buildLimitResponse(stockList, startDate, endDate, totalCount.intValue(), pageNum, tradeDate);
-  }
+  private StockResponse query(Screen screen, StockQuery query) {
+    String tsCode = query.getTsCode();
+    String tradeDate = query.getTradeDate();
+    Integer pageNum = query.getPageNum();
 
-  @Override
-  public StockResponse getHalfYearLineData(String tsCode, String tradeDate, Integer pageNum) {
     // 解析传入的日期
     LocalDate targetDate = parseDate(tradeDate);
     if (targetDate == null) {
-      targetDate = stockDataMapper.findMaxDate();
+      targetDate = tradingCalendar.maxDate();
     }
 
-    int offset = (pageNum != null ? pageNum - 1 : 0) * pageSize;
-
-    // 查询半年线数据
-    List<StockData> stockList = stockDataMapper.findHalfYearLine(
-        tsCode,
-        targetDate,
-        pageSize,
-        offset);
+    // 传入游标时从游标之后取一页，否则按页码计算偏移量
+    PageCursor cursor = PageCursor.decode(query.getAfter());
+    int offset = cursor == null ? (pageNum != null ? pageNum - 1 : 0) * pageSize : 0;
 
-    Long totalCount = stockDataMapper.countHalfYearLineStocks(tsCode, targetDate);
+    // 严格使用指定日期筛选，由交易日历计算前后窗口的范围
+    ScreenPage page = loadPage(screen, tsCode, targetDate, offset, cursor);
+    List<StockBar> stockList = page.getRows();
+    long totalCount = page.getTotalCount();
+    meterRegistry.summary("stock.screen.rows", "screen", screen.name()).record(stockList.size());
 
     // 如果没有数据，返回一个空响应
     if (stockList.isEmpty()) {
-      return buildEmptyResponse(targetDate, pageNum, tradeDate);
+      return GridAssembler.empty(targetDate, pageNum, tradeDate);
     }
 
-    // 从查询结果中获取实际的日期范围
-    LocalDate startDate = stockList.stream()
-        .map(StockData::getTradeDate)
-        .min(LocalDate::compareTo)
-        .orElse(targetDate);
-    LocalDate endDate = stockList.stream()
-        .map(StockData::getTradeDate)
-        .max(LocalDate::compareTo)
-        .orElse(targetDate);
-
-    return buildMaResponse(stockList, startDate, endDate, totalCount.intValue(), pageNum, tradeDate, "ma120");
-  }
-
-  @Override
-  public StockResponse getYearLineData(String tsCode, String tradeDate, Integer pageNum) {
-    // 解析传入的日期
-    LocalDate targetDate = parseDate(tradeDate);
-    if (targetDate == null) {
-      targetDate = stockDataMapper.findMaxDate();
-    }
-
-    int offset = (pageNum != null ? pageNum - 1 : 0) * pageSize;
-
-    // 查询年线数据
-    List<StockData> stockList = stockDataMapper.findYearLine(
-        tsCode,
-        targetDate,
-        pageSize,
-        offset);
-
-    Long totalCount = stockDataMapper.countYearLineStocks(tsCode, targetDate);
-
-    // 如果没有数据，返回一个空响应
-    if (stockList.isEmpty()) {
-      return buildEmptyResponse(targetDate, pageNum, tradeDate);
-    }
-
-    // 从查询结果中获取实际的日期范围
-    LocalDate startDate = stockList.stream()
-        .map(StockData::getTradeDate)
-        .min(LocalDate::compareTo)
-        .orElse(targetDate);
-    LocalDate endDate = stockList.stream()
-        .map(StockData::getTradeDate)
-        .max(LocalDate::compareTo)
-        .orElse(targetDate);
-
-    return buildMaResponse(stockList, startDate, endDate, totalCount.intValue(), pageNum, tradeDate, "ma250");
+    StockResponse response = GridAssembler.assemble(screen, stockList, targetDate, totalCount, pageNum, tradeDate);
+    response.setNext_cursor(nextCursor(screen, stockList, targetDate));
+    return response;
   }
 
   /**
-   * 获取日期范围
+   * 查询一页筛选结果，内存行情已加载时直接在内存中完成，否则查询数据库
    *
-   * @param tradeDate 交易日期
-   * @return 日期范围
+   * @param screen     筛选类型
+   * @param tsCode     股票代码
+   * @param targetDate 目标交易日
+   * @param offset     跳过的股票数
+   * @param cursor     键集分页游标，可为空
+   * @return 当前页数据及总数
    */
-  private SimpleImmutableEntry<LocalDate, LocalDate> getDateRange(LocalDate tradeDate) {
-    LocalDate targetDate = tradeDate;
-    if (targetDate == null) {
-      targetDate = LocalDate.now();
+  private ScreenPage loadPage(Screen screen, String tsCode, LocalDate targetDate, int offset, PageCursor cursor) {
+    SimpleImmutableEntry<LocalDate, LocalDate> window = getDateRange(targetDate, screen.getWindowDays());
+    LocalDate windowStart = window.getKey();
+    LocalDate windowEnd = window.getValue();
+
+    if (marketStore.isLoaded()) {
+      countSource(screen, "memory");
+      return marketStore.query(screen, tsCode, targetDate, windowStart, windowEnd, pageSize, offset, cursor);
     }
 
-    // 确保目标日期不超过数据库中的最大日期
-    LocalDate maxDate = stockDataMapper.findMaxDate();
-    if (targetDate.isAfter(maxDate)) {
-      targetDate = maxDate;
-    }
+    String afterCode = cursor != null ? cursor.getTsCode() : null;
+    BigDecimal afterPct = cursor != null ? cursor.getPctChg() : null;
 
-    // 获取目标日期前后20个交易日的日期范围
-    LocalDate startDate = stockDataMapper.findPreviousNthTradeDate(targetDate, 20);
-    if (startDate == null) {
-      startDate = stockDataMapper.findMinDate(); // 如果没有足够的交易日，则使用最早日期
+    // 位图索引覆盖该交易日时，总数取位图基数，按 ts_code 排序的筛选直接由位图确定当前页的股票，
+    // 涨跌停按涨跌幅排序，当前页的股票由 findPage 查询
+    long indexedCount = screenIndex.count(screen, targetDate, tsCode);
+    if (indexedCount == 0) {
+      countSource(screen, "index");
+      return new ScreenPage(Collections.emptyList(), 0);
     }
-
-    LocalDate endDate = stockDataMapper.findNextNthTradeDate(targetDate, 20);
-    if (endDate == null) {
-      endDate = maxDate; // 如果没有足够的交易日，则使用最晚日期
+    if (indexedCount > 0 && screen != Screen.LIMIT_UP && screen != Screen.LIMIT_DOWN) {
+      List<String> codes = screenIndex.page(screen, targetDate, tsCode, offset, afterCode, pageSize);
+      if (codes != null) {
+        countSource(screen, "index");
+        List<StockBar> rows = codes.isEmpty()
+            ? Collections.emptyList()
+            : seriesCache.window(codes, windowStart, windowEnd);
+        return new ScreenPage(rows, indexedCount);
+      }
     }
 
-    return new SimpleImmutableEntry<>(startDate, endDate);
+    // 索引未覆盖时总数与当前页并行查询，延迟取决于较慢的一条
+    countSource(screen, "database");
+    Future<Long> totalCount = indexedCount >= 0
+        ? null
+        : queryExecutor.submit(() -> countInDatabase(screen, tsCode, targetDate));
+    List<StockBar> rows;
+    try {
+      rows = findPage(screen, tsCode, targetDate, windowStart, windowEnd, offset, afterCode, afterPct);
+    } catch (RuntimeException e) {
+      if (totalCount != null) {
+        totalCount.cancel(true);
+      }
+      throw e;
+    }
+    return new ScreenPage(rows, totalCount == null ? indexedCount : queryExecutor.join(totalCount));
   }
 
   /**
-   * 解析日期字符串为LocalDate
-   * 
-   * @param dateStr 日期字符串
-   * @return LocalDate对象，如果字符串为空则返回null
+   * 按数据来源（memory、index、database）计数，观察内存引擎和位图索引的覆盖情况
    */
-  private LocalDate parseDate(String dateStr) {
-    if (dateStr == null || dateStr.isEmpty()) {
-      return null;
-    }
-    return LocalDate.parse(dateStr);
+  private void countSource(Screen screen, String source) {
+    meterRegistry.counter("stock.screen.source", "screen", screen.name(), "source", source).increment();
   }
 
   /**
-   * 构建响应对象
+   * 在数据库中查询一页筛选结果。序列缓存开启时只查询当前页的股票代码，窗口内的行从缓存切片，
+   * 与其它页、其它交易日和其它筛选共用；关闭时一条语句同时取回窗口内的行
    */
-  private StockResponse buildResponse(List<StockData> stockDataList,
-      LocalDate startDate, LocalDate endDate,
-      int totalStocks, Integer pageNum, String tradeDateStr) {
-    StockResponse response = new StockResponse();
-
-    // 设置列名
-    response.setColumn_names(Arrays.asList(
-        "ts_code", "trade_date", "open", "high",
-        "low", "close", "pre_close", "pct_chg", "vol", "amount",
-        "turnover_rate", "ma5", "ma10", "ma120", "ma250"));
-
-    // 设置查询日期
-    response.setDate(tradeDateStr != null ? tradeDateStr : LocalDate.now().toString());
-
-    // 设置分页信息
-    int page = pageNum != null ? pageNum : 1;
-    response.setPage(page);
-
-    // 根据tradeDateStr获取基准日期
-    LocalDate baseDate = tradeDateStr != null ? parseDate(tradeDateStr) : LocalDate.now();
-
-    // 获取具有最大涨跌幅的股票编码及其涨跌幅值
-    Map<String, Double> maxPctChgByStockOnDate = new HashMap<>();
-
-    for (StockData stock : stockDataList) {
-      String tsCode = stock.getTsCode();
-      LocalDate stockDate = stock.getTradeDate();
-
-      // 只考虑基准日期当天或最近的一天的涨跌幅
-      if (!maxPctChgByStockOnDate.containsKey(tsCode) ||
-          Math.abs(stockDate.toEpochDay() - baseDate.toEpochDay()) < Math
-              .abs(getClosestDateForStock(stockDataList, tsCode, baseDate).toEpochDay() - baseDate.toEpochDay())) {
-        maxPctChgByStockOnDate.put(tsCode, stock.getPctChg().doubleValue());
-      }
+  private List<StockBar> findPage(Screen screen, String tsCode, LocalDate targetDate, LocalDate windowStart,
+      LocalDate windowEnd, int offset, String afterCode, BigDecimal afterPct) {
+    if (seriesCache.isEnabled()) {
+      List<String> codes = stockDataMapper.findScreenCodes(screen, tsCode, targetDate, pageSize, offset,
+          afterCode, afterPct);
+      return codes.isEmpty() ? Collections.emptyList() : seriesCache.window(codes, windowStart, windowEnd);
     }
-
-    // 将股票数据按照股票代码分组
-    Map<String, List<StockResponse.StockData>> groupedDataByStock = stockDataList.stream()
-        .map(this::convertToDto)
-        .collect(Collectors.groupingBy(StockResponse.StockData::getTsCode));
-
-    // 按当天涨跌幅对股票代码进行排序
-    List<String> sortedStockCodes = new ArrayList<>(groupedDataByStock.keySet());
-    sortedStockCodes.sort((tsCode1, tsCode2) -> Double.compare(maxPctChgByStockOnDate.getOrDefault(tsCode2, 0.0),
-        maxPctChgByStockOnDate.getOrDefault(tsCode1, 0.0)));
-
-    // 转换为grid_data格式：List<List<List<Object>>>
-    List<List<List<Object>>> gridData = new ArrayList<>();
-
-    for (String tsCode : sortedStockCodes) {
-      List<List<Object>> stockDataArray = new ArrayList<>();
-
-      // 对同一只股票的数据按照日期升序排序
-      List<StockResponse.StockData> sortedData = groupedDataByStock.get(tsCode).stream()
-          .sorted(Comparator.comparing(StockResponse.StockData::getTradeDate))
-          .collect(Collectors.toList());
-
-      // 将每个股票的数据转换为Object[]并添加到stockDataArray
-      for (StockResponse.StockData data : sortedData) {
-        stockDataArray.add(Arrays.asList(data.toObjectArray()));
-      }
-
-      gridData.add(stockDataArray);
+    switch (screen) {
+      case LIMIT_UP:
+        return stockDataMapper.findLimitUp(tsCode, targetDate, windowStart, windowEnd, pageSize, offset,
+            afterCode, afterPct);
+      case LIMIT_DOWN:
+        return stockDataMapper.findLimitDown(tsCode, targetDate, windowStart, windowEnd, pageSize, offset,
+            afterCode, afterPct);
+      case HALF_YEAR_LINE:
+        return stockDataMapper.findHalfYearLine(tsCode, targetDate, windowStart, windowEnd, pageSize, offset,
+            afterCode);
+      case YEAR_LINE:
+        return stockDataMapper.findYearLine(tsCode, targetDate, windowStart, windowEnd, pageSize, offset,
+            afterCode);
+      default:
+        return stockDataMapper.findByDateRange(tsCode, targetDate, windowStart, windowEnd, pageSize, offset,
+            afterCode, afterPct);
     }
-
-    // 设置响应数据
-    response.setGrid_data(gridData);
-    response.setStock_count(totalStocks);
-
-    return response;
   }
 
   /**
-   * 获取某只股票在给定日期最近的交易日
+   * 在数据库中统计符合筛选条件的股票数，位图索引未覆盖目标交易日时使用
    */
-  private LocalDate getClosestDateForStock(List<StockData> stockDataList, String tsCode, LocalDate targetDate) {
-    return stockDataList.stream()
-        .filter(stock -> stock.getTsCode().equals(tsCode))
-        .map(StockData::getTradeDate)
-        .min(Comparator.comparing(date -> Math.abs(date.toEpochDay() - targetDate.toEpochDay())))
-        .orElse(targetDate);
+  private long countInDatabase(Screen screen, String tsCode, LocalDate targetDate) {
+    Long totalCount;
+    switch (screen) {
+      case LIMIT_UP:
+        totalCount = stockDataMapper.countStocks(tsCode, targetDate, null, true, null);
+        break;
+      case LIMIT_DOWN:
+        totalCount = stockDataMapper.countStocks(tsCode, targetDate, null, null, true);
+        break;
+      case HALF_YEAR_LINE:
+        totalCount = stockDataMapper.countHalfYearLineStocks(tsCode, targetDate);
+        break;
+      case YEAR_LINE:
+        totalCount = stockDataMapper.countYearLineStocks(tsCode, targetDate);
+        break;
+      default:
+        totalCount = stockDataMapper.countStocks(tsCode, targetDate, null, null, null);
+        break;
+    }
+    return totalCount != null ? totalCount : 0;
   }
 
   /**
-   * 构建涨停/跌停响应对象
+   * 计算下一页游标：取当前页中按筛选排序排在最后的股票，当前页不满时返回null
    */
-  private StockResponse buildLimitResponse(List<StockData> stockDataList,
-      LocalDate startDate, LocalDate endDate,
-      int totalStocks, Integer pageNum, String tradeDateStr) {
-    StockResponse response = new StockResponse();
-
-    // 设置列名
-    response.setColumn_names(Arrays.asList(
-        "ts_code", "trade_date", "open", "high",
-        "low", "close", "pre_close", "pct_chg", "vol", "amount",
-        "turnover_rate", "ma5", "ma10", "ma120", "ma250"));
-
-    // 设置查询日期
-    response.setDate(tradeDateStr != null ? tradeDateStr : LocalDate.now().toString());
-
-    // 设置分页信息
-    int page = pageNum != null ? pageNum : 1;
-    response.setPage(page);
-
-    // 根据tradeDateStr获取基准日期
-    LocalDate baseDate = tradeDateStr != null ? parseDate(tradeDateStr) : stockDataMapper.findMaxDate();
-
-    // 将股票数据按照股票代码分组
-    Map<String, List<StockResponse.StockData>> groupedDataByStock = stockDataList.stream()
-        .map(this::convertToDto)
-        .collect(Collectors.groupingBy(StockResponse.StockData::getTsCode));
-
-    // 获取特定日期的数据用于排序（股票代码已在SQL中按涨跌幅排序）
-    List<String> sortedStockCodes = new ArrayList<>(groupedDataByStock.keySet());
-
-    // 转换为grid_data格式：List<List<List<Object>>>
-    List<List<List<Object>>> gridData = new ArrayList<>();
-
-    for (String tsCode : sortedStockCodes) {
-      List<List<Object>> stockDataArray = new ArrayList<>();
-
-      // 对同一只股票的数据按照日期升序排序
-      List<StockResponse.StockData> sortedData = groupedDataByStock.get(tsCode).stream()
-          .sorted(Comparator.comparing(StockResponse.StockData::getTradeDate))
-          .collect(Collectors.toList());
-
-      // 将每个股票的数据转换为Object[]并添加到stockDataArray
-      for (StockResponse.StockData data : sortedData) {
-        stockDataArray.add(Arrays.asList(data.toObjectArray()));
+  private String nextCursor(Screen screen, List<StockBar> stockList, LocalDate targetDate) {
+    boolean byPctChg = screen == Screen.LIMIT_UP || screen == Screen.LIMIT_DOWN;
+    StockBar last = null;
+    String previousCode = null;
+    int stockCount = 0;
+    int targetDay = (int) targetDate.toEpochDay();
+    for (StockBar row : stockList) {
+      if (!row.getTsCode().equals(previousCode)) {
+        previousCode = row.getTsCode();
+        stockCount++;
+      }
+      if (row.getTradeDate() != targetDay) {
+        continue;
+      }
+      if (last == null || comparePageOrder(screen, row, last) > 0) {
+        last = row;
       }
-
-      gridData.add(stockDataArray);
     }
-
-    // 设置响应数据
-    response.setGrid_data(gridData);
-    response.setStock_count(totalStocks);
-
-    return response;
+    if (last == null || stockCount < pageSize) {
+      return null;
+    }
+    return new PageCursor(byPctChg ? cursorPct(last.getPctChg()) : null, last.getTsCode()).encode();
   }
 
   /**
-   * 构建均线响应对象
+   * 按筛选的分页顺序比较两只股票在目标日期的数据
    */
-  private StockResponse buildMaResponse(List<StockData> stockDataList,
-      LocalDate startDate, LocalDate endDate,
-      int totalStocks, Integer pageNum, String tradeDateStr, String maType) {
-    StockResponse response = new StockResponse();
-
-    // 设置列名
-    response.setColumn_names(Arrays.asList(
-        "ts_code", "trade_date", "open", "high",
-        "low", "close", "pre_close", "pct_chg", "vol", "amount",
-        "turnover_rate", "ma5", "ma10", "ma120", "ma250"));
-
-    // 设置查询日期
-    response.setDate(tradeDateStr != null ? tradeDateStr : LocalDate.now().toString());
-
-    // 设置分页信息
-    int page = pageNum != null ? pageNum : 1;
-    response.setPage(page);
-
-    // 将股票数据按照股票代码分组
-    Map<String, List<StockResponse.StockData>> groupedDataByStock = stockDataList.stream()
-        .map(this::convertToDto)
-        .collect(Collectors.groupingBy(StockResponse.StockData::getTsCode));
-
-    // 转换为grid_data格式：List<List<List<Object>>>
-    List<List<List<Object>>> gridData = new ArrayList<>();
-
-    for (String tsCode : groupedDataByStock.keySet()) {
-      List<List<Object>> stockDataArray = new ArrayList<>();
-
-      // 对同一只股票的数据按照日期升序排序
-      List<StockResponse.StockData> sortedData = groupedDataByStock.get(tsCode).stream()
-          .sorted(Comparator.comparing(StockResponse.StockData::getTradeDate))
-          .collect(Collectors.toList());
-
-      // 将每个股票的数据转换为Object[]并添加到stockDataArray
-      for (StockResponse.StockData data : sortedData) {
-        stockDataArray.add(Arrays.asList(data.toObjectArray()));
-      }
-
-      gridData.add(stockDataArray);
+  private int comparePageOrder(Screen screen, StockBar a, StockBar b) {
+    int cmp = 0;
+    if (screen == Screen.LIMIT_UP) {
+      cmp = Double.compare(b.getPctChg(), a.getPctChg());
+    } else if (screen == Screen.LIMIT_DOWN) {
+      cmp = Double.compare(a.getPctChg(), b.getPctChg());
     }
-
-    // 设置响应数据
-    response.setGrid_data(gridData);
-    response.setStock_count(totalStocks);
-
-    return response;
+    return cmp != 0 ? cmp : a.getTsCode().compareTo(b.getTsCode());
   }
-
   /**
-   * 转换为DTO对象
+   * 游标中的涨跌幅按库中的4位小数还原，与SQL中的 pct_chg 精确比较
    */
-  private StockResponse.StockData convertToDto(StockData entity) {
-    StockResponse.StockData dto = new StockResponse.StockData();
-    dto.setTsCode(entity.getTsCode());
-    dto.setTradeDate(entity.getTradeDate());
-    dto.setOpen(entity.getOpen());
-    dto.setHigh(entity.getHigh());
-    dto.setLow(entity.getLow());
-    dto.setClose(entity.getClose());
-    dto.setPreClose(entity.getPreClose());
-    dto.setPctChg(entity.getPctChg());
-    dto.setVol(entity.getVol());
-    dto.setAmount(entity.getAmount());
-    dto.setTurnoverRate(entity.getTurnoverRate());
-    dto.setMa5(entity.getMa5());
-    dto.setMa10(entity.getMa10());
-    dto.setMa120(entity.getMa120());
-    dto.setMa250(entity.getMa250());
-    return dto;
+  private static BigDecimal cursorPct(double pctChg) {
+    return Double.isNaN(pctChg)
+        ? null
+        : BigDecimal.valueOf(pctChg).setScale(4, RoundingMode.HALF_UP).stripTrailingZeros();
   }
 
+
   /**
-   * 构建空响应对象
+   * 获取日期范围
+   *
+   * @param tradeDate  交易日期
+   * @param windowDays 前后各取的交易日数量
+   * @return 日期范围
    */
-  private StockResponse buildEmptyResponse(LocalDate targetDate, Integer pageNum, String tradeDateStr) {
-    StockResponse response = new StockResponse();
-
-    // 设置列名
-    response.setColumn_names(Arrays.asList(
-        "ts_code", "trade_date", "open", "high",
-        "low", "close", "pre_close", "pct_chg", "vol", "amount",
-        "turnover_rate", "ma5", "ma10", "ma120", "ma250"));
-
-    // 设置查询日期
-    response.setDate(tradeDateStr != null ? tradeDateStr : targetDate.toString());
-
-    // 设置分页信息
-    int page = pageNum != null ? pageNum : 1;
-    response.setPage(page);
-
-    // 设置空数据
-    response.setGrid_data(new ArrayList<>());
-    response.setStock_count(0);
+  private SimpleImmutableEntry<LocalDate, LocalDate> getDateRange(LocalDate tradeDate, int windowDays) {
+    // 没有足够的交易日时，交易日历会分别返回最早/最晚日期
+    LocalDate startDate = tradingCalendar.previousNth(tradeDate, windowDays);
+    LocalDate endDate = tradingCalendar.nextNth(tradeDate, windowDays);
+    return new SimpleImmutableEntry<>(startDate, endDate);
+  }
 
-    return response;
+  /**
+   * 解析日期字符串为LocalDate
+   * 
+   * @param dateStr 日期字符串
+   * @return LocalDate对象，如果字符串为空则返回null
+   */
+  private LocalDate parseDate(String dateStr) {
+    if (dateStr == null || dateStr.isEmpty()) {
+      return null;
+    }
+    return LocalDate.parse(dateStr);
   }
-}
\ No newline at end of file
+}
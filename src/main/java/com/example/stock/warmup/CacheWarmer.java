@@ -0,0 +1,252 @@
+package com.example.stock.warmup;
+
+import com.example.stock.dto.StockQuery;
+import com.example.stock.dto.StockResponse;
+import com.example.stock.event.MarketDataChangedEvent;
+import com.example.stock.service.Screen;
+import com.example.stock.service.StockService;
+import com.example.stock.service.TradingCalendar;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 筛选结果缓存预热
+ *
+ * 启动后和每次行情变更后，经由带缓存的 StockService 预先查询五类筛选在最新交易日
+ * （以及之前 previous-days 个交易日）的前 pages 页，使部署或入库后的首批请求直接命中缓存，
+ * 同时让数据库缓冲池载入这些页面涉及的数据。各筛选和交易日并行执行，并发数由 parallelism 限制。
+ * 首次预热结束（或超时）之前 {@link WarmupHealthIndicator} 报告 OUT_OF_SERVICE。
+ */
+@Component
+public class CacheWarmer {
+
+  private static final Logger log = LoggerFactory.getLogger(CacheWarmer.class);
+
+  @Autowired
+  private StockService stockService;
+
+  @Autowired
+  private TradingCalendar tradingCalendar;
+
+  @Value("${stock.warmup.enabled:true}")
+  private boolean enabled;
+
+  @Value("${stock.warmup.pages:3}")
+  private int pages;
+
+  @Value("${stock.warmup.previous-days:0}")
+  private int previousDays;
+
+  @Value("${stock.warmup.parallelism:4}")
+  private int parallelism;
+
+  @Value("${stock.warmup.timeout-ms:120000}")
+  private long timeoutMs;
+
+  @Value("${stock.page.size}")
+  private int pageSize;
+
+  // 已有尚未执行的预热时不再重复提交
+  private final AtomicBoolean pending = new AtomicBoolean();
+  private ExecutorService coordinator;
+  private ThreadPoolExecutor workers;
+
+  private volatile boolean warmed;
+  private volatile boolean running;
+  private volatile int runs;
+  private volatile LocalDate lastTradeDate;
+  private volatile Instant lastFinished;
+  private volatile long lastElapsedMs;
+  private volatile int lastPages;
+  private volatile int lastFailures;
+
+  @PostConstruct
+  public void start() {
+    coordinator = Executors.newSingleThreadExecutor(r -> {
+      Thread t = new Thread(r, "cache-warmup");
+      t.setDaemon(true);
+      return t;
+    });
+    AtomicInteger sequence = new AtomicInteger();
+    workers = new ThreadPoolExecutor(parallelism, parallelism, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+        r -> {
+          Thread t = new Thread(r, "cache-warmup-" + sequence.incrementAndGet());
+          t.setDaemon(true);
+          return t;
+        });
+    workers.allowCoreThreadTimeOut(true);
+  }
+
+  @PreDestroy
+  public void stop() {
+    coordinator.shutdownNow();
+    workers.shutdownNow();
+  }
+
+  /**
+   * 应用启动后在后台预热，不阻塞启动
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void warmOnStartup() {
+    if (!enabled) {
+      warmed = true;
+      return;
+    }
+    schedule();
+  }
+
+  /**
+   * 行情变更后重新预热；在其它监听方更新完索引和内存行情之后执行
+   */
+  @EventListener
+  @Order(Ordered.LOWEST_PRECEDENCE)
+  public void onMarketDataChanged(MarketDataChangedEvent event) {
+    if (enabled) {
+      schedule();
+    }
+  }
+
+  /**
+   * 首次预热是否已结束
+   */
+  public boolean isWarmed() {
+    return warmed;
+  }
+
+  /**
+   * 最近一次预热的状态
+   */
+  public Map<String, Object> status() {
+    Map<String, Object> status = new LinkedHashMap<>();
+    status.put("running", running);
+    status.put("runs", runs);
+    status.put("trade_date", lastTradeDate != null ? lastTradeDate.toString() : null);
+    status.put("finished_at", lastFinished != null ? lastFinished.toString() : null);
+    status.put("elapsed_ms", lastElapsedMs);
+    status.put("pages", lastPages);
+    status.put("failures", lastFailures);
+    return status;
+  }
+
+  private void schedule() {
+    if (pending.compareAndSet(false, true)) {
+      coordinator.execute(() -> {
+        pending.set(false);
+        try {
+          warm();
+        } catch (RuntimeException e) {
+          log.warn("缓存预热失败", e);
+        } finally {
+          warmed = true;
+        }
+      });
+    }
+  }
+
+  /**
+   * 并行预热各交易日、各筛选的前几页
+   */
+  private void warm() {
+    LocalDate latest = tradingCalendar.maxDate();
+    if (latest == null) {
+      return;
+    }
+    running = true;
+    try {
+      warm(latest);
+    } finally {
+      running = false;
+    }
+  }
+
+  private void warm(LocalDate latest) {
+    long start = System.currentTimeMillis();
+    // 最新交易日按未指定日期的默认视图预热，与前端首次打开时的请求一致
+    List<String> dates = new ArrayList<>();
+    dates.add(null);
+    for (int i = 1; i <= previousDays; i++) {
+      LocalDate date = tradingCalendar.previousNth(latest, i);
+      if (date == null || date.equals(latest)) {
+        break;
+      }
+      dates.add(date.toString());
+    }
+
+    List<Future<Integer>> futures = new ArrayList<>();
+    for (String date : dates) {
+      for (Screen screen : Screen.values()) {
+        futures.add(workers.submit(() -> warmScreen(screen, date)));
+      }
+    }
+    int warmedPages = 0;
+    int failures = 0;
+    long deadline = start + timeoutMs;
+    for (Future<Integer> future : futures) {
+      try {
+        warmedPages += future.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+      } catch (ExecutionException e) {
+        failures++;
+        log.warn("缓存预热查询失败: {}", e.getCause().getMessage());
+      } catch (TimeoutException e) {
+        failures++;
+        future.cancel(true);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+
+    runs++;
+    lastTradeDate = latest;
+    lastFinished = Instant.now();
+    lastElapsedMs = System.currentTimeMillis() - start;
+    lastPages = warmedPages;
+    lastFailures = failures;
+    log.info("缓存预热完成: 交易日 {}, {} 页, 失败 {} 组, 耗时 {} ms", latest, warmedPages, failures, lastElapsedMs);
+  }
+
+  /**
+   * 按页码依次预热一个筛选，不足 pages 页时提前结束
+   *
+   * @return 预热的页数
+   */
+  private int warmScreen(Screen screen, String tradeDate) {
+    int page = 1;
+    for (; page <= pages; page++) {
+      StockQuery query = new StockQuery();
+      query.setTradeDate(tradeDate);
+      query.setPageNum(page);
+      StockResponse response = stockService.getScreenData(screen, query);
+      if ((long) page * pageSize >= response.getStock_count()) {
+        break;
+      }
+    }
+    return Math.min(page, pages);
+  }
+}
@@ -0,0 +1,25 @@
+package com.example.stock.warmup;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * 缓存预热状态（健康检查名称 warmup）
+ *
+ * 首次预热结束前为 OUT_OF_SERVICE（HTTP 503），已加入 readiness 分组，
+ * 负载均衡以 /actuator/health/readiness 判断是否转发流量；之后的重新预热不影响状态。
+ */
+@Component
+public class WarmupHealthIndicator implements HealthIndicator {
+
+  @Autowired
+  private CacheWarmer cacheWarmer;
+
+  @Override
+  public Health health() {
+    Health.Builder builder = cacheWarmer.isWarmed() ? Health.up() : Health.outOfService();
+    return builder.withDetails(cacheWarmer.status()).build();
+  }
+}
@@ -0,0 +1,101 @@
+package com.example.stock.web;
+
+import com.example.stock.dto.IndicatorColumns;
+import com.example.stock.dto.StockResponse;
+import com.example.stock.entity.StockBar;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * 以二进制 float32 布局输出 StockResponse，直接流式写入响应输出流
+ *
+ * 全部为大端序（与 JS DataView 默认一致），字符串为 u16 长度 + UTF-8 字节，
+ * 长度为 0xFFFF 表示 null：
+ * <pre>
+ * i32 magic("SGF1") | i32 page | i32 stock_count | str date | str next_cursor
+ * u16 列数 | str 列名...
+ * i32 股票数 | 每只股票: str ts_code | i32 行数n | i32[n] epoch day | 每列 f32[n]
+ * </pre>
+ * 请求了技术指标时，indicator_names 追加在列名之后，每只股票的指标列跟在数值列之后，空值为 NaN。
+ */
+public class BinaryGridHttpMessageConverter extends AbstractHttpMessageConverter<StockResponse> {
+
+  private static final int NULL_STRING = 0xFFFF;
+
+  public BinaryGridHttpMessageConverter() {
+    super(GridFormats.BINARY_F32);
+  }
+
+  @Override
+  protected boolean supports(Class<?> clazz) {
+    return StockResponse.class.isAssignableFrom(clazz);
+  }
+
+  @Override
+  protected StockResponse readInternal(Class<? extends StockResponse> clazz, HttpInputMessage inputMessage) {
+    throw new HttpMessageNotReadableException("不支持读取二进制格式", inputMessage);
+  }
+
+  @Override
+  protected void writeInternal(StockResponse response, HttpOutputMessage outputMessage) throws IOException {
+    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(outputMessage.getBody(), 16 * 1024));
+    out.writeInt(GridFormats.BINARY_MAGIC);
+    out.writeInt(response.getPage());
+    out.writeInt(response.getStock_count());
+    writeString(out, response.getDate());
+    writeString(out, response.getNext_cursor());
+
+    List<String> indicatorNames = response.getIndicator_names();
+    List<IndicatorColumns> indicatorData = response.getIndicator_data();
+    int indicatorCount = indicatorNames != null && indicatorData != null ? indicatorNames.size() : 0;
+    out.writeShort(GridFormats.NUMERIC_COLUMNS.length + indicatorCount);
+    for (String column : GridFormats.NUMERIC_COLUMNS) {
+      writeString(out, column);
+    }
+    for (int c = 0; c < indicatorCount; c++) {
+      writeString(out, indicatorNames.get(c));
+    }
+
+    List<List<StockBar>> gridData = response.getGrid_data();
+    out.writeInt(gridData != null ? gridData.size() : 0);
+    if (gridData != null) {
+      for (int i = 0; i < gridData.size(); i++) {
+        List<StockBar> rows = gridData.get(i);
+        writeString(out, rows.isEmpty() ? null : rows.get(0).getTsCode());
+        out.writeInt(rows.size());
+        for (StockBar row : rows) {
+          out.writeInt(row.getTradeDate());
+        }
+        for (int c = 0; c < StockBar.NUMERIC_COUNT; c++) {
+          for (StockBar row : rows) {
+            out.writeFloat((float) row.number(c));
+          }
+        }
+        for (int c = 0; c < indicatorCount; c++) {
+          for (double value : indicatorData.get(i).column(c)) {
+            out.writeFloat((float) value);
+          }
+        }
+      }
+    }
+    out.flush();
+  }
+
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    if (value == null) {
+      out.writeShort(NULL_STRING);
+      return;
+    }
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeShort(bytes.length);
+    out.write(bytes);
+  }
+}
@@ -0,0 +1,107 @@
+package com.example.stock.web;
+
+import com.example.stock.dto.IndicatorColumns;
+import com.example.stock.dto.StockResponse;
+import com.example.stock.entity.StockBar;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 以按股票分列的 JSON 输出 StockResponse，直接流式写入响应输出流
+ *
+ * <pre>
+ * {"date":..., "page":..., "stock_count":..., "next_cursor":...,
+ *  "stocks":[{"ts_code":"000001.SZ", "trade_date":[19000,...], "open":[10.23,...], ...}]}
+ * </pre>
+ * 请求了技术指标时，每只股票在数值列之后按 indicator_names 的名称各输出一列。
+ */
+public class ColumnarJsonHttpMessageConverter extends AbstractHttpMessageConverter<StockResponse> {
+
+  private final JsonFactory jsonFactory;
+
+  public ColumnarJsonHttpMessageConverter(JsonFactory jsonFactory) {
+    super(GridFormats.COLUMNAR_JSON);
+    this.jsonFactory = jsonFactory;
+  }
+
+  @Override
+  protected boolean supports(Class<?> clazz) {
+    return StockResponse.class.isAssignableFrom(clazz);
+  }
+
+  @Override
+  protected StockResponse readInternal(Class<? extends StockResponse> clazz, HttpInputMessage inputMessage) {
+    throw new HttpMessageNotReadableException("不支持读取列式格式", inputMessage);
+  }
+
+  @Override
+  protected void writeInternal(StockResponse response, HttpOutputMessage outputMessage) throws IOException {
+    char[] buffer = new char[32];
+    try (JsonGenerator gen = jsonFactory.createGenerator(outputMessage.getBody(), JsonEncoding.UTF8)) {
+      gen.writeStartObject();
+      gen.writeStringField("date", response.getDate());
+      gen.writeNumberField("page", response.getPage());
+      gen.writeNumberField("stock_count", response.getStock_count());
+      gen.writeStringField("next_cursor", response.getNext_cursor());
+      gen.writeStringField("date_encoding", "epoch_day");
+
+      gen.writeArrayFieldStart("stocks");
+      List<List<StockBar>> gridData = response.getGrid_data();
+      List<String> indicatorNames = response.getIndicator_names();
+      List<IndicatorColumns> indicatorData = response.getIndicator_data();
+      if (gridData != null) {
+        for (int i = 0; i < gridData.size(); i++) {
+          writeStock(gen, gridData.get(i), indicatorNames, indicatorData != null ? indicatorData.get(i) : null,
+              buffer);
+        }
+      }
+      gen.writeEndArray();
+      gen.writeEndObject();
+    }
+  }
+
+  private void writeStock(JsonGenerator gen, List<StockBar> rows, List<String> indicatorNames,
+      IndicatorColumns indicators, char[] buffer) throws IOException {
+    gen.writeStartObject();
+    gen.writeStringField("ts_code", rows.isEmpty() ? null : rows.get(0).getTsCode());
+
+    gen.writeArrayFieldStart("trade_date");
+    for (StockBar row : rows) {
+      gen.writeNumber(row.getTradeDate());
+    }
+    gen.writeEndArray();
+
+    for (int c = 0; c < GridFormats.NUMERIC_COLUMNS.length; c++) {
+      int scale = GridFormats.NUMERIC_SCALES[c];
+      gen.writeArrayFieldStart(GridFormats.NUMERIC_COLUMNS[c]);
+      for (StockBar row : rows) {
+        double value = row.number(c);
+        if (Double.isNaN(value)) {
+          gen.writeNull();
+        } else {
+          gen.writeRawValue(buffer, 0, GridFormats.formatFixed(value, scale, buffer));
+        }
+      }
+      gen.writeEndArray();
+    }
+
+    if (indicators != null) {
+      for (int c = 0; c < indicators.size(); c++) {
+        gen.writeArrayFieldStart(indicatorNames.get(c));
+        for (double value : indicators.column(c)) {
+          IndicatorColumnsSerializer.writeValue(gen, value, buffer);
+        }
+        gen.writeEndArray();
+      }
+    }
+    gen.writeEndObject();
+  }
+}
@@ -0,0 +1,172 @@
+package com.example.stock.web;
+
+import com.example.stock.screener.Screener;
+import com.example.stock.service.DataVersion;
+import com.example.stock.service.Screen;
+import com.example.stock.service.TradingCalendar;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 筛选接口的条件请求
+ *
+ * 在进入控制器之前由（接口路径, 全部查询参数, Accept, Accept-Encoding, 版本戳）计算强 ETag，
+ * If-None-Match 命中时直接返回304，不经过缓存和数据库。版本戳与筛选缓存相同：
+ * 前后窗口已完整的历史交易日只在修订历史数据后变化，这类响应同时带有较长的 max-age，
+ * 其余响应为 no-cache，每次向服务端确认。
+ * 版本号只在本进程内递增，ETag 中带上启动标识，重启前或其它实例签发的 ETag 不会误判为未修改；
+ * 同理 max-age 只允许浏览器缓存（private），不允许共享缓存跨实例保存。
+ * 不发送 Last-Modified：修改时间同样只在本进程内有意义，If-Modified-Since 无法区分实例。
+ * ETag 和 Cache-Control 在写出响应体时（{@link ResponseBodyAdvice}）才设置，且只用于2xx响应，
+ * 400、503 等错误响应不会被浏览器缓存。
+ * Accept-Encoding 参与计算，压缩与未压缩的响应各有自己的 ETag。
+ */
+@ControllerAdvice
+public class ConditionalGetInterceptor implements HandlerInterceptor, ResponseBodyAdvice<Object> {
+
+  // 请求属性：preHandle 计算出的 ETag 和 Cache-Control，写出2xx响应体时设置
+  private static final String ETAG_ATTRIBUTE = ConditionalGetInterceptor.class.getName() + ".etag";
+  private static final String CACHE_CONTROL_ATTRIBUTE = ConditionalGetInterceptor.class.getName() + ".cacheControl";
+
+  // 筛选接口及其窗口大小，自定义筛选的窗口由 windowDays 参数指定
+  private static final Map<String, Screen> SCREENS = Map.of(
+      "/api/stock/data", Screen.ALL,
+      "/api/stock/limit-up", Screen.LIMIT_UP,
+      "/api/stock/limit-down", Screen.LIMIT_DOWN,
+      "/api/stock/half-year-line", Screen.HALF_YEAR_LINE,
+      "/api/stock/year-line", Screen.YEAR_LINE);
+  private static final String SCREENER_PATH = "/api/stock/screen";
+
+  @Autowired
+  private DataVersion dataVersion;
+
+  @Autowired
+  private TradingCalendar tradingCalendar;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Value("${stock.http.conditional.enabled:true}")
+  private boolean enabled;
+
+  @Value("${stock.http.history-max-age-seconds:86400}")
+  private long historyMaxAge;
+
+  /**
+   * 需要拦截的路径
+   */
+  public static String[] paths() {
+    String[] paths = SCREENS.keySet().toArray(new String[SCREENS.size() + 1]);
+    paths[SCREENS.size()] = SCREENER_PATH;
+    return paths;
+  }
+
+  @Override
+  public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+    if (!enabled || !"GET".equals(request.getMethod()) && !"HEAD".equals(request.getMethod())) {
+      return true;
+    }
+    String path = request.getRequestURI().substring(request.getContextPath().length());
+    LocalDate tradeDate;
+    int windowDays;
+    try {
+      Screen screen = SCREENS.get(path);
+      windowDays = screen != null ? screen.getWindowDays() : windowDays(request.getParameter("windowDays"));
+      String requested = request.getParameter("tradeDate");
+      tradeDate = requested == null || requested.isEmpty() ? tradingCalendar.maxDate() : LocalDate.parse(requested);
+    } catch (DateTimeParseException | NumberFormatException e) {
+      // 参数错误由控制器返回400
+      return true;
+    }
+    if (tradeDate == null) {
+      return true;
+    }
+
+    boolean complete = dataVersion.isComplete(windowDays, tradeDate);
+    String etag = etag(path, request,
+        (complete ? "e" : "v") + dataVersion.stampFor(windowDays, tradeDate) + "." + dataVersion.instance());
+    String cacheControl = complete ? "private, max-age=" + historyMaxAge : "no-cache";
+    response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+    response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+    // 不传入 response，只做比较，未命中时不提前写入任何缓存相关的头
+    if (new ServletWebRequest(request).checkNotModified(etag)) {
+      response.setStatus(HttpStatus.NOT_MODIFIED.value());
+      response.setHeader(HttpHeaders.ETAG, etag);
+      response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+      meterRegistry.counter("stock.http.not_modified", "uri", path).increment();
+      return false;
+    }
+    request.setAttribute(ETAG_ATTRIBUTE, etag);
+    request.setAttribute(CACHE_CONTROL_ATTRIBUTE, cacheControl);
+    return true;
+  }
+
+  @Override
+  public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+    return enabled;
+  }
+
+  /**
+   * 只为2xx响应设置 preHandle 计算的 ETag 和 Cache-Control，异常处理器返回的错误响应不带这两个头
+   */
+  @Override
+  public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+      Class<? extends HttpMessageConverter<?>> selectedConverterType, ServerHttpRequest request,
+      ServerHttpResponse response) {
+    if (!(request instanceof ServletServerHttpRequest) || !(response instanceof ServletServerHttpResponse)) {
+      return body;
+    }
+    HttpServletRequest servletRequest = ((ServletServerHttpRequest) request).getServletRequest();
+    HttpServletResponse servletResponse = ((ServletServerHttpResponse) response).getServletResponse();
+    Object etag = servletRequest.getAttribute(ETAG_ATTRIBUTE);
+    if (etag != null && HttpStatus.valueOf(servletResponse.getStatus()).is2xxSuccessful()) {
+      response.getHeaders().setETag((String) etag);
+      response.getHeaders().setCacheControl((String) servletRequest.getAttribute(CACHE_CONTROL_ATTRIBUTE));
+    }
+    return body;
+  }
+
+  private static int windowDays(String value) {
+    return Integer.parseInt(value == null || value.isEmpty() ? Screener.DEFAULT_WINDOW_DAYS : value);
+  }
+
+  /**
+   * 参数按名称排序后参与计算，参数顺序不同的相同请求得到相同的 ETag
+   */
+  private static String etag(String path, HttpServletRequest request, String stamp) {
+    StringBuilder sb = new StringBuilder(path);
+    for (Map.Entry<String, String[]> entry : new TreeMap<>(request.getParameterMap()).entrySet()) {
+      // 以控制字符分隔，参数值（如筛选表达式）中的 = 和 & 不会造成歧义
+      sb.append('\n').append(entry.getKey());
+      for (String value : entry.getValue()) {
+        sb.append('\0').append(value);
+      }
+    }
+    sb.append('\n').append(request.getHeader(HttpHeaders.ACCEPT));
+    sb.append('\n').append(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+    return "\"" + stamp + "-" + DigestUtils.md5DigestAsHex(sb.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+  }
+}
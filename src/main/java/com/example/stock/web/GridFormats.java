@@ -0,0 +1,92 @@
+package com.example.stock.web;
+
+import org.springframework.http.MediaType;
+
+import java.time.LocalDate;
+
+/**
+ * grid_data 的紧凑传输格式定义
+ *
+ * 默认 JSON 中每行由 {@link StockBarSerializer} 输出为数组，数值保留库中的全部小数位（{@link #STORED_SCALE}）；
+ * columnar：按股票分列的 JSON，日期为 epoch day 整数，数值按各列的展示小数位（NUMERIC_SCALES）输出；
+ * f32：大端、带长度前缀的二进制布局，数值列为 float32（空值为 NaN）。
+ * 两种格式均可通过 Accept 头或 format=columnar|f32 参数选择。
+ */
+public final class GridFormats {
+
+  public static final String COLUMNAR_JSON_VALUE = "application/vnd.stock.columnar+json";
+  public static final MediaType COLUMNAR_JSON = MediaType.parseMediaType(COLUMNAR_JSON_VALUE);
+
+  public static final String BINARY_F32_VALUE = "application/x-stock-f32";
+  public static final MediaType BINARY_F32 = MediaType.parseMediaType(BINARY_F32_VALUE);
+
+  // 二进制格式的魔数
+  public static final int BINARY_MAGIC = 0x53474631; // "SGF1"
+
+  // 数值列名称，顺序与 StockBar.number(int) 的列序号一致
+  static final String[] NUMERIC_COLUMNS = {
+      "open", "high", "low", "close", "pre_close", "pct_chg", "vol", "amount",
+      "turnover_rate", "ma5", "ma10", "ma120", "ma250"};
+  // 库中数值列的小数位（NUMERIC(20,4)），默认 JSON 按此输出，不丢失精度
+  static final int STORED_SCALE = 4;
+  // columnar 格式中各列的展示小数位，只用于客户端通过 Accept 或 format 参数选择的紧凑格式
+  static final int[] NUMERIC_SCALES = {2, 2, 2, 2, 2, 4, 2, 3, 4, 3, 3, 3, 3};
+  // 技术指标输出的小数位
+  static final int INDICATOR_SCALE = 4;
+
+  private static final long[] POW10 = {1L, 10L, 100L, 1000L, 10000L, 100000L};
+
+  private GridFormats() {
+  }
+
+  /**
+   * 按固定小数位格式化到 buffer（从0开始），返回长度；末尾多余的0会被去掉。
+   * 放大后超出 double 精确表示的整数范围时减少小数位，避免溢出和多余的尾数
+   */
+  static int formatFixed(double value, int scale, char[] buffer) {
+    while (scale > 0 && Math.abs(value) * POW10[scale] >= 1e15) {
+      scale--;
+    }
+    long scaled = Math.round(Math.abs(value) * POW10[scale]);
+    while (scale > 0 && scaled % 10 == 0) {
+      scaled /= 10;
+      scale--;
+    }
+    // 从右向左写入数字
+    int pos = buffer.length;
+    int digits = 0;
+    do {
+      if (digits == scale && scale > 0) {
+        buffer[--pos] = '.';
+      }
+      buffer[--pos] = (char) ('0' + scaled % 10);
+      scaled /= 10;
+      digits++;
+    } while (scaled > 0 || digits <= scale);
+    if (value < 0 && !(pos == buffer.length - 1 && buffer[pos] == '0')) {
+      buffer[--pos] = '-';
+    }
+    int length = buffer.length - pos;
+    System.arraycopy(buffer, pos, buffer, 0, length);
+    return length;
+  }
+
+  /**
+   * 将 epoch day 格式化为 yyyy-MM-dd 写入 buffer（从0开始），返回长度10
+   */
+  static int formatDate(int epochDay, char[] buffer) {
+    LocalDate date = LocalDate.ofEpochDay(epochDay);
+    int year = date.getYear();
+    for (int i = 3; i >= 0; i--) {
+      buffer[i] = (char) ('0' + year % 10);
+      year /= 10;
+    }
+    buffer[4] = '-';
+    buffer[5] = (char) ('0' + date.getMonthValue() / 10);
+    buffer[6] = (char) ('0' + date.getMonthValue() % 10);
+    buffer[7] = '-';
+    buffer[8] = (char) ('0' + date.getDayOfMonth() / 10);
+    buffer[9] = (char) ('0' + date.getDayOfMonth() % 10);
+    return 10;
+  }
+}
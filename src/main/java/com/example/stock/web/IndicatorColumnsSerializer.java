@@ -0,0 +1,40 @@
+package com.example.stock.web;
+
+import com.example.stock.dto.IndicatorColumns;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/**
+ * 将 {@link IndicatorColumns} 输出为二维数组，每列一个数组；数值保留4位小数，NaN 输出为 null
+ */
+public class IndicatorColumnsSerializer extends StdSerializer<IndicatorColumns> {
+
+  public IndicatorColumnsSerializer() {
+    super(IndicatorColumns.class);
+  }
+
+  @Override
+  public void serialize(IndicatorColumns value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+    char[] buffer = new char[32];
+    gen.writeStartArray();
+    for (int c = 0; c < value.size(); c++) {
+      gen.writeStartArray();
+      for (double v : value.column(c)) {
+        writeValue(gen, v, buffer);
+      }
+      gen.writeEndArray();
+    }
+    gen.writeEndArray();
+  }
+
+  static void writeValue(JsonGenerator gen, double value, char[] buffer) throws IOException {
+    if (Double.isNaN(value) || Double.isInfinite(value)) {
+      gen.writeNull();
+    } else {
+      gen.writeRawValue(buffer, 0, GridFormats.formatFixed(value, GridFormats.INDICATOR_SCALE, buffer));
+    }
+  }
+}
@@ -0,0 +1,103 @@
+package com.example.stock.web;
+
+import com.example.stock.entity.StockBar;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 将 {@link StockBar} 逐行写为 CSV
+ *
+ * 列与 grid_data 相同，数值保留库中的全部小数位（末尾的0去掉），空值为空字段。
+ * 内容只含 ASCII，直接写入字节缓冲区，满后整块写出，内存占用与导出行数无关。
+ */
+public class StockBarCsvWriter {
+
+  public static final String CONTENT_TYPE = "text/csv;charset=UTF-8";
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+  // 一行的最大长度：代码、日期和13个数值
+  private static final int MAX_ROW = 512;
+
+  private final OutputStream out;
+  private final byte[] buffer = new byte[BUFFER_SIZE];
+  private final char[] chars = new char[32];
+  private int size;
+  private long rows;
+
+  public StockBarCsvWriter(OutputStream out) {
+    this.out = out;
+  }
+
+  /**
+   * 写入表头
+   */
+  public void writeHeader(Iterable<String> columns) throws IOException {
+    boolean first = true;
+    for (String column : columns) {
+      if (!first) {
+        put((byte) ',');
+      }
+      putAscii(column);
+      first = false;
+    }
+    put((byte) '\n');
+  }
+
+  public void write(StockBar bar) throws IOException {
+    if (size + MAX_ROW > BUFFER_SIZE) {
+      flushBuffer();
+    }
+    putAscii(bar.getTsCode());
+    put((byte) ',');
+    putChars(GridFormats.formatDate(bar.getTradeDate(), chars));
+    for (int c = 0; c < StockBar.NUMERIC_COUNT; c++) {
+      put((byte) ',');
+      double value = bar.number(c);
+      if (!Double.isNaN(value)) {
+        putChars(GridFormats.formatFixed(value, GridFormats.STORED_SCALE, chars));
+      }
+    }
+    put((byte) '\n');
+    rows++;
+  }
+
+  /**
+   * 已写入的数据行数
+   */
+  public long getRows() {
+    return rows;
+  }
+
+  /**
+   * 写出缓冲区中的剩余内容并刷新输出流
+   */
+  public void flush() throws IOException {
+    flushBuffer();
+    out.flush();
+  }
+
+  private void flushBuffer() throws IOException {
+    out.write(buffer, 0, size);
+    size = 0;
+  }
+
+  private void putChars(int length) {
+    for (int i = 0; i < length; i++) {
+      buffer[size++] = (byte) chars[i];
+    }
+  }
+
+  private void putAscii(String text) throws IOException {
+    if (size + text.length() > BUFFER_SIZE) {
+      flushBuffer();
+    }
+    for (int i = 0; i < text.length(); i++) {
+      buffer[size++] = (byte) text.charAt(i);
+    }
+  }
+
+  private void put(byte b) {
+    buffer[size++] = b;
+  }
+}
@@ -0,0 +1,41 @@
+package com.example.stock.web;
+
+import com.example.stock.entity.StockBar;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/**
+ * 将 {@link StockBar} 输出为 grid_data 中的一行：
+ * [ts_code, "yyyy-MM-dd", open, high, low, close, pre_close, pct_chg, vol, amount, turnover_rate, ma5, ma10, ma120, ma250]
+ *
+ * 数值按库中的小数位格式化并去掉末尾的0，NaN 输出为 null，与库中的 NUMERIC 值相同。
+ */
+public class StockBarSerializer extends StdSerializer<StockBar> {
+
+  // 每行都会调用，格式化缓冲区按线程复用
+  private static final ThreadLocal<char[]> BUFFER = ThreadLocal.withInitial(() -> new char[32]);
+
+  public StockBarSerializer() {
+    super(StockBar.class);
+  }
+
+  @Override
+  public void serialize(StockBar bar, JsonGenerator gen, SerializerProvider provider) throws IOException {
+    char[] buffer = BUFFER.get();
+    gen.writeStartArray();
+    gen.writeString(bar.getTsCode());
+    gen.writeString(buffer, 0, GridFormats.formatDate(bar.getTradeDate(), buffer));
+    for (int c = 0; c < StockBar.NUMERIC_COUNT; c++) {
+      double value = bar.number(c);
+      if (Double.isNaN(value)) {
+        gen.writeNull();
+      } else {
+        gen.writeRawValue(buffer, 0, GridFormats.formatFixed(value, GridFormats.STORED_SCALE, buffer));
+      }
+    }
+    gen.writeEndArray();
+  }
+}
@@ -0,0 +1,25 @@
+-- bench profile 使用的表结构，H2（PostgreSQL 兼容模式）和 PostgreSQL 均可执行
+CREATE TABLE IF NOT EXISTS public.all_stocks_days (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    ts_code VARCHAR(16) NOT NULL,
+    trade_date DATE NOT NULL,
+    open NUMERIC(20, 4),
+    high NUMERIC(20, 4),
+    low NUMERIC(20, 4),
+    close NUMERIC(20, 4),
+    pre_close NUMERIC(20, 4),
+    pct_chg NUMERIC(20, 4),
+    vol NUMERIC(20, 4),
+    amount NUMERIC(20, 4),
+    turnover_rate NUMERIC(20, 4),
+    ma5 NUMERIC(20, 4),
+    ma10 NUMERIC(20, 4),
+    ma120 NUMERIC(20, 4),
+    ma250 NUMERIC(20, 4)
+);
+
+CREATE UNIQUE INDEX IF NOT EXISTS all_stocks_days_ts_code_trade_date_uk
+    ON public.all_stocks_days (ts_code, trade_date);
+
+CREATE INDEX IF NOT EXISTS all_stocks_days_trade_date_idx
+    ON public.all_stocks_days (trade_date);
@@ -0,0 +1,8 @@
+-- 日线入库（INSERT ... ON CONFLICT）依赖的唯一索引，在生产库上手工执行一次。
+-- CONCURRENTLY 建索引期间不阻塞写入，但不能在事务内执行；存在重复的 (ts_code, trade_date) 时会失败，
+-- 先用下面的查询检查并清理：
+--   SELECT ts_code, trade_date, COUNT(*) FROM public.all_stocks_days
+--   GROUP BY ts_code, trade_date HAVING COUNT(*) > 1;
+-- 失败后会留下 INVALID 状态的索引，需先 DROP INDEX 再重新执行。
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS all_stocks_days_ts_code_trade_date_uk
+    ON public.all_stocks_days (ts_code, trade_date);
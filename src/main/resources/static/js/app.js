@@ -1,12 +1,100 @@
 // 创建 Vue 应用
 const { createApp, ref, reactive, onMounted, nextTick, watch } = Vue;
+
+// 请求的响应格式：'columnar' 列式JSON，'f32' 二进制，'json' 原始行式JSON
+const RESPONSE_FORMAT = 'columnar';
+
+// grid_data 每行的列顺序
+const GRID_COLUMNS = ['ts_code', 'trade_date', 'open', 'high', 'low', 'close', 'pre_close', 'pct_chg', 'vol',
+  'amount', 'turnover_rate', 'ma5', 'ma10', 'ma120', 'ma250'];
+
+// epoch day 转换为 yyyy-MM-dd
+const epochDayToString = (day) => new Date(day * 86400000).toISOString().split('T')[0];
+
+// 将按股票分列的数据还原为 grid_data 的行格式
+const columnsToRows = (tsCode, dates, columns) => dates.map((day, i) => {
+  const row = [tsCode, epochDayToString(day)];
+  for (let c = 2; c < GRID_COLUMNS.length; c++) {
+    const values = columns[GRID_COLUMNS[c]];
+    const value = values ? values[i] : null;
+    row.push(value === null || value === undefined || Number.isNaN(value) ? null : value);
+  }
+  return row;
+});
+
+// 解析列式JSON响应
+const fromColumnar = (data) => ({
+  column_names: GRID_COLUMNS,
+  date: data.date,
+  page: data.page,
+  stock_count: data.stock_count,
+  next_cursor: data.next_cursor,
+  grid_data: (data.stocks || []).map(stock => columnsToRows(stock.ts_code, stock.trade_date, stock))
+});
+
+// 解析二进制float32响应（大端序，格式见 BinaryGridHttpMessageConverter）
+const fromBinary = (buffer) => {
+  const view = new DataView(buffer);
+  const decoder = new TextDecoder('utf-8');
+  let offset = 0;
+  const readInt = () => { const v = view.getInt32(offset); offset += 4; return v; };
+  const readString = () => {
+    const length = view.getUint16(offset);
+    offset += 2;
+    if (length === 0xFFFF) return null;
+    const value = decoder.decode(new Uint8Array(buffer, offset, length));
+    offset += length;
+    return value;
+  };
+
+  if (readInt() !== 0x53474631) throw new Error('无法识别的数据格式');
+  const page = readInt();
+  const stockCount = readInt();
+  const date = readString();
+  const nextCursor = readString();
+  const columnCount = view.getUint16(offset);
+  offset += 2;
+  const columnNames = [];
+  for (let c = 0; c < columnCount; c++) columnNames.push(readString());
+
+  const gridData = [];
+  const stocks = readInt();
+  for (let s = 0; s < stocks; s++) {
+    const tsCode = readString();
+    const n = readInt();
+    const dates = [];
+    for (let i = 0; i < n; i++) dates.push(readInt());
+    const columns = {};
+    for (const name of columnNames) {
+      const values = new Array(n);
+      for (let i = 0; i < n; i++) {
+        // float32 只有约7位有效数字，还原为最短的十进制表示
+        values[i] = Number(view.getFloat32(offset).toPrecision(7));
+        offset += 4;
+      }
+      columns[name] = values;
+    }
+    gridData.push(columnsToRows(tsCode, dates, columns));
+  }
+  return { column_names: GRID_COLUMNS, date, page, stock_count: stockCount, next_cursor: nextCursor, grid_data: gridData };
+};
+
+// 按请求的格式解析响应
+const parseResponse = async (response) => {
+  if (RESPONSE_FORMAT === 'f32') return fromBinary(await response.arrayBuffer());
+  if (RESPONSE_FORMAT === 'columnar') return fromColumnar(await response.json());
+  return response.json();
+};
 const app = createApp({
   setup() {
     // 响应式数据
     const searchForm = reactive({
       tsCode: '',
-      tradeDate: ''
+      tradeDate: '',
+      resolution: 'day' // 数据周期：day 日线、week 周线、month 月线，长窗口可选周线/月线以减小数据量
     });
+    // 当前表格数据的周期，增量推送只能原地合并到日线
+    let loadedResolution = 'day';
     const stockResponse = ref(null);
     const currentPage = ref(1);
     const activeTab = ref(0); // 使用索引代替股票代码
@@ -47,14 +135,18 @@ const app = createApp({
         if (searchForm.tsCode) params.append('tsCode', searchForm.tsCode);
         if (searchForm.tradeDate) params.append('tradeDate', searchForm.tradeDate);
         params.append('pageNum', currentPage.value);
+        params.append('format', RESPONSE_FORMAT);
+        const resolution = searchForm.resolution;
+        if (resolution !== 'day') params.append('resolution', resolution);
 
         const response = await fetch(`${url}?${params.toString()}`);
         if (!response.ok) {
           throw new Error('网络请求失败');
         }
 
-        const data = await response.json();
+        const data = await parseResponse(response);
         stockResponse.value = data;
+        loadedResolution = resolution;
 
         // 如果数据为空则显示提示
         if (!data.grid_data || data.grid_data.length === 0) {
@@ -325,6 +417,67 @@ const app = createApp({
       chart.setOption(option);
     };
 
+    // 当前数据类型对应的推送筛选名
+    const SCREEN_KEYS = {
+      limitUp: 'limit_up',
+      limitDown: 'limit_down',
+      halfYearLine: 'half_year_line',
+      yearLine: 'year_line'
+    };
+
+    // 将最新交易日的增量原地合并到当前表格，不重新查询
+    const applyDelta = (delta) => {
+      const data = stockResponse.value;
+      if (!data || !data.grid_data) return;
+
+      // 推送的是日线，周线/月线视图不做原地替换
+      const byCode = loadedResolution !== 'day' ? new Map() : new Map(delta.rows.map(row => [row[0], row]));
+      let patched = 0;
+      data.grid_data.forEach(stockRows => {
+        if (stockRows.length === 0) return;
+        const row = byCode.get(stockRows[0][0]);
+        if (!row) return;
+        const index = stockRows.findIndex(item => item[1] === row[1]);
+        if (index >= 0) {
+          stockRows.splice(index, 1, row);
+          patched++;
+        }
+      });
+
+      // 筛选成员变化需要重新分页，只做提示
+      const screenKey = SCREEN_KEYS[currentDataType.value];
+      const membership = screenKey && delta.screens ? delta.screens[screenKey] : null;
+      if (membership && (membership.added.length > 0 || membership.removed.length > 0)) {
+        ElementPlus.ElMessage.info(`${delta.trade_date} 筛选结果有变化：新增 ${membership.added.length} 只，`
+          + `移出 ${membership.removed.length} 只`);
+      }
+
+      if (patched > 0) {
+        nextTick(() => {
+          renderCharts();
+        });
+      }
+    };
+
+    // 最新交易日切换时服务端不推送当日数据，查看最新交易日的页面重新查询当前页
+    const applyReset = (reset) => {
+      if (!stockResponse.value || searchForm.tradeDate) return;
+      ElementPlus.ElMessage.info(`最新交易日已更新为 ${reset.trade_date}`);
+      handlePageChange(currentPage.value);
+    };
+
+    // 订阅最新交易日的增量推送，断开后浏览器会自动重连
+    const connectStream = () => {
+      if (!window.EventSource) return;
+      const source = new EventSource('/api/stock/stream');
+      source.addEventListener('delta', (event) => applyDelta(JSON.parse(event.data)));
+      source.addEventListener('reset', (event) => applyReset(JSON.parse(event.data)));
+    };
+
+    onMounted(() => {
+      connectStream();
+    });
+
     // 监听窗口大小变化，重新渲染图表
     window.addEventListener('resize', () => {
       Object.values(chartInstances).forEach(chart => {